@@ -2,9 +2,11 @@ package com.lakshayghai.customermanagement;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.validation.annotation.Validated;
 
 @SpringBootApplication
+@EnableScheduling
 public class CustomerManagementApplication {
 
 	public static void main(String[] args) {
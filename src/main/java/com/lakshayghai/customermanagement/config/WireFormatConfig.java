@@ -0,0 +1,32 @@
+package com.lakshayghai.customermanagement.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Binary wire formats for service-to-service calls.
+ * <p>
+ * Clients opt in with {@code Accept} / {@code Content-Type} set to {@code application/cbor}
+ * or {@code application/x-jackson-smile}; JSON stays the default. Both converters are built
+ * from Boot's {@link Jackson2ObjectMapperBuilder} so they share the {@code spring.jackson.*}
+ * settings (e.g. ISO dates for the audit fields) with the JSON converter, and replace the
+ * unconfigured defaults Spring MVC would otherwise register.
+ */
+@Configuration(proxyBeanMethods = false)
+public class WireFormatConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
@@ -1,45 +1,131 @@
 package com.lakshayghai.customermanagement.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.lakshayghai.customermanagement.model.CustomerDTO;
+import com.lakshayghai.customermanagement.model.CustomerFields;
+import com.lakshayghai.customermanagement.service.CustomerHistoryService;
 import com.lakshayghai.customermanagement.service.CustomerService;
+import com.lakshayghai.customermanagement.service.DuplicateService;
+import com.lakshayghai.customermanagement.service.IdempotencyService;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/customers")
 public class CustomerController {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+
     private final CustomerService customerService;
+    private final IdempotencyService idempotencyService;
+    private final DuplicateService duplicateService;
+    private final CustomerHistoryService customerHistoryService;
 
-    public CustomerController(CustomerService customerService) {
+    public CustomerController(CustomerService customerService, IdempotencyService idempotencyService,
+                              DuplicateService duplicateService, CustomerHistoryService customerHistoryService) {
         this.customerService = customerService;
+        this.idempotencyService = idempotencyService;
+        this.duplicateService = duplicateService;
+        this.customerHistoryService = customerHistoryService;
     }
 
     @PostMapping
-    public ResponseEntity<?> createCustomer(@Valid @RequestBody CustomerDTO customerDTO) {
-        return customerService.createCustomerWithPhoneNumbers(customerDTO);
+    public ResponseEntity<?> createCustomer(
+            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody CustomerDTO customerDTO) {
+        return idempotencyService.execute(idempotencyKey, "POST /customers", customerDTO,
+                () -> customerService.createCustomerWithPhoneNumbers(customerDTO));
     }
 
     @GetMapping
-    public ResponseEntity<?> getAllCustomers() {
-        return ResponseEntity.ok(customerService.getAllCustomers());
+    public ResponseEntity<?> getAllCustomers(@RequestParam(required = false) Integer size,
+                                             @RequestParam(required = false) UUID after,
+                                             @RequestParam(required = false) String fields,
+                                             @RequestParam(required = false) String include) {
+        return withFields(fields, include, selection -> size == null && after == null
+                ? customerService.getAllCustomers(selection)
+                : customerService.getCustomerPage(size != null ? size : DEFAULT_PAGE_SIZE, after, selection));
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<?> getCustomerStats() {
+        return customerService.getCustomerStats();
+    }
+
+    @GetMapping("/duplicates")
+    public ResponseEntity<?> getDuplicateClusters(@RequestParam(required = false) Integer size,
+                                                  @RequestParam(required = false) UUID after) {
+        return duplicateService.getDuplicateClusters(size != null ? size : DEFAULT_PAGE_SIZE, after);
+    }
+
+    @GetMapping("/{id}/duplicates")
+    public ResponseEntity<?> getDuplicates(@PathVariable UUID id) {
+        return duplicateService.getDuplicates(id);
+    }
+
+    @GetMapping("/{id}/phone-numbers")
+    public ResponseEntity<?> getPhoneNumbers(@PathVariable UUID id, @RequestParam(required = false) Integer size,
+                                             @RequestParam(required = false) UUID after) {
+        return customerService.getPhoneNumbers(id, size != null ? size : DEFAULT_PAGE_SIZE, after);
+    }
+
+    @PostMapping("/{id}/restore")
+    public ResponseEntity<?> restoreCustomer(@PathVariable UUID id) {
+        return customerService.restoreCustomer(id);
+    }
+
+    @GetMapping("/{id}/history")
+    public ResponseEntity<?> getHistory(@PathVariable UUID id, @RequestParam(required = false) Integer size,
+                                        @RequestParam(required = false) String after) {
+        return customerHistoryService.getHistory(id, size != null ? size : DEFAULT_PAGE_SIZE, after);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getCustomerById(@PathVariable UUID id) {
-        return customerService.getCustomerById(id);
+    public ResponseEntity<?> getCustomerById(@PathVariable UUID id,
+                                             @RequestParam(required = false)
+                                             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime asOf,
+                                             @RequestParam(required = false) String fields,
+                                             @RequestParam(required = false) String include) {
+        if (asOf != null) {
+            return customerHistoryService.getCustomerAsOf(id, asOf);
+        }
+        return withFields(fields, include, selection -> customerService.getCustomerById(id, selection));
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<?> updateCustomer(@PathVariable UUID id, @Valid @RequestBody CustomerDTO customerDTO) {
-        return customerService.updateCustomer(id, customerDTO);
+    public ResponseEntity<?> updateCustomer(
+            @RequestHeader(value = IdempotencyService.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @PathVariable UUID id, @Valid @RequestBody CustomerDTO customerDTO) {
+        return idempotencyService.execute(idempotencyKey, "PUT /customers/" + id, customerDTO,
+                () -> customerService.updateCustomer(id, customerDTO));
+    }
+
+    @PatchMapping(path = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<?> patchCustomer(@PathVariable UUID id, @RequestBody JsonNode patch) {
+        return customerService.patchCustomer(id, patch);
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<?> deleteCustomer(@PathVariable UUID id) {
         return customerService.deleteCustomer(id);
     }
+
+    private static ResponseEntity<?> withFields(String fields, String include,
+                                                Function<CustomerFields, ResponseEntity<?>> read) {
+        CustomerFields selection;
+        try {
+            selection = CustomerFields.parse(fields, include);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("fields", e.getMessage()));
+        }
+        return read.apply(selection);
+    }
 }
@@ -0,0 +1,25 @@
+package com.lakshayghai.customermanagement.duplicate;
+
+/**
+ * Indexed columns customers are grouped by before being compared, see {@link DuplicateKeys}.
+ */
+enum BlockingKey {
+    EMAIL_LOCAL_PART("customer", "email_local_key", "id", true),
+    NAME("customer", "name_key", "id", true),
+    PHONE("phone_number", "e164", "customer_id", false);
+
+    final String table;
+    final String column;
+    final String customerIdColumn;
+    /**
+     * False if sharing the key alone makes customers duplicates.
+     */
+    final boolean comparesProfiles;
+
+    BlockingKey(String table, String column, String customerIdColumn, boolean comparesProfiles) {
+        this.table = table;
+        this.column = column;
+        this.customerIdColumn = customerIdColumn;
+        this.comparesProfiles = comparesProfiles;
+    }
+}
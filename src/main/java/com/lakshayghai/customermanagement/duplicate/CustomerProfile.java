@@ -0,0 +1,88 @@
+package com.lakshayghai.customermanagement.duplicate;
+
+import lombok.Value;
+
+import java.util.UUID;
+
+/**
+ * What duplicate detection compares of a customer. Sharing a phone number makes two customers
+ * duplicates on its own, so phones are matched through their blocking key and not kept here.
+ */
+@Value
+public class CustomerProfile {
+
+    /**
+     * Jaro-Winkler similarity from which two email local parts count as the same person's, given
+     * the same name: tolerates a digit or two and transposed letters, e.g. {@code jsmith1} and
+     * {@code jsmith}.
+     */
+    static final double LOCAL_PART_SIMILARITY = 0.9;
+
+    UUID id;
+    String emailLocalKey;
+    String emailDomain;
+    String nameKey;
+
+    public static CustomerProfile of(UUID id, String firstName, String lastName, String emailAddress) {
+        return new CustomerProfile(id, DuplicateKeys.emailLocalKey(emailAddress), DuplicateKeys.emailDomain(emailAddress),
+                DuplicateKeys.nameKey(firstName, lastName));
+    }
+
+    /**
+     * True for the same email up to case, dots and plus-addressing, or for names that sound the
+     * same with similar email local parts.
+     */
+    public boolean isDuplicateOf(CustomerProfile other) {
+        if (emailLocalKey.equals(other.emailLocalKey) && emailDomain.equals(other.emailDomain)) {
+            return true;
+        }
+        return nameKey.equals(other.nameKey)
+                && jaroWinkler(emailLocalKey, other.emailLocalKey) >= LOCAL_PART_SIMILARITY;
+    }
+
+    static double jaroWinkler(String a, String b) {
+        if (a.equals(b)) {
+            return 1;
+        }
+        int window = Math.max(0, Math.max(a.length(), b.length()) / 2 - 1);
+        boolean[] aMatched = new boolean[a.length()];
+        boolean[] bMatched = new boolean[b.length()];
+        int matches = 0;
+        for (int i = 0; i < a.length(); i++) {
+            for (int j = Math.max(0, i - window), end = Math.min(b.length(), i + window + 1); j < end; j++) {
+                if (!bMatched[j] && a.charAt(i) == b.charAt(j)) {
+                    aMatched[i] = true;
+                    bMatched[j] = true;
+                    matches++;
+                    break;
+                }
+            }
+        }
+        if (matches == 0) {
+            return 0;
+        }
+
+        int transpositions = 0;
+        for (int i = 0, j = 0; i < a.length(); i++) {
+            if (!aMatched[i]) {
+                continue;
+            }
+            while (!bMatched[j]) {
+                j++;
+            }
+            if (a.charAt(i) != b.charAt(j)) {
+                transpositions++;
+            }
+            j++;
+        }
+        double m = matches;
+        double jaro = (m / a.length() + m / b.length() + (m - transpositions / 2.0) / m) / 3;
+
+        int prefix = 0;
+        int maxPrefix = Math.min(4, Math.min(a.length(), b.length()));
+        while (prefix < maxPrefix && a.charAt(prefix) == b.charAt(prefix)) {
+            prefix++;
+        }
+        return jaro + prefix * 0.1 * (1 - jaro);
+    }
+}
@@ -0,0 +1,124 @@
+package com.lakshayghai.customermanagement.duplicate;
+
+import com.lakshayghai.customermanagement.entity.Customer;
+import com.lakshayghai.customermanagement.entity.PhoneNumber;
+import com.lakshayghai.customermanagement.util.UuidOrder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Incremental duplicate check of a created or updated customer against the customers sharing one
+ * of its blocking keys. Runs after the write commits, off the request thread; a match joins the
+ * customer to the matched customers' clusters, merging them if there are several. Candidates are
+ * bounded as in the scan: {@code max-block-size} per name or email key, and numbers shared by more
+ * than {@code max-phone-block-size} customers are not taken as a match.
+ * <p>
+ * Checks are queued up to {@code check-queue-capacity}; beyond it, and for concurrent checks that
+ * race on the same cluster, the next {@link DuplicateScanJob} run reconciles the clusters.
+ */
+@Component
+@Slf4j
+public class DuplicateDetector implements DisposableBean {
+
+    private final DuplicateStore duplicateStore;
+    private final boolean enabled;
+    private final int candidateLimit;
+    private final int maxPhoneBlockSize;
+    private final ThreadPoolExecutor executor;
+    private final Counter detected;
+    private final Counter dropped;
+
+    public DuplicateDetector(DuplicateStore duplicateStore, MeterRegistry meterRegistry,
+                             @Value("${customer.duplicates.enabled:true}") boolean enabled,
+                             @Value("${customer.duplicates.max-block-size:1000}") int candidateLimit,
+                             @Value("${customer.duplicates.max-phone-block-size:3}") int maxPhoneBlockSize,
+                             @Value("${customer.duplicates.check-queue-capacity:10000}") int queueCapacity) {
+        this.duplicateStore = duplicateStore;
+        this.enabled = enabled;
+        this.candidateLimit = candidateLimit;
+        this.maxPhoneBlockSize = maxPhoneBlockSize;
+        this.detected = Counter.builder("customer.duplicates.detected").register(meterRegistry);
+        this.dropped = Counter.builder("customer.duplicates.checks.dropped").register(meterRegistry);
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("duplicate-check").daemon().factory(), (task, pool) -> dropped.increment());
+    }
+
+    /**
+     * Checks {@code customer} once the current transaction commits. Its names, email and phone
+     * numbers are read now, so it must hold the values being committed.
+     */
+    public void checkAfterCommit(Customer customer) {
+        if (!enabled) {
+            return;
+        }
+        CustomerProfile profile = CustomerProfile.of(customer.getId(), customer.getFirstName(), customer.getLastName(),
+                customer.getEmailAddress());
+        List<String> phones = customer.getPhoneNumbers().stream()
+                .map(PhoneNumber::getE164)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                executor.execute(() -> {
+                    try {
+                        check(profile, phones);
+                    } catch (RuntimeException e) {
+                        log.warn("Duplicate check of customer {} failed", profile.getId(), e);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Takes deleted customer {@code customerId} out of its cluster, in the current transaction.
+     */
+    public void forget(UUID customerId) {
+        duplicateStore.remove(customerId);
+    }
+
+    void check(CustomerProfile profile, List<String> phones) {
+        Set<UUID> members = new HashSet<>(duplicateStore.findSharingPhones(profile.getId(), phones, maxPhoneBlockSize));
+        for (CustomerProfile candidate : duplicateStore.findCandidates(profile, candidateLimit)) {
+            if (profile.isDuplicateOf(candidate)) {
+                members.add(candidate.getId());
+            }
+        }
+        if (members.isEmpty()) {
+            return;
+        }
+        members.add(profile.getId());
+
+        // Cluster ids are the lowest member id, so the merged cluster keeps the lowest of all
+        Map<UUID, UUID> existing = duplicateStore.findClusterIds(members);
+        Set<UUID> absorbed = new HashSet<>(existing.values());
+        UUID clusterId = Stream.concat(members.stream(), absorbed.stream()).min(UuidOrder.UNSIGNED).orElseThrow();
+        absorbed.remove(clusterId);
+        duplicateStore.merge(clusterId, members, absorbed);
+        detected.increment();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
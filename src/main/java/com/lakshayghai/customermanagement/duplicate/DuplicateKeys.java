@@ -0,0 +1,54 @@
+package com.lakshayghai.customermanagement.duplicate;
+
+import com.lakshayghai.customermanagement.entity.Customer;
+import org.apache.commons.codec.language.DoubleMetaphone;
+
+import java.util.Locale;
+
+/**
+ * Blocking keys for duplicate detection. Only customers sharing a key are compared, which keeps
+ * detection close to linear in the number of customers instead of quadratic:
+ * <ul>
+ *     <li>email local part, lower-cased, without {@code +tag} and dots</li>
+ *     <li>phone number in E.164 format, set by {@code PhoneNumberValidator}</li>
+ *     <li>Double Metaphone code of the last name followed by the lower-cased first name</li>
+ * </ul>
+ */
+public final class DuplicateKeys {
+
+    private static final DoubleMetaphone DOUBLE_METAPHONE = new DoubleMetaphone();
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private DuplicateKeys() {
+    }
+
+    public static void assign(Customer customer) {
+        customer.setEmailLocalKey(emailLocalKey(customer.getEmailAddress()));
+        customer.setNameKey(nameKey(customer.getFirstName(), customer.getLastName()));
+    }
+
+    public static String emailLocalKey(String emailAddress) {
+        int at = emailAddress.lastIndexOf('@');
+        String local = (at < 0 ? emailAddress : emailAddress.substring(0, at)).toLowerCase(Locale.ROOT);
+        int tag = local.indexOf('+');
+        if (tag > 0) {
+            local = local.substring(0, tag);
+        }
+        return local.replace(".", "");
+    }
+
+    public static String emailDomain(String emailAddress) {
+        String domain = emailAddress.substring(emailAddress.lastIndexOf('@') + 1).toLowerCase(Locale.ROOT);
+        return domain.equals("googlemail.com") ? "gmail.com" : domain;
+    }
+
+    public static String nameKey(String firstName, String lastName) {
+        String code = DOUBLE_METAPHONE.doubleMetaphone(lastName);
+        if (code == null || code.isEmpty()) {
+            // Nothing to encode in non-Latin names, compare them as written
+            code = lastName.trim().toLowerCase(Locale.ROOT);
+        }
+        String key = code + ' ' + firstName.trim().toLowerCase(Locale.ROOT);
+        return key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key;
+    }
+}
@@ -0,0 +1,40 @@
+package com.lakshayghai.customermanagement.duplicate;
+
+import org.springframework.boot.actuate.endpoint.Access;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code POST /actuator/duplicatescan} starts a {@link DuplicateScanJob} run in the background,
+ * {@code GET} reports whether one is running and how the last one went. Disabled unless granted
+ * with {@code management.endpoint.duplicatescan.access=unrestricted}.
+ */
+@Component
+@Endpoint(id = "duplicatescan", defaultAccess = Access.NONE)
+public class DuplicateScanEndpoint {
+
+    private final DuplicateScanJob duplicateScanJob;
+
+    public DuplicateScanEndpoint(DuplicateScanJob duplicateScanJob) {
+        this.duplicateScanJob = duplicateScanJob;
+    }
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", duplicateScanJob.isRunning());
+        status.put("lastRun", duplicateScanJob.lastRun());
+        return status;
+    }
+
+    @WriteOperation
+    public Map<String, Object> start() {
+        duplicateScanJob.startScan();
+        return status();
+    }
+}
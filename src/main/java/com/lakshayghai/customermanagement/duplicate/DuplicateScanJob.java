@@ -0,0 +1,277 @@
+package com.lakshayghai.customermanagement.duplicate;
+
+import com.lakshayghai.customermanagement.sharding.ShardRouter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Finds every cluster of duplicate customers and replaces the stored clusters with them.
+ * <p>
+ * First fills in blocking keys missing from older rows. Then, per blocking key, walks the key's
+ * index in chunks across all shards at once: a chunk ends below the smallest last key any shard
+ * returned, so every group of customers sharing a key is seen whole, even when it spans shards.
+ * Groups are compared on a pool of {@code scan-threads} while the next chunk is read, and matches
+ * are joined into clusters. Groups larger than {@code max-block-size} (e.g. a very common name) are
+ * skipped and counted, as comparing them would be quadratic. A shared phone number clusters its
+ * customers without comparing them, so its groups are capped far lower, at
+ * {@code max-phone-block-size}: a number shared more widely is a switchboard or a family line, and
+ * taking it as a match would chain unrelated customers into one cluster.
+ */
+@Component
+@Slf4j
+public class DuplicateScanJob {
+
+    private final DuplicateStore duplicateStore;
+    private final ShardRouter shardRouter;
+    private final int chunkSize;
+    private final int maxBlockSize;
+    private final int maxPhoneBlockSize;
+    private final int threads;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile Map<String, Object> lastRun = Map.of();
+
+    public DuplicateScanJob(DuplicateStore duplicateStore, ShardRouter shardRouter,
+                            @Value("${customer.duplicates.scan-chunk-size:10000}") int chunkSize,
+                            @Value("${customer.duplicates.max-block-size:1000}") int maxBlockSize,
+                            @Value("${customer.duplicates.max-phone-block-size:3}") int maxPhoneBlockSize,
+                            @Value("${customer.duplicates.scan-threads:0}") int threads) {
+        if (chunkSize <= maxBlockSize) {
+            throw new IllegalArgumentException("customer.duplicates.scan-chunk-size must exceed max-block-size");
+        }
+        if (maxPhoneBlockSize < 2 || maxPhoneBlockSize > maxBlockSize) {
+            throw new IllegalArgumentException("customer.duplicates.max-phone-block-size must be between 2 and max-block-size");
+        }
+        this.duplicateStore = duplicateStore;
+        this.shardRouter = shardRouter;
+        this.chunkSize = chunkSize;
+        this.maxBlockSize = maxBlockSize;
+        this.maxPhoneBlockSize = maxPhoneBlockSize;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    @Scheduled(cron = "${customer.duplicates.scan-cron:-}")
+    public void scheduledScan() {
+        scan();
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * Summary of the last completed scan; empty before the first one.
+     */
+    public Map<String, Object> lastRun() {
+        return lastRun;
+    }
+
+    /**
+     * Runs a scan on a background thread.
+     *
+     * @return false if one is already running
+     */
+    public boolean startScan() {
+        if (running.get()) {
+            return false;
+        }
+        Thread.ofPlatform().name("duplicate-scan").daemon().start(this::scan);
+        return true;
+    }
+
+    /**
+     * Runs a scan on the calling thread, unless one is already running.
+     */
+    public void scan() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            lastRun = runScan();
+        } catch (RuntimeException e) {
+            log.error("Duplicate scan failed", e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private Map<String, Object> runScan() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        long start = System.nanoTime();
+
+        long backfilled = shardRouter.scatter(shard -> backfill()).stream().mapToLong(Long::longValue).sum();
+
+        UnionFind clusters = new UnionFind();
+        AtomicLong blocks = new AtomicLong();
+        AtomicLong oversized = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (BlockingKey key : BlockingKey.values()) {
+                scanKey(key, executor, clusters, blocks, oversized);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Map<UUID, UUID> clusterIds = clusters.clusters();
+        duplicateStore.saveClusters(clusterIds, startedAt);
+        long removed = duplicateStore.deleteDetectedBefore(startedAt);
+        long clusterCount = new HashSet<>(clusterIds.values()).size();
+
+        Duration duration = Duration.ofNanos(System.nanoTime() - start);
+        log.info("Duplicate scan found {} duplicates in {} clusters in {} ms ({} blocks compared, {} oversized blocks skipped, "
+                        + "{} rows backfilled, {} stale entries removed)", clusterIds.size(), clusterCount,
+                duration.toMillis(), blocks.get(), oversized.get(), backfilled, removed);
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("startedAt", startedAt);
+        summary.put("duration", duration);
+        summary.put("duplicates", clusterIds.size());
+        summary.put("clusters", clusterCount);
+        summary.put("blocksCompared", blocks.get());
+        summary.put("oversizedBlocksSkipped", oversized.get());
+        summary.put("rowsBackfilled", backfilled);
+        return summary;
+    }
+
+    /**
+     * Runs on one shard.
+     */
+    private long backfill() {
+        long rows = 0;
+        List<UUID> batch = duplicateStore.backfillCustomerKeys(null, chunkSize);
+        while (!batch.isEmpty()) {
+            rows += batch.size();
+            batch = duplicateStore.backfillCustomerKeys(batch.get(batch.size() - 1), chunkSize);
+        }
+        batch = duplicateStore.backfillPhoneKeys(null, chunkSize);
+        while (!batch.isEmpty()) {
+            rows += batch.size();
+            batch = duplicateStore.backfillPhoneKeys(batch.get(batch.size() - 1), chunkSize);
+        }
+        return rows;
+    }
+
+    private void scanKey(BlockingKey key, ExecutorService executor, UnionFind clusters, AtomicLong blocks,
+                         AtomicLong oversized) {
+        // Bounds the chunks held in memory while the pool catches up
+        Semaphore inFlight = new Semaphore(threads * 2);
+        List<Future<?>> futures = new ArrayList<>();
+        String from = "";
+        boolean inclusive = true;
+        while (true) {
+            String chunkFrom = from;
+            boolean chunkInclusive = inclusive;
+            List<List<DuplicateStore.KeyedId>> runs = shardRouter.scatter(shard ->
+                    duplicateStore.readKeys(key, chunkFrom, chunkInclusive, chunkSize));
+
+            // Keys below the smallest last key of a full run have been read completely on every shard
+            String bound = null;
+            for (List<DuplicateStore.KeyedId> run : runs) {
+                if (run.size() == chunkSize) {
+                    String last = run.get(run.size() - 1).getKey();
+                    if (bound == null || last.compareTo(bound) < 0) {
+                        bound = last;
+                    }
+                }
+            }
+
+            Map<String, Set<UUID>> chunk = new LinkedHashMap<>();
+            for (List<DuplicateStore.KeyedId> run : runs) {
+                for (DuplicateStore.KeyedId row : run) {
+                    if (bound == null || row.getKey().compareTo(bound) < 0) {
+                        chunk.computeIfAbsent(row.getKey(), k -> new LinkedHashSet<>()).add(row.getCustomerId());
+                    }
+                }
+            }
+            int blockLimit = key.comparesProfiles ? maxBlockSize : maxPhoneBlockSize;
+            List<Set<UUID>> chunkBlocks = new ArrayList<>();
+            for (Set<UUID> block : chunk.values()) {
+                if (block.size() > blockLimit) {
+                    oversized.incrementAndGet();
+                } else if (block.size() > 1) {
+                    chunkBlocks.add(block);
+                }
+            }
+            if (!chunkBlocks.isEmpty()) {
+                blocks.addAndGet(chunkBlocks.size());
+                inFlight.acquireUninterruptibly();
+                futures.add(executor.submit(() -> {
+                    try {
+                        compare(key, chunkBlocks, clusters);
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            }
+
+            if (bound == null) {
+                break;
+            }
+            if (bound.equals(chunkFrom) && chunkInclusive) {
+                // A whole run shares one key: more customers than a block may hold, move past it
+                oversized.incrementAndGet();
+                inclusive = false;
+            } else {
+                from = bound;
+                inclusive = true;
+            }
+        }
+        awaitAll(futures);
+    }
+
+    private void compare(BlockingKey key, List<Set<UUID>> blocks, UnionFind clusters) {
+        if (!key.comparesProfiles) {
+            blocks.forEach(clusters::unionAll);
+            return;
+        }
+        Set<UUID> ids = new HashSet<>();
+        blocks.forEach(ids::addAll);
+        Map<UUID, CustomerProfile> profiles = duplicateStore.loadProfiles(ids);
+        for (Set<UUID> block : blocks) {
+            List<CustomerProfile> members = block.stream().map(profiles::get).filter(Objects::nonNull).toList();
+            for (int i = 0; i < members.size(); i++) {
+                for (int j = i + 1; j < members.size(); j++) {
+                    if (members.get(i).isDuplicateOf(members.get(j))) {
+                        clusters.union(members.get(i).getId(), members.get(j).getId());
+                    }
+                }
+            }
+        }
+    }
+
+    private static void awaitAll(Collection<Future<?>> futures) {
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.lakshayghai.customermanagement.duplicate;
+
+import com.lakshayghai.customermanagement.sharding.ShardRouter;
+import com.lakshayghai.customermanagement.util.ValidationUtil;
+import lombok.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Blocking key and cluster queries. Customers in one cluster may live on different shards, so
+ * lookups go to every shard, and cluster rows are written next to their customer.
+ */
+@Component
+public class DuplicateStore {
+
+    private static final UUID MIN_UUID = new UUID(0, 0);
+    private static final RowMapper<CustomerProfile> PROFILE_MAPPER = (rs, row) -> CustomerProfile.of(
+            rs.getObject("id", UUID.class), rs.getString("first_name"), rs.getString("last_name"),
+            rs.getString("email_address"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+
+    public DuplicateStore(JdbcTemplate jdbcTemplate, ShardRouter shardRouter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+    }
+
+    /**
+     * Reads the next {@code limit} keys of live customers on the current shard, in key order.
+     * Soft-deleted customers are left out, so they cannot bridge live ones into one cluster.
+     */
+    List<KeyedId> readKeys(BlockingKey key, String from, boolean inclusive, int limit) {
+        String live = "customer".equals(key.table)
+                ? "customer k WHERE k.deleted_at IS NULL AND "
+                : key.table + " k JOIN customer c ON c.id = k." + key.customerIdColumn + " AND c.deleted_at IS NULL WHERE ";
+        return jdbcTemplate.query("SELECT k." + key.column + ", k." + key.customerIdColumn + " FROM " + live
+                        + "k." + key.column + (inclusive ? " >= ?" : " > ?") + " ORDER BY k." + key.column + " LIMIT ?",
+                (rs, row) -> new KeyedId(rs.getString(1), rs.getObject(2, UUID.class)), from, limit);
+    }
+
+    Map<UUID, CustomerProfile> loadProfiles(Collection<UUID> ids) {
+        String[] array = uuids(ids);
+        Map<UUID, CustomerProfile> profiles = new HashMap<>(ids.size());
+        shardRouter.scatter(shard -> jdbcTemplate.query(
+                        "SELECT id, first_name, last_name, email_address FROM customer WHERE id = ANY (?::uuid[]) AND deleted_at IS NULL",
+                        PROFILE_MAPPER, (Object) array))
+                .forEach(shardProfiles -> shardProfiles.forEach(profile -> profiles.put(profile.getId(), profile)));
+        return profiles;
+    }
+
+    /**
+     * Customers sharing the email local part or name key of {@code profile}, at most {@code limit}
+     * per shard.
+     */
+    List<CustomerProfile> findCandidates(CustomerProfile profile, int limit) {
+        return shardRouter.scatter(shard -> jdbcTemplate.query(
+                        "SELECT id, first_name, last_name, email_address FROM customer "
+                                + "WHERE (email_local_key = ? OR name_key = ?) AND id <> ? AND deleted_at IS NULL LIMIT ?",
+                        PROFILE_MAPPER, profile.getEmailLocalKey(), profile.getNameKey(), profile.getId(), limit))
+                .stream()
+                .flatMap(List::stream)
+                .toList();
+    }
+
+    /**
+     * Customers other than {@code customerId} sharing one of {@code e164s}. Numbers shared by more
+     * than {@code maxBlockSize} customers in all, such as a switchboard, are left out; at most that
+     * many rows per number are read from each shard.
+     */
+    Set<UUID> findSharingPhones(UUID customerId, Collection<String> e164s, int maxBlockSize) {
+        if (e164s.isEmpty()) {
+            return Set.of();
+        }
+        String[] array = e164s.toArray(String[]::new);
+        Map<String, Set<UUID>> sharing = new HashMap<>();
+        shardRouter.scatter(shard -> jdbcTemplate.query(
+                        "SELECT e164, customer_id FROM (SELECT e164, customer_id, row_number() OVER (PARTITION BY e164) AS n "
+                                + "FROM (SELECT DISTINCT p.e164, p.customer_id FROM phone_number p "
+                                + "JOIN customer c ON c.id = p.customer_id AND c.deleted_at IS NULL "
+                                + "WHERE p.e164 = ANY (?) AND p.customer_id <> ?) shared) numbered WHERE n <= ?",
+                        (rs, row) -> new KeyedId(rs.getString(1), rs.getObject(2, UUID.class)), array, customerId, maxBlockSize))
+                .forEach(rows -> rows.forEach(row ->
+                        sharing.computeIfAbsent(row.getKey(), e164 -> new HashSet<>()).add(row.getCustomerId())));
+
+        Set<UUID> ids = new HashSet<>();
+        for (Set<UUID> others : sharing.values()) {
+            // The block also holds customerId itself
+            if (others.size() < maxBlockSize) {
+                ids.addAll(others);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * @return the cluster of each of {@code customerIds} that has one
+     */
+    public Map<UUID, UUID> findClusterIds(Collection<UUID> customerIds) {
+        String[] array = uuids(customerIds);
+        Map<UUID, UUID> clusterIds = new HashMap<>();
+        shardRouter.scatter(shard -> jdbcTemplate.query(
+                        "SELECT customer_id, cluster_id FROM customer_duplicate WHERE customer_id = ANY (?::uuid[])",
+                        (rs, row) -> new UUID[]{rs.getObject(1, UUID.class), rs.getObject(2, UUID.class)}, (Object) array))
+                .forEach(rows -> rows.forEach(row -> clusterIds.put(row[0], row[1])));
+        return clusterIds;
+    }
+
+    /**
+     * @return the ids of the first {@code limit} clusters after {@code after} on each shard,
+     * in id order
+     */
+    public List<List<UUID>> findClusterIdsAfter(UUID after, int limit) {
+        return shardRouter.scatter(shard -> jdbcTemplate.queryForList(
+                "SELECT DISTINCT cluster_id FROM customer_duplicate WHERE cluster_id > ? ORDER BY cluster_id LIMIT ?",
+                UUID.class, after != null ? after : MIN_UUID, limit));
+    }
+
+    public Map<UUID, List<UUID>> findMembers(Collection<UUID> clusterIds) {
+        String[] array = uuids(clusterIds);
+        Map<UUID, List<UUID>> members = new HashMap<>();
+        shardRouter.scatter(shard -> jdbcTemplate.query(
+                        "SELECT cluster_id, customer_id FROM customer_duplicate WHERE cluster_id = ANY (?::uuid[])",
+                        (rs, row) -> new UUID[]{rs.getObject(1, UUID.class), rs.getObject(2, UUID.class)}, (Object) array))
+                .forEach(rows -> rows.forEach(row -> members.computeIfAbsent(row[0], id -> new ArrayList<>()).add(row[1])));
+        return members;
+    }
+
+    /**
+     * Puts {@code members} into cluster {@code clusterId}, together with every customer of the
+     * {@code absorbed} clusters.
+     */
+    void merge(UUID clusterId, Collection<UUID> members, Collection<UUID> absorbed) {
+        String[] memberArray = uuids(members);
+        String[] absorbedArray = uuids(absorbed);
+        shardRouter.scatter(shard -> {
+            if (absorbedArray.length > 0) {
+                jdbcTemplate.update("UPDATE customer_duplicate SET cluster_id = ? WHERE cluster_id = ANY (?::uuid[])",
+                        clusterId, absorbedArray);
+            }
+            // Only the members living on this shard are found in customer
+            return jdbcTemplate.update("INSERT INTO customer_duplicate (customer_id, cluster_id) "
+                    + "SELECT id, ? FROM customer WHERE id = ANY (?::uuid[]) AND deleted_at IS NULL "
+                    + "ON CONFLICT (customer_id) DO UPDATE SET cluster_id = EXCLUDED.cluster_id, detected_at = EXCLUDED.detected_at",
+                    clusterId, memberArray);
+        });
+    }
+
+    /**
+     * Stores the cluster of each customer in {@code clusterIds}, as detected at {@code detectedAt}.
+     */
+    void saveClusters(Map<UUID, UUID> clusterIds, LocalDateTime detectedAt) {
+        List<UUID> customerIds = new ArrayList<>(clusterIds.keySet());
+        String[] customerArray = uuids(customerIds);
+        String[] clusterArray = uuids(customerIds.stream().map(clusterIds::get).toList());
+        shardRouter.scatter(shard -> jdbcTemplate.update("INSERT INTO customer_duplicate (customer_id, cluster_id, detected_at) "
+                + "SELECT d.customer_id, d.cluster_id, ? FROM unnest(?::uuid[], ?::uuid[]) AS d (customer_id, cluster_id) "
+                + "JOIN customer c ON c.id = d.customer_id AND c.deleted_at IS NULL "
+                + "ON CONFLICT (customer_id) DO UPDATE SET cluster_id = EXCLUDED.cluster_id, detected_at = EXCLUDED.detected_at",
+                detectedAt, customerArray, clusterArray));
+    }
+
+    /**
+     * Runs on the current shard, next to the customer.
+     */
+    void remove(UUID customerId) {
+        jdbcTemplate.update("DELETE FROM customer_duplicate WHERE customer_id = ?", customerId);
+    }
+
+    long deleteDetectedBefore(LocalDateTime detectedAt) {
+        return shardRouter.scatter(shard -> jdbcTemplate.update(
+                        "DELETE FROM customer_duplicate WHERE detected_at < ?", detectedAt))
+                .stream().mapToLong(Integer::longValue).sum();
+    }
+
+    /**
+     * Fills in the blocking keys of up to {@code limit} customers on the current shard that have
+     * none yet, i.e. were written before duplicate detection or bypassed the application.
+     *
+     * @return the ids examined, in order; empty once there are none after {@code after}
+     */
+    List<UUID> backfillCustomerKeys(UUID after, int limit) {
+        List<Object[]> updates = new ArrayList<>(limit);
+        List<UUID> ids = new ArrayList<>(limit);
+        jdbcTemplate.query("SELECT id, first_name, last_name, email_address FROM customer "
+                + "WHERE id > ? AND (email_local_key IS NULL OR name_key IS NULL) ORDER BY id LIMIT ?", rs -> {
+            UUID id = rs.getObject(1, UUID.class);
+            ids.add(id);
+            updates.add(new Object[]{DuplicateKeys.emailLocalKey(rs.getString(4)),
+                    DuplicateKeys.nameKey(rs.getString(2), rs.getString(3)), id});
+        }, after != null ? after : MIN_UUID, limit);
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE customer SET email_local_key = ?, name_key = ? WHERE id = ?", updates);
+        }
+        return ids;
+    }
+
+    /**
+     * Phone number counterpart of {@link #backfillCustomerKeys}; invalid numbers are left without
+     * a key.
+     */
+    List<UUID> backfillPhoneKeys(UUID after, int limit) {
+        List<Object[]> updates = new ArrayList<>(limit);
+        List<UUID> ids = new ArrayList<>(limit);
+        jdbcTemplate.query("SELECT id, phone_number, country_code FROM phone_number "
+                + "WHERE id > ? AND e164 IS NULL ORDER BY id LIMIT ?", rs -> {
+            UUID id = rs.getObject(1, UUID.class);
+            ids.add(id);
+            String e164 = ValidationUtil.toE164(rs.getString(2), rs.getString(3));
+            if (e164 != null) {
+                updates.add(new Object[]{e164, id});
+            }
+        }, after != null ? after : MIN_UUID, limit);
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE phone_number SET e164 = ? WHERE id = ?", updates);
+        }
+        return ids;
+    }
+
+    /**
+     * pgjdbc binds {@code String[]} but not {@code UUID[]}; the statements cast to {@code uuid[]}.
+     */
+    private static String[] uuids(Collection<UUID> ids) {
+        return ids.stream().map(UUID::toString).toArray(String[]::new);
+    }
+
+    @Value
+    static class KeyedId {
+        String key;
+        UUID customerId;
+    }
+}
@@ -0,0 +1,69 @@
+package com.lakshayghai.customermanagement.duplicate;
+
+import com.lakshayghai.customermanagement.util.UuidOrder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Disjoint sets of customer ids, holding only ids that were ever joined. Turns matching pairs into
+ * clusters: customers matched to a common third customer end up in the same set.
+ */
+class UnionFind {
+
+    private final Map<UUID, UUID> parent = new HashMap<>();
+
+    synchronized void union(UUID a, UUID b) {
+        UUID rootA = find(a);
+        UUID rootB = find(b);
+        if (!rootA.equals(rootB)) {
+            parent.put(rootB, rootA);
+        }
+    }
+
+    synchronized void unionAll(Collection<UUID> ids) {
+        UUID first = null;
+        for (UUID id : ids) {
+            if (first == null) {
+                first = id;
+            } else {
+                union(first, id);
+            }
+        }
+    }
+
+    /**
+     * @return the cluster id of every joined customer: the lowest id in its set
+     */
+    synchronized Map<UUID, UUID> clusters() {
+        Map<UUID, List<UUID>> members = new HashMap<>();
+        for (UUID id : parent.keySet()) {
+            members.computeIfAbsent(find(id), root -> new ArrayList<>()).add(id);
+        }
+        Map<UUID, UUID> clusterIds = new HashMap<>(parent.size());
+        for (List<UUID> set : members.values()) {
+            UUID clusterId = set.stream().min(UuidOrder.UNSIGNED).orElseThrow();
+            set.forEach(id -> clusterIds.put(id, clusterId));
+        }
+        return clusterIds;
+    }
+
+    private UUID find(UUID id) {
+        UUID root = parent.computeIfAbsent(id, self -> self);
+        while (!root.equals(parent.get(root))) {
+            root = parent.get(root);
+        }
+        // Path compression
+        UUID current = id;
+        while (!current.equals(root)) {
+            UUID next = parent.get(current);
+            parent.put(current, root);
+            current = next;
+        }
+        return root;
+    }
+}
@@ -1,15 +1,20 @@
 package com.lakshayghai.customermanagement.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.lakshayghai.customermanagement.sharding.GeneratedCustomerId;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.SQLRestriction;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -17,10 +22,12 @@ import java.util.UUID;
 @Data
 @Entity
 @Table(name = "customer")
+@DynamicUpdate
+@SQLRestriction("deleted_at IS NULL")
 @EqualsAndHashCode(callSuper = false)
 public class Customer extends AuditableEntity {
     @Id
-    @GeneratedValue
+    @GeneratedCustomerId
     private UUID id;
 
     @Column(nullable = false)
@@ -31,9 +38,31 @@ public class Customer extends AuditableEntity {
     @Column(nullable = false)
     private String lastName;
 
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     private String emailAddress;
 
+    /**
+     * Blocking keys for duplicate detection, kept in step with the names and email by
+     * {@link com.lakshayghai.customermanagement.duplicate.DuplicateKeys#assign}.
+     */
+    @JsonIgnore
+    private String emailLocalKey;
+
+    @JsonIgnore
+    private String nameKey;
+
+    /**
+     * Set on delete; the row is archived and removed later by
+     * {@link com.lakshayghai.customermanagement.purge.CustomerPurgeJob}. Deleted customers are
+     * invisible to every entity query.
+     */
+    @JsonIgnore
+    private LocalDateTime deletedAt;
+
+    /**
+     * Loaded only by the {@code ...WithPhoneNumbers} queries, and left out of the JSON otherwise.
+     */
     @OneToMany(mappedBy = "customer", cascade = CascadeType.ALL, orphanRemoval = true)
+    @JsonInclude(value = JsonInclude.Include.CUSTOM, valueFilter = NotLoaded.class)
     private List<PhoneNumber> phoneNumbers = new ArrayList<>();
 }
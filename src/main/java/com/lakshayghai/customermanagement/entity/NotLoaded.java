@@ -0,0 +1,20 @@
+package com.lakshayghai.customermanagement.entity;
+
+import org.hibernate.Hibernate;
+
+/**
+ * Jackson value filter that leaves out a lazy association the query did not load, rather than
+ * loading it outside of its session.
+ */
+public class NotLoaded {
+
+    @Override
+    public boolean equals(Object value) {
+        return !Hibernate.isInitialized(value);
+    }
+
+    @Override
+    public int hashCode() {
+        return 0;
+    }
+}
@@ -33,6 +33,12 @@ public class PhoneNumber extends AuditableEntity {
     @Column(nullable = false)
     private String phoneNumber;
 
+    /**
+     * Blocking key for duplicate detection.
+     */
+    @JsonIgnore
+    private String e164;
+
     @Column(nullable = false)
     private String phoneType;
 
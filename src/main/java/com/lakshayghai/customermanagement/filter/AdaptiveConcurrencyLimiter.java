@@ -0,0 +1,107 @@
+package com.lakshayghai.customermanagement.filter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AIMD concurrency limit driven by the database time of requests, see {@link DatabaseTime}.
+ * <p>
+ * Samples are collected over a window and the limit changes at most once per window. It backs
+ * off multiplicatively when even the fastest request of the window was over the latency threshold,
+ * so a few slow queries do not shrink it, or when a tenth of the requests failed. Otherwise it
+ * grows by one if the limit was actually being used.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final int DROP_RATIO = 10;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final long windowNanos;
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final AtomicLong windowStart;
+    private final LongAccumulator windowMinLatency = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator windowMaxInFlight = new LongAccumulator(Math::max, 0);
+    private final LongAdder windowSamples = new LongAdder();
+    private final LongAdder windowDrops = new LongAdder();
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long latencyThresholdNanos,
+                                      long windowNanos) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.windowNanos = windowNanos;
+        this.limit = new AtomicInteger(Math.max(minLimit, Math.min(initialLimit, maxLimit)));
+        this.windowStart = new AtomicLong(System.nanoTime());
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.get()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases a permit taken by {@link #tryAcquire()} and feeds the request outcome into the
+     * current window.
+     *
+     * @param dropped true if the request failed in a way that signals overload
+     */
+    public void release(long latencyNanos, boolean dropped) {
+        release(latencyNanos, dropped, System.nanoTime());
+    }
+
+    void release(long latencyNanos, boolean dropped, long now) {
+        int current = inFlight.getAndDecrement();
+        windowMaxInFlight.accumulate(current);
+        windowSamples.increment();
+        if (dropped) {
+            windowDrops.increment();
+        } else {
+            windowMinLatency.accumulate(latencyNanos);
+        }
+
+        long start = windowStart.get();
+        if (now - start >= windowNanos && windowStart.compareAndSet(start, now)) {
+            closeWindow();
+        }
+    }
+
+    /**
+     * Runs on the one thread that ended the window; samples recorded meanwhile may land in either.
+     */
+    private void closeWindow() {
+        long samples = windowSamples.sumThenReset();
+        long drops = windowDrops.sumThenReset();
+        long minLatency = windowMinLatency.getThenReset();
+        long maxInFlight = windowMaxInFlight.getThenReset();
+        if (samples == 0) {
+            return;
+        }
+        if (drops * DROP_RATIO >= samples || minLatency > latencyThresholdNanos) {
+            limit.updateAndGet(l -> Math.max(minLimit, (int) (l * BACKOFF_RATIO)));
+        } else if (maxInFlight * 2 >= limit.get()) {
+            limit.updateAndGet(l -> Math.min(maxLimit, l + 1));
+        }
+    }
+
+    public int getLimit() {
+        return limit.get();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,97 @@
+package com.lakshayghai.customermanagement.filter;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Time the current request spends holding database connections, the latency signal of
+ * {@link AdaptiveConcurrencyLimiter}. Wraps the application's {@code dataSource} and times each
+ * connection from checkout to close. The accumulator is inherited by threads the request starts,
+ * so parallel shard queries count too.
+ */
+@Component
+@ConditionalOnProperty(name = "customer.rate-limit.enabled", havingValue = "true")
+public class DatabaseTime implements BeanPostProcessor {
+
+    private static final InheritableThreadLocal<LongAdder> CURRENT = new InheritableThreadLocal<>();
+
+    /**
+     * Starts accumulating for the calling thread.
+     *
+     * @return the nanoseconds spent holding connections until {@link #stop()}
+     */
+    static LongAdder start() {
+        LongAdder nanos = new LongAdder();
+        CURRENT.set(nanos);
+        return nanos;
+    }
+
+    static void stop() {
+        CURRENT.remove();
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        return "dataSource".equals(beanName) && bean instanceof DataSource dataSource ? new TimedDataSource(dataSource) : bean;
+    }
+
+    static class TimedDataSource extends DelegatingDataSource {
+
+        TimedDataSource(DataSource targetDataSource) {
+            super(targetDataSource);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return timed(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return timed(super.getConnection(username, password));
+        }
+
+        private static Connection timed(Connection connection) {
+            LongAdder nanos = CURRENT.get();
+            if (nanos == null) {
+                return connection;
+            }
+            long checkedOut = System.nanoTime();
+            AtomicBoolean closed = new AtomicBoolean();
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "equals" -> proxy == args[0];
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        case "close" -> {
+                            try {
+                                yield invoke(connection, method, args);
+                            } finally {
+                                if (closed.compareAndSet(false, true)) {
+                                    nanos.add(System.nanoTime() - checkedOut);
+                                }
+                            }
+                        }
+                        default -> invoke(connection, method, args);
+                    });
+        }
+
+        private static Object invoke(Connection connection, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.lakshayghai.customermanagement.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-client rate limiting and load shedding in front of {@code CustomerController}, enabled with
+ * {@code customer.rate-limit.enabled=true}.
+ * <p>
+ * Each client, identified by its authenticated principal or else its remote address, gets a
+ * {@link TokenBucket}; listing all customers costs more tokens than single-customer calls.
+ * Nothing the client sends is trusted as its identity: behind a proxy, the remote address is
+ * taken from forwarded headers only if {@code server.forward-headers-strategy} and the trusted
+ * proxies are configured. Exhausted buckets get {@code 429}. A shared
+ * {@link AdaptiveConcurrencyLimiter} sheds load with {@code 503} once database time climbs. Both
+ * responses carry {@code Retry-After}.
+ * <p>
+ * Idle buckets are dropped by a periodic sweep. Once {@code max-clients} buckets exist, new
+ * clients share a single overflow bucket until the next sweep frees room.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(name = "customer.rate-limit.enabled", havingValue = "true")
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String CUSTOMERS_PATH = "/customers";
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final TokenBucket overflow;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final double requestsPerSecond;
+    private final long burst;
+    private final long listCost;
+    private final int maxClients;
+    private final Counter rateLimited;
+    private final Counter shed;
+
+    public RateLimitFilter(MeterRegistry meterRegistry,
+                           @Value("${customer.rate-limit.requests-per-second:50}") double requestsPerSecond,
+                           @Value("${customer.rate-limit.burst:100}") long burst,
+                           @Value("${customer.rate-limit.list-cost:20}") long listCost,
+                           @Value("${customer.rate-limit.max-clients:10000}") int maxClients,
+                           @Value("${customer.rate-limit.concurrency.initial-limit:20}") int initialLimit,
+                           @Value("${customer.rate-limit.concurrency.min-limit:4}") int minLimit,
+                           @Value("${customer.rate-limit.concurrency.max-limit:200}") int maxLimit,
+                           @Value("${customer.rate-limit.concurrency.latency-threshold:PT0.25S}") Duration latencyThreshold,
+                           @Value("${customer.rate-limit.concurrency.window:PT1S}") Duration window) {
+        this.requestsPerSecond = requestsPerSecond;
+        this.burst = burst;
+        this.listCost = listCost;
+        this.maxClients = maxClients;
+        this.overflow = new TokenBucket(requestsPerSecond, burst, System.nanoTime());
+        this.concurrencyLimiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit,
+                latencyThreshold.toNanos(), window.toNanos());
+
+        this.rateLimited = Counter.builder("customer.ratelimit.rejected").tag("reason", "rate").register(meterRegistry);
+        this.shed = Counter.builder("customer.ratelimit.rejected").tag("reason", "concurrency").register(meterRegistry);
+        Gauge.builder("customer.ratelimit.concurrency.limit", concurrencyLimiter, AdaptiveConcurrencyLimiter::getLimit)
+                .register(meterRegistry);
+        Gauge.builder("customer.ratelimit.concurrency.in-flight", concurrencyLimiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .register(meterRegistry);
+        Gauge.builder("customer.ratelimit.clients", buckets, Map::size).register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getServletPath();
+        return !path.equals(CUSTOMERS_PATH) && !path.startsWith(CUSTOMERS_PATH + "/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long now = System.nanoTime();
+
+        long waitNanos = bucketFor(clientId(request), now).tryAcquire(costOf(request), now);
+        if (waitNanos > 0) {
+            rateLimited.increment();
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, waitNanos, "Rate limit exceeded");
+            return;
+        }
+
+        if (!concurrencyLimiter.tryAcquire()) {
+            shed.increment();
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, TimeUnit.SECONDS.toNanos(1), "Service overloaded");
+            return;
+        }
+
+        boolean dropped = true;
+        LongAdder databaseNanos = DatabaseTime.start();
+        try {
+            filterChain.doFilter(request, response);
+            dropped = response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value();
+        } finally {
+            DatabaseTime.stop();
+            concurrencyLimiter.release(databaseNanos.sum(), dropped);
+        }
+    }
+
+    private TokenBucket bucketFor(String clientId, long now) {
+        TokenBucket bucket = buckets.get(clientId);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxClients) {
+            return overflow;
+        }
+        return buckets.computeIfAbsent(clientId, id -> new TokenBucket(requestsPerSecond, burst, now));
+    }
+
+    /**
+     * Drops the buckets of clients idle for at least a burst worth of time.
+     */
+    @Scheduled(fixedDelayString = "${customer.rate-limit.sweep-interval:PT10S}")
+    public void sweep() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    private long costOf(HttpServletRequest request) {
+        boolean isList = HttpMethod.GET.matches(request.getMethod()) && CUSTOMERS_PATH.equals(request.getServletPath());
+        return isList ? listCost : 1;
+    }
+
+    private static String clientId(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        return principal != null ? "principal:" + principal.getName() : request.getRemoteAddr();
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, long retryAfterNanos, String error)
+            throws IOException {
+        response.setStatus(status.value());
+        response.setHeader("Retry-After", String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos + 999_999_999L))));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"" + error + "\"}");
+    }
+}
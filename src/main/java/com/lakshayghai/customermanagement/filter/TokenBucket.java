@@ -0,0 +1,44 @@
+package com.lakshayghai.customermanagement.filter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket implemented as a generic cell rate algorithm: the whole bucket state
+ * is the theoretical arrival time of the next request, updated with a single CAS.
+ */
+public class TokenBucket {
+
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrivalTime;
+
+    public TokenBucket(double tokensPerSecond, long capacity, long now) {
+        this.nanosPerToken = (long) (1_000_000_000L / tokensPerSecond);
+        this.burstNanos = nanosPerToken * capacity;
+        this.theoreticalArrivalTime = new AtomicLong(now);
+    }
+
+    /**
+     * @return 0 if {@code cost} tokens were taken, otherwise the nanoseconds until they would be available
+     */
+    public long tryAcquire(long cost, long now) {
+        while (true) {
+            long tat = theoreticalArrivalTime.get();
+            long newTat = Math.max(tat, now) + cost * nanosPerToken;
+            long waitNanos = newTat - now - burstNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (theoreticalArrivalTime.compareAndSet(tat, newTat)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * A full bucket has not been used for at least a burst worth of time and can be dropped.
+     */
+    public boolean isFull(long now) {
+        return theoreticalArrivalTime.get() <= now;
+    }
+}
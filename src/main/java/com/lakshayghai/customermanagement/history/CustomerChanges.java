@@ -0,0 +1,155 @@
+package com.lakshayghai.customermanagement.history;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.lakshayghai.customermanagement.entity.Customer;
+import com.lakshayghai.customermanagement.entity.PhoneNumber;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Row-level diffs of a customer, keyed by the JSON property names of {@link Customer}:
+ * {@code {"lastName": ["Smith", "Smyth"], "phoneNumbers": {"added": [ids], "removed": [phones]}}}.
+ * Each field keeps its value before and after the change, so reverting the diffs newest first
+ * walks a customer's current JSON back in time.
+ */
+public final class CustomerChanges {
+
+    static final String PHONE_NUMBERS = "phoneNumbers";
+    private static final String MODIFIED_AT = "modifiedAt";
+
+    private static final Map<String, Function<Customer, Object>> FIELDS = new LinkedHashMap<>();
+
+    static {
+        FIELDS.put("firstName", Customer::getFirstName);
+        FIELDS.put("middleName", Customer::getMiddleName);
+        FIELDS.put("lastName", Customer::getLastName);
+        FIELDS.put("emailAddress", Customer::getEmailAddress);
+    }
+
+    private CustomerChanges() {
+    }
+
+    /**
+     * Captures the fields of {@code customer} before it is changed.
+     */
+    public static Snapshot snapshot(Customer customer) {
+        Map<String, Object> values = new HashMap<>();
+        FIELDS.forEach((name, getter) -> values.put(name, getter.apply(customer)));
+        return new Snapshot(values, customer.getModifiedAt());
+    }
+
+    /**
+     * @return the diff from {@code before} to {@code after}, or null if nothing changed
+     */
+    static ObjectNode diff(ObjectMapper objectMapper, Snapshot before, Customer after, Collection<PhoneNumber> added,
+                           Collection<PhoneNumber> removed, LocalDateTime changedAt) {
+        ObjectNode changes = objectMapper.createObjectNode();
+        FIELDS.forEach((name, getter) -> {
+            Object from = before.values.get(name);
+            Object to = getter.apply(after);
+            if (!Objects.equals(from, to)) {
+                changes.set(name, pair(objectMapper, from, to));
+            }
+        });
+        if (!changes.isEmpty()) {
+            // The customer row is written, so its modification time moves too
+            changes.set(MODIFIED_AT, pair(objectMapper, before.modifiedAt, changedAt));
+        }
+        if (!added.isEmpty() || !removed.isEmpty()) {
+            ObjectNode phones = changes.putObject(PHONE_NUMBERS);
+            ArrayNode addedIds = phones.putArray("added");
+            added.forEach(phone -> addedIds.add(String.valueOf(phone.getId())));
+            ArrayNode removedPhones = phones.putArray("removed");
+            removed.forEach(phone -> removedPhones.add(objectMapper.<JsonNode>valueToTree(phone)));
+        }
+        return changes.isEmpty() ? null : changes;
+    }
+
+    /**
+     * The diff of deleting {@code customer}: every field goes to null and every phone number is
+     * removed.
+     */
+    static ObjectNode deletion(ObjectMapper objectMapper, Customer customer) {
+        ObjectNode changes = objectMapper.createObjectNode();
+        FIELDS.forEach((name, getter) -> changes.set(name, pair(objectMapper, getter.apply(customer), null)));
+        changes.set("createdAt", pair(objectMapper, customer.getCreatedAt(), null));
+        changes.set(MODIFIED_AT, pair(objectMapper, customer.getModifiedAt(), null));
+        ObjectNode phones = changes.putObject(PHONE_NUMBERS);
+        phones.putArray("added");
+        ArrayNode removedPhones = phones.putArray("removed");
+        customer.getPhoneNumbers().forEach(phone -> removedPhones.add(objectMapper.<JsonNode>valueToTree(phone)));
+        return changes;
+    }
+
+    /**
+     * The diff of restoring a deleted {@code customer}: the reverse of its deletion.
+     */
+    static ObjectNode restoration(ObjectMapper objectMapper, Customer customer) {
+        ObjectNode changes = objectMapper.createObjectNode();
+        FIELDS.forEach((name, getter) -> changes.set(name, pair(objectMapper, null, getter.apply(customer))));
+        changes.set("createdAt", pair(objectMapper, null, customer.getCreatedAt()));
+        changes.set(MODIFIED_AT, pair(objectMapper, null, customer.getModifiedAt()));
+        ObjectNode phones = changes.putObject(PHONE_NUMBERS);
+        ArrayNode addedIds = phones.putArray("added");
+        customer.getPhoneNumbers().forEach(phone -> addedIds.add(String.valueOf(phone.getId())));
+        phones.putArray("removed");
+        return changes;
+    }
+
+    /**
+     * Undoes {@code changes} on {@code state}, the customer's JSON just after they were made.
+     */
+    public static void revert(ObjectNode state, JsonNode changes) {
+        changes.fields().forEachRemaining(field -> {
+            if (field.getKey().equals(PHONE_NUMBERS)) {
+                revertPhoneNumbers(state, field.getValue());
+            } else {
+                state.set(field.getKey(), field.getValue().get(0));
+            }
+        });
+    }
+
+    private static void revertPhoneNumbers(ObjectNode state, JsonNode changes) {
+        Set<String> added = new HashSet<>();
+        changes.path("added").forEach(id -> added.add(id.asText()));
+        ArrayNode phones = JsonNodeFactory.instance.arrayNode();
+        state.path(PHONE_NUMBERS).forEach(phone -> {
+            if (!added.contains(phone.path("id").asText())) {
+                phones.add(phone);
+            }
+        });
+        changes.path("removed").forEach(phones::add);
+        state.set(PHONE_NUMBERS, phones);
+    }
+
+    private static ArrayNode pair(ObjectMapper objectMapper, Object from, Object to) {
+        return objectMapper.createArrayNode()
+                .add(objectMapper.<JsonNode>valueToTree(from))
+                .add(objectMapper.<JsonNode>valueToTree(to));
+    }
+
+    /**
+     * A customer's fields before a change.
+     */
+    public static final class Snapshot {
+        private final Map<String, Object> values;
+        private final LocalDateTime modifiedAt;
+
+        private Snapshot(Map<String, Object> values, LocalDateTime modifiedAt) {
+            this.values = values;
+            this.modifiedAt = modifiedAt;
+        }
+    }
+}
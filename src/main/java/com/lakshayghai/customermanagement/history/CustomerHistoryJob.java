@@ -0,0 +1,99 @@
+package com.lakshayghai.customermanagement.history;
+
+import com.lakshayghai.customermanagement.sharding.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+
+/**
+ * Moves recorded changes from the outbox into {@code customer_history} in batches, and keeps its
+ * monthly partitions: the next {@code premake-months} are created ahead of time, and partitions
+ * entirely older than {@code retention-months} are dropped whole instead of deleting rows.
+ */
+@Component
+@Slf4j
+public class CustomerHistoryJob {
+
+    private final CustomerHistoryStore customerHistoryStore;
+    private final ShardRouter shardRouter;
+    private final int batchSize;
+    private final int retentionMonths;
+    private final int premakeMonths;
+    private final Counter moved;
+
+    public CustomerHistoryJob(CustomerHistoryStore customerHistoryStore, ShardRouter shardRouter, MeterRegistry meterRegistry,
+                              @Value("${customer.history.batch-size:1000}") int batchSize,
+                              @Value("${customer.history.retention-months:24}") int retentionMonths,
+                              @Value("${customer.history.premake-months:3}") int premakeMonths) {
+        this.customerHistoryStore = customerHistoryStore;
+        this.shardRouter = shardRouter;
+        this.batchSize = batchSize;
+        this.retentionMonths = retentionMonths;
+        this.premakeMonths = premakeMonths;
+        this.moved = Counter.builder("customer.history.moved").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${customer.history.flush-interval:PT1S}")
+    public void flush() {
+        try {
+            shardRouter.scatter(shard -> drain());
+        } catch (DataAccessException e) {
+            // The changes stay in the outbox and are retried on the next run
+            log.warn("Moving customer history out of the outbox failed", e);
+        }
+    }
+
+    /**
+     * Runs on one shard.
+     */
+    private long drain() {
+        long total = 0;
+        int batch;
+        do {
+            batch = customerHistoryStore.drain(batchSize);
+            total += batch;
+            moved.increment(batch);
+        } while (batch == batchSize);
+        return total;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void maintainPartitionsOnStartup() {
+        maintainPartitions(YearMonth.now());
+    }
+
+    @Scheduled(cron = "${customer.history.partition-cron:0 0 3 * * *}")
+    public void scheduledPartitionMaintenance() {
+        maintainPartitions(YearMonth.now());
+    }
+
+    void maintainPartitions(YearMonth current) {
+        try {
+            shardRouter.scatter(shard -> {
+                for (int month = 0; month <= premakeMonths; month++) {
+                    customerHistoryStore.createPartition(current.plusMonths(month));
+                }
+                if (retentionMonths > 0) {
+                    YearMonth oldest = current.minusMonths(retentionMonths);
+                    for (YearMonth month : customerHistoryStore.partitions()) {
+                        if (month.isBefore(oldest)) {
+                            customerHistoryStore.dropPartition(month);
+                            log.info("Dropped customer history partition for {}", month);
+                        }
+                    }
+                }
+                return null;
+            });
+        } catch (DataAccessException e) {
+            log.warn("Customer history partition maintenance failed", e);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.lakshayghai.customermanagement.history;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.lakshayghai.customermanagement.entity.Customer;
+import com.lakshayghai.customermanagement.entity.PhoneNumber;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Records customer updates, deletes and restores in the transaction making them, so a change and its
+ * history row commit or roll back together.
+ */
+@Component
+public class CustomerHistoryRecorder {
+
+    private final CustomerHistoryStore customerHistoryStore;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+
+    public CustomerHistoryRecorder(CustomerHistoryStore customerHistoryStore, ObjectMapper objectMapper,
+                                   @Value("${customer.history.enabled:true}") boolean enabled) {
+        this.customerHistoryStore = customerHistoryStore;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Records the change from {@code before} to {@code after}, unless nothing changed.
+     */
+    public void recordUpdate(CustomerChanges.Snapshot before, Customer after, Collection<PhoneNumber> added,
+                             Collection<PhoneNumber> removed) {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime changedAt = LocalDateTime.now();
+        ObjectNode changes = CustomerChanges.diff(objectMapper, before, after, added, removed, changedAt);
+        if (changes != null) {
+            customerHistoryStore.append(after.getId(), "UPDATE", changedAt, changes);
+        }
+    }
+
+    /**
+     * Records the deletion of {@code customer}, whose phone numbers must be loaded.
+     */
+    public void recordDelete(Customer customer) {
+        if (enabled) {
+            customerHistoryStore.append(customer.getId(), "DELETE", LocalDateTime.now(),
+                    CustomerChanges.deletion(objectMapper, customer));
+        }
+    }
+
+    /**
+     * Records the restoration of deleted {@code customer}, whose phone numbers must be loaded.
+     */
+    public void recordRestore(Customer customer) {
+        if (enabled) {
+            customerHistoryStore.append(customer.getId(), "RESTORE", LocalDateTime.now(),
+                    CustomerChanges.restoration(objectMapper, customer));
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.lakshayghai.customermanagement.history;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lakshayghai.customermanagement.model.CustomerHistoryEntry;
+import com.lakshayghai.customermanagement.sharding.ShardRouter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * History queries. Changes are appended to {@code customer_history_outbox} in the transaction
+ * making them and moved into the monthly partitions of {@code customer_history} in batches, so
+ * reads look at both tables. History stays on the shard the change was made on, which is not the
+ * customer's shard after it is moved or deleted, so reads go to every shard.
+ */
+@Component
+public class CustomerHistoryStore {
+
+    static final Comparator<CustomerHistoryEntry> NEWEST_FIRST = Comparator
+            .comparing(CustomerHistoryEntry::getChangedAt)
+            .thenComparingInt(CustomerHistoryEntry::getShard)
+            .thenComparingLong(CustomerHistoryEntry::getSeq)
+            .reversed();
+
+    private static final String PARTITION_PREFIX = "customer_history_";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final String COLUMNS = "seq, operation, changed_at, changes";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+    private final ObjectMapper objectMapper;
+
+    public CustomerHistoryStore(JdbcTemplate jdbcTemplate, ShardRouter shardRouter, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Records a change in the current transaction, on the shard it is bound to.
+     */
+    void append(UUID customerId, String operation, LocalDateTime changedAt, JsonNode changes) {
+        jdbcTemplate.update("INSERT INTO customer_history_outbox (customer_id, operation, changed_at, changes) "
+                + "VALUES (?, ?, ?, ?::jsonb)", customerId, operation, changedAt, changes.toString());
+    }
+
+    /**
+     * Moves up to {@code limit} of the oldest changes on the current shard from the outbox into
+     * {@code customer_history}. The move is one statement, so a crash leaves every change in
+     * exactly one of the tables; nodes draining concurrently skip each other's rows.
+     *
+     * @return the number of changes moved
+     */
+    int drain(int limit) {
+        return jdbcTemplate.update("WITH moved AS (DELETE FROM customer_history_outbox WHERE seq IN ("
+                + "SELECT seq FROM customer_history_outbox ORDER BY seq LIMIT ? FOR UPDATE SKIP LOCKED) "
+                + "RETURNING seq, customer_id, operation, changed_at, changes) "
+                + "INSERT INTO customer_history (seq, customer_id, operation, changed_at, changes) "
+                + "SELECT seq, customer_id, operation, changed_at, changes FROM moved", limit);
+    }
+
+    /**
+     * Changes to a customer newest first, starting after {@code (afterChangedAt, afterShard, afterSeq)}
+     * if given. {@code seq} is only unique per shard, so entries made at the same instant are
+     * ordered by shard first. Each shard walks its primary key backwards; the cursor's time prunes
+     * newer partitions.
+     */
+    public List<CustomerHistoryEntry> findPage(UUID customerId, LocalDateTime afterChangedAt, int afterShard,
+                                               long afterSeq, int limit) {
+        return merge(shardRouter.scatter(shard -> {
+            String where;
+            Object[] args;
+            if (afterChangedAt == null) {
+                where = " WHERE customer_id = ?";
+                args = new Object[]{customerId, customerId, limit};
+            } else if (shard == afterShard) {
+                where = " WHERE customer_id = ? AND changed_at <= ? AND (changed_at, seq) < (?, ?)";
+                args = new Object[]{customerId, afterChangedAt, afterChangedAt, afterSeq,
+                        customerId, afterChangedAt, afterChangedAt, afterSeq, limit};
+            } else {
+                // Lower shards come after the cursor's shard at its instant, higher ones before it
+                where = shard < afterShard ? " WHERE customer_id = ? AND changed_at <= ?"
+                        : " WHERE customer_id = ? AND changed_at < ?";
+                args = new Object[]{customerId, afterChangedAt, customerId, afterChangedAt, limit};
+            }
+            String sql = "SELECT " + COLUMNS + " FROM customer_history" + where
+                    + " UNION ALL SELECT " + COLUMNS + " FROM customer_history_outbox" + where
+                    + " ORDER BY changed_at DESC, seq DESC LIMIT ?";
+            return jdbcTemplate.query(sql, entryMapper(shard), args);
+        }), limit);
+    }
+
+    /**
+     * Every change to a customer made after {@code after}, newest first. Only partitions from
+     * {@code after}'s month on are read.
+     */
+    public List<CustomerHistoryEntry> findChangedAfter(UUID customerId, LocalDateTime after) {
+        String sql = "SELECT " + COLUMNS + " FROM customer_history WHERE customer_id = ? AND changed_at > ?"
+                + " UNION ALL SELECT " + COLUMNS + " FROM customer_history_outbox WHERE customer_id = ? AND changed_at > ?"
+                + " ORDER BY changed_at DESC, seq DESC";
+        return merge(shardRouter.scatter(shard -> jdbcTemplate.query(sql, entryMapper(shard),
+                customerId, after, customerId, after)), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates the partition for {@code month} on the current shard, if missing.
+     */
+    void createPartition(YearMonth month) {
+        jdbcTemplate.queryForList("SELECT create_customer_history_partition(?)", month.atDay(1));
+    }
+
+    /**
+     * @return the months partitioned on the current shard
+     */
+    List<YearMonth> partitions() {
+        List<YearMonth> months = new ArrayList<>();
+        for (String name : jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i "
+                + "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = 'customer_history'::regclass", String.class)) {
+            try {
+                months.add(YearMonth.parse(name.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX));
+            } catch (DateTimeParseException | IndexOutOfBoundsException e) {
+                // Not one of ours, leave it alone
+            }
+        }
+        return months;
+    }
+
+    void dropPartition(YearMonth month) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + PARTITION_PREFIX + month.format(PARTITION_SUFFIX));
+    }
+
+    private RowMapper<CustomerHistoryEntry> entryMapper(int shard) {
+        return (rs, row) -> {
+            try {
+                return new CustomerHistoryEntry(shard, rs.getLong("seq"), rs.getString("operation"),
+                        rs.getObject("changed_at", LocalDateTime.class), objectMapper.readTree(rs.getString("changes")));
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    private static List<CustomerHistoryEntry> merge(List<List<CustomerHistoryEntry>> runs, int limit) {
+        if (runs.size() == 1) {
+            return runs.get(0);
+        }
+        return runs.stream()
+                .flatMap(List::stream)
+                .sorted(NEWEST_FIRST)
+                .limit(limit)
+                .toList();
+    }
+}
@@ -0,0 +1,20 @@
+package com.lakshayghai.customermanagement.jfr;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Records calls of a method returning a {@code ResponseEntity} as {@link CustomerOperationEvent}s.
+ * The customer id is taken from the first {@code UUID} argument, or else the response body.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CustomerOperation {
+
+    /**
+     * Operation name recorded with the event, e.g. {@code "update"}.
+     */
+    String value();
+}
@@ -0,0 +1,51 @@
+package com.lakshayghai.customermanagement.jfr;
+
+import com.lakshayghai.customermanagement.entity.Customer;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.springframework.http.ResponseEntity;
+
+import java.util.UUID;
+
+@Name("com.lakshayghai.customermanagement.CustomerOperation")
+@Label("Customer Operation")
+@Description("A CustomerService write, including its transaction commit")
+@Category({"Customer Management", "Service"})
+@StackTrace(false)
+public class CustomerOperationEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Customer Id")
+    String customerId;
+
+    @Label("Status")
+    int status;
+
+    static CustomerOperationEvent start(String operation) {
+        CustomerOperationEvent event = new CustomerOperationEvent();
+        event.operation = operation;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends the event. {@code id} may be null when the response body carries the customer.
+     */
+    void finish(UUID id, ResponseEntity<?> response) {
+        end();
+        if (shouldCommit()) {
+            if (id == null && response.getBody() instanceof Customer customer) {
+                id = customer.getId();
+            }
+            customerId = id == null ? null : id.toString();
+            status = response.getStatusCode().value();
+            commit();
+        }
+    }
+}
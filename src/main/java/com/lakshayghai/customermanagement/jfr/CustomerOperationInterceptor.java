@@ -0,0 +1,34 @@
+package com.lakshayghai.customermanagement.jfr;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.http.ResponseEntity;
+
+import java.util.UUID;
+
+/**
+ * Emits a {@link CustomerOperationEvent} around each {@link CustomerOperation} method. It runs
+ * outside the transaction, so the event covers the commit too.
+ */
+class CustomerOperationInterceptor implements MethodInterceptor {
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        CustomerOperation operation = invocation.getMethod().getAnnotation(CustomerOperation.class);
+        CustomerOperationEvent event = CustomerOperationEvent.start(operation.value());
+        Object result = invocation.proceed();
+        if (result instanceof ResponseEntity<?> response) {
+            event.finish(customerId(invocation.getArguments()), response);
+        }
+        return result;
+    }
+
+    private static UUID customerId(Object[] arguments) {
+        for (Object argument : arguments) {
+            if (argument instanceof UUID id) {
+                return id;
+            }
+        }
+        return null;
+    }
+}
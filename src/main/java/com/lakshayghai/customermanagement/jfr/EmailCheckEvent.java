@@ -0,0 +1,36 @@
+package com.lakshayghai.customermanagement.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.lakshayghai.customermanagement.EmailCheck")
+@Label("Email Check")
+@Category({"Customer Management", "Service"})
+@StackTrace(false)
+public class EmailCheckEvent extends Event {
+
+    @Label("Queried Database")
+    boolean queried;
+
+    @Label("Taken")
+    boolean taken;
+
+    public static EmailCheckEvent start() {
+        EmailCheckEvent event = new EmailCheckEvent();
+        event.begin();
+        return event;
+    }
+
+    public boolean finish(boolean queried, boolean taken) {
+        end();
+        if (shouldCommit()) {
+            this.queried = queried;
+            this.taken = taken;
+            commit();
+        }
+        return taken;
+    }
+}
@@ -0,0 +1,27 @@
+package com.lakshayghai.customermanagement.jfr;
+
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+
+@Configuration(proxyBeanMethods = false)
+public class FlightRecorderConfig {
+
+    /**
+     * An infrastructure advisor, so the auto-proxy creator behind {@code @Transactional} applies
+     * it without AspectJ. Ordered ahead of the transaction advisor, which makes it the outer one.
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static Advisor customerOperationAdvisor() {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+                AnnotationMatchingPointcut.forMethodAnnotation(CustomerOperation.class), new CustomerOperationInterceptor());
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+}
@@ -0,0 +1,154 @@
+package com.lakshayghai.customermanagement.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.Access;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Starts, stops and dumps a continuous JFR recording of the running application:
+ * <ul>
+ *     <li>{@code POST /actuator/flightrecorder} starts it, optionally with {@code settings}
+ *     ({@code default} or {@code profile}), {@code maxAge} and {@code maxSize} bounding the ring buffer</li>
+ *     <li>{@code GET /actuator/flightrecorder/dump} downloads what the buffer holds as a {@code .jfr} file</li>
+ *     <li>{@code DELETE /actuator/flightrecorder} stops and discards it</li>
+ * </ul>
+ * Disabled unless granted with {@code management.endpoint.flightrecorder.access=unrestricted}.
+ */
+@Component
+@Endpoint(id = "flightrecorder", defaultAccess = Access.NONE)
+public class FlightRecorderEndpoint implements DisposableBean {
+
+    private static final String RECORDING_NAME = "customer-management";
+
+    private final String defaultSettings;
+    private final Duration defaultMaxAge;
+    private final DataSize defaultMaxSize;
+    private final Path dumpDirectory;
+
+    private Recording recording;
+    private String settings;
+    private Path lastDump;
+
+    public FlightRecorderEndpoint(@Value("${customer.jfr.settings:profile}") String defaultSettings,
+                                  @Value("${customer.jfr.max-age:PT15M}") Duration defaultMaxAge,
+                                  @Value("${customer.jfr.max-size:250MB}") DataSize defaultMaxSize,
+                                  @Value("${customer.jfr.dump-directory:${java.io.tmpdir}}") Path dumpDirectory) {
+        this.defaultSettings = defaultSettings;
+        this.defaultMaxAge = defaultMaxAge;
+        this.defaultMaxSize = defaultMaxSize;
+        this.dumpDirectory = dumpDirectory;
+    }
+
+    @ReadOperation
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", recording != null && recording.getState() == RecordingState.RUNNING);
+        if (recording != null) {
+            status.put("settings", settings);
+            status.put("startTime", recording.getStartTime());
+            status.put("maxAge", recording.getMaxAge());
+            status.put("maxSize", DataSize.ofBytes(recording.getMaxSize()));
+            status.put("size", DataSize.ofBytes(recording.getSize()));
+        }
+        return status;
+    }
+
+    /**
+     * Starts the recording; does nothing if one is already running.
+     */
+    @WriteOperation
+    public synchronized Map<String, Object> start(@Nullable String settings, @Nullable Duration maxAge,
+                                                  @Nullable DataSize maxSize) {
+        if (recording != null) {
+            return status();
+        }
+        String name = settings != null ? settings : defaultSettings;
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(name);
+        } catch (IOException | ParseException e) {
+            throw new IllegalArgumentException("Unknown JFR settings: " + name, e);
+        }
+
+        Recording started = new Recording(configuration);
+        started.setName(RECORDING_NAME);
+        started.setToDisk(true);
+        started.setMaxAge(maxAge != null ? maxAge : defaultMaxAge);
+        started.setMaxSize((maxSize != null ? maxSize : defaultMaxSize).toBytes());
+        started.start();
+        this.recording = started;
+        this.settings = name;
+        return status();
+    }
+
+    /**
+     * Writes the buffered recording to a file and returns it; only the latest dump is kept on disk.
+     *
+     * @return null, answered with 404, if no recording is running
+     */
+    @ReadOperation(produces = "application/octet-stream")
+    public synchronized Resource dump(@Selector String target) {
+        if (!"dump".equals(target) || recording == null) {
+            return null;
+        }
+        try {
+            Path file = Files.createTempFile(dumpDirectory, RECORDING_NAME + "-", ".jfr");
+            recording.dump(file);
+            deleteLastDump();
+            lastDump = file;
+            return new FileSystemResource(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to dump JFR recording", e);
+        }
+    }
+
+    @DeleteOperation
+    public synchronized Map<String, Object> stop() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+            settings = null;
+        }
+        return status();
+    }
+
+    @Override
+    public synchronized void destroy() {
+        stop();
+        deleteLastDump();
+    }
+
+    private void deleteLastDump() {
+        if (lastDump == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(lastDump);
+        } catch (IOException e) {
+            // Left for the OS to clean up with the rest of the temporary directory
+        }
+        lastDump = null;
+    }
+}
@@ -0,0 +1,23 @@
+package com.lakshayghai.customermanagement.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.lakshayghai.customermanagement.HttpRequest")
+@Label("Customer HTTP Request")
+@Category({"Customer Management", "Web"})
+@StackTrace(false)
+class HttpRequestEvent extends Event {
+
+    @Label("Method")
+    String method;
+
+    @Label("Route")
+    String route;
+
+    @Label("Status")
+    int status;
+}
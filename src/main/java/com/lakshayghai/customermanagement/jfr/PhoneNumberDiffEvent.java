@@ -0,0 +1,36 @@
+package com.lakshayghai.customermanagement.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.lakshayghai.customermanagement.PhoneNumberDiff")
+@Label("Phone Number Diff")
+@Category({"Customer Management", "Service"})
+@StackTrace(false)
+public class PhoneNumberDiffEvent extends Event {
+
+    @Label("Existing")
+    int existing;
+
+    @Label("Added")
+    int added;
+
+    @Label("Removed")
+    int removed;
+
+    /**
+     * @param existing phone numbers before the change, or -1 if they were not loaded
+     */
+    public static void emit(int existing, int added, int removed) {
+        PhoneNumberDiffEvent event = new PhoneNumberDiffEvent();
+        if (event.shouldCommit()) {
+            event.existing = existing;
+            event.added = added;
+            event.removed = removed;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.lakshayghai.customermanagement.jfr;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Emits a {@link HttpRequestEvent} per request and ends the {@link ResponseWriteEvent} started by
+ * {@link ResponseWriteEventAdvice}, since the body has been written by the time the handler returns.
+ */
+class RequestEventInterceptor implements HandlerInterceptor {
+
+    static final String REQUEST_EVENT = RequestEventInterceptor.class.getName() + ".request";
+    static final String WRITE_EVENT = RequestEventInterceptor.class.getName() + ".write";
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        HttpRequestEvent event = new HttpRequestEvent();
+        if (event.isEnabled()) {
+            event.begin();
+            request.setAttribute(REQUEST_EVENT, event);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(WRITE_EVENT) instanceof ResponseWriteEvent writeEvent) {
+            writeEvent.end();
+            if (writeEvent.shouldCommit()) {
+                writeEvent.commit();
+            }
+        }
+        if (request.getAttribute(REQUEST_EVENT) instanceof HttpRequestEvent event) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.method = request.getMethod();
+                event.route = String.valueOf(request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE));
+                event.status = response.getStatus();
+                event.commit();
+            }
+        }
+    }
+}
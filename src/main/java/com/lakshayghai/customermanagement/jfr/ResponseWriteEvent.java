@@ -0,0 +1,22 @@
+package com.lakshayghai.customermanagement.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.lakshayghai.customermanagement.ResponseWrite")
+@Label("Customer Response Write")
+@Description("Serialization of a response body by its message converter")
+@Category({"Customer Management", "Web"})
+@StackTrace(false)
+class ResponseWriteEvent extends Event {
+
+    @Label("Media Type")
+    String mediaType;
+
+    @Label("Body Type")
+    Class<?> bodyType;
+}
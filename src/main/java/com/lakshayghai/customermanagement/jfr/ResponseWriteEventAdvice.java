@@ -0,0 +1,38 @@
+package com.lakshayghai.customermanagement.jfr;
+
+import com.lakshayghai.customermanagement.controller.CustomerController;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Starts a {@link ResponseWriteEvent} just before the message converter serializes a
+ * {@link CustomerController} response; {@link RequestEventInterceptor} ends it.
+ */
+@ControllerAdvice(assignableTypes = CustomerController.class)
+class ResponseWriteEventAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        ResponseWriteEvent event = new ResponseWriteEvent();
+        if (event.isEnabled() && request instanceof ServletServerHttpRequest servletRequest) {
+            event.mediaType = selectedContentType.toString();
+            event.bodyType = body == null ? null : body.getClass();
+            event.begin();
+            servletRequest.getServletRequest().setAttribute(RequestEventInterceptor.WRITE_EVENT, event);
+        }
+        return body;
+    }
+}
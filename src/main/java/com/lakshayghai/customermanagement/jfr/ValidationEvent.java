@@ -0,0 +1,35 @@
+package com.lakshayghai.customermanagement.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.lakshayghai.customermanagement.Validation")
+@Label("Customer Validation")
+@Category({"Customer Management", "Service"})
+@StackTrace(false)
+public class ValidationEvent extends Event {
+
+    @Label("Phone Numbers")
+    int phoneNumbers;
+
+    @Label("Errors")
+    int errors;
+
+    public static ValidationEvent start() {
+        ValidationEvent event = new ValidationEvent();
+        event.begin();
+        return event;
+    }
+
+    public void finish(int phoneNumbers, int errors) {
+        end();
+        if (shouldCommit()) {
+            this.phoneNumbers = phoneNumbers;
+            this.errors = errors;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.lakshayghai.customermanagement.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.lakshayghai.customermanagement.entity.Customer;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The customer properties a read returns, from {@code fields=firstName,emailAddress} and
+ * {@code include=phoneNumbers}. Phone numbers are only loaded when one of them asks for them;
+ * without {@code fields} every customer column is returned. The id is always returned.
+ */
+public final class CustomerFields {
+
+    public static final String PHONE_NUMBERS = "phoneNumbers";
+    private static final Set<String> NAMES = Set.of("id", "firstName", "middleName", "lastName", "emailAddress",
+            "createdAt", "modifiedAt", PHONE_NUMBERS);
+
+    public static final CustomerFields CUSTOMER_ONLY = new CustomerFields(null, false);
+    public static final CustomerFields WITH_PHONE_NUMBERS = new CustomerFields(null, true);
+
+    private final Set<String> names;
+    private final boolean phoneNumbers;
+
+    private CustomerFields(Set<String> names, boolean phoneNumbers) {
+        this.names = names;
+        this.phoneNumbers = phoneNumbers;
+    }
+
+    /**
+     * @throws IllegalArgumentException naming an unknown field or include
+     */
+    public static CustomerFields parse(String fields, String include) {
+        boolean phoneNumbers = false;
+        for (String name : split(include)) {
+            if (!name.equals(PHONE_NUMBERS)) {
+                throw new IllegalArgumentException("Unknown include: " + name);
+            }
+            phoneNumbers = true;
+        }
+        List<String> selected = split(fields);
+        if (selected.isEmpty()) {
+            return phoneNumbers ? WITH_PHONE_NUMBERS : CUSTOMER_ONLY;
+        }
+        Set<String> names = new LinkedHashSet<>();
+        names.add("id");
+        for (String name : selected) {
+            if (!NAMES.contains(name)) {
+                throw new IllegalArgumentException("Unknown field: " + name);
+            }
+            names.add(name);
+        }
+        if (phoneNumbers) {
+            names.add(PHONE_NUMBERS);
+        }
+        return new CustomerFields(names, names.contains(PHONE_NUMBERS));
+    }
+
+    public boolean includesPhoneNumbers() {
+        return phoneNumbers;
+    }
+
+    /**
+     * {@code customer} reduced to the selected fields.
+     */
+    public Object select(ObjectMapper objectMapper, Customer customer) {
+        if (names == null) {
+            return customer;
+        }
+        ObjectNode node = objectMapper.valueToTree(customer);
+        return node.retain(names);
+    }
+
+    /**
+     * {@code customers} reduced to the selected fields.
+     */
+    public Object select(ObjectMapper objectMapper, List<Customer> customers) {
+        if (names == null) {
+            return customers;
+        }
+        ArrayNode nodes = objectMapper.createArrayNode();
+        customers.forEach(customer -> nodes.add((JsonNode) select(objectMapper, customer)));
+        return nodes;
+    }
+
+    /**
+     * {@code page} with its customers reduced to the selected fields.
+     */
+    public Object select(ObjectMapper objectMapper, CustomerPage page) {
+        if (names == null) {
+            return page;
+        }
+        ObjectNode node = objectMapper.valueToTree(page);
+        node.set("content", (JsonNode) select(objectMapper, page.getContent()));
+        return node;
+    }
+
+    private static List<String> split(String names) {
+        if (names == null || names.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(names.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .toList();
+    }
+}
@@ -0,0 +1,28 @@
+package com.lakshayghai.customermanagement.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * One change to a customer: {@code UPDATE} or {@code DELETE}, with each changed field as
+ * {@code [before, after]}.
+ */
+@Value
+public class CustomerHistoryEntry {
+    /**
+     * The shard the change was recorded on, which history is read back from.
+     */
+    @JsonIgnore
+    int shard;
+    /**
+     * Orders changes made at the same instant on one shard; only unique per shard.
+     */
+    @JsonIgnore
+    long seq;
+    String operation;
+    LocalDateTime changedAt;
+    JsonNode changes;
+}
@@ -0,0 +1,15 @@
+package com.lakshayghai.customermanagement.model;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * One page of a customer's changes, newest first. Pass {@code nextCursor} as {@code after} to
+ * fetch the next page; it is null on the last page.
+ */
+@Value
+public class CustomerHistoryPage {
+    List<CustomerHistoryEntry> content;
+    String nextCursor;
+}
@@ -0,0 +1,17 @@
+package com.lakshayghai.customermanagement.model;
+
+import com.lakshayghai.customermanagement.entity.Customer;
+import lombok.Value;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One page of customers ordered by id. Pass {@code nextCursor} as {@code after} to fetch the
+ * next page; it is null on the last page.
+ */
+@Value
+public class CustomerPage {
+    List<Customer> content;
+    UUID nextCursor;
+}
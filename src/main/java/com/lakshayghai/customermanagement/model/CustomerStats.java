@@ -0,0 +1,23 @@
+package com.lakshayghai.customermanagement.model;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Live customer and phone number counts. Phone numbers are broken down by country code, type and
+ * verification status ({@code verified}/{@code unverified}).
+ */
+@Value
+public class CustomerStats {
+    long customers;
+    long phoneNumbers;
+    Map<String, Long> phoneNumbersByCountryCode;
+    Map<String, Long> phoneNumbersByType;
+    Map<String, Long> phoneNumbersByVerification;
+    /**
+     * When the counts were last checked against the tables.
+     */
+    LocalDateTime reconciledAt;
+}
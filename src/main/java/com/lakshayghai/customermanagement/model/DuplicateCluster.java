@@ -0,0 +1,15 @@
+package com.lakshayghai.customermanagement.model;
+
+import lombok.Value;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Customers found to be the same person. The cluster id is the lowest customer id in it.
+ */
+@Value
+public class DuplicateCluster {
+    UUID clusterId;
+    List<UUID> customerIds;
+}
@@ -0,0 +1,16 @@
+package com.lakshayghai.customermanagement.model;
+
+import lombok.Value;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One page of duplicate clusters ordered by cluster id. Pass {@code nextCursor} as {@code after}
+ * to fetch the next page; it is null on the last page.
+ */
+@Value
+public class DuplicateClusterPage {
+    List<DuplicateCluster> content;
+    UUID nextCursor;
+}
@@ -0,0 +1,13 @@
+package com.lakshayghai.customermanagement.model;
+
+import lombok.Value;
+
+/**
+ * First response recorded for an {@code Idempotency-Key}, replayed verbatim to retries.
+ */
+@Value
+public class IdempotentResponse {
+    String requestFingerprint;
+    int statusCode;
+    Object body;
+}
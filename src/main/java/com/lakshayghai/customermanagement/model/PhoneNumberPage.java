@@ -0,0 +1,17 @@
+package com.lakshayghai.customermanagement.model;
+
+import com.lakshayghai.customermanagement.entity.PhoneNumber;
+import lombok.Value;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One page of a customer's phone numbers ordered by id. Pass {@code nextCursor} as {@code after}
+ * to fetch the next page; it is null on the last page.
+ */
+@Value
+public class PhoneNumberPage {
+    List<PhoneNumber> content;
+    UUID nextCursor;
+}
@@ -0,0 +1,15 @@
+package com.lakshayghai.customermanagement.purge;
+
+import lombok.Value;
+
+import java.util.UUID;
+
+/**
+ * A purged customer as stored in the {@link CustomerArchive}:
+ * {@code {"customer": {row}, "phoneNumbers": [{row}, ...]}} with the table's column names.
+ */
+@Value
+public class ArchivedCustomer {
+    UUID id;
+    String json;
+}
@@ -0,0 +1,258 @@
+package com.lakshayghai.customermanagement.purge;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedReader;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Append-only, compressed archive of purged customers on the local disk.
+ * <p>
+ * Customers are written to segment files, one gzip member per batch, as lines of
+ * {@code <id>\t<json>}. While a segment is open, the offset of each customer's member is appended to
+ * a {@code .pending} file; sealing the segment sorts those entries into a fixed-width {@code .idx}
+ * file, so a customer is found by a binary search per segment and decompressing a single member.
+ * A segment left open by a crash is sealed on startup. Every write is forced to disk before it
+ * returns, so a customer is never removed from the database before it is archived.
+ */
+@Component
+@Slf4j
+public class CustomerArchive {
+
+    private static final String SEGMENT_SUFFIX = ".gz";
+    private static final String PENDING_SUFFIX = ".pending";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final int INDEX_ENTRY_BYTES = 24;
+
+    private final Path directory;
+    private final long segmentSize;
+
+    private long lastSegmentTime;
+    private Path segment;
+    private FileChannel segmentChannel;
+    private FileChannel pendingChannel;
+    private final Map<UUID, Long> pendingOffsets = new HashMap<>();
+
+    public CustomerArchive(@Value("${customer.archive.dir:archive}") Path directory,
+                           @Value("${customer.archive.segment-size:256MB}") DataSize segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize.toBytes();
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> pending = Files.list(directory)) {
+                for (Path path : pending.filter(p -> p.toString().endsWith(PENDING_SUFFIX)).toList()) {
+                    log.info("Sealing archive segment {} left open", path);
+                    writeIndex(path, readPending(path));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open customer archive in " + directory, e);
+        }
+    }
+
+    /**
+     * Appends {@code customers} as one gzip member of the open segment.
+     */
+    public synchronized void append(List<ArchivedCustomer> customers) throws IOException {
+        if (customers.isEmpty()) {
+            return;
+        }
+        if (segment == null) {
+            open();
+        }
+        long offset = segmentChannel.size();
+        // The member must end before the channel is forced, but the channel stays open
+        OutputStream member = new FilterOutputStream(Channels.newOutputStream(segmentChannel)) {
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                out.write(bytes, offset, length);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+        try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(member, 64 * 1024), StandardCharsets.UTF_8)) {
+            for (ArchivedCustomer customer : customers) {
+                writer.write(customer.getId().toString());
+                writer.write('\t');
+                writer.write(customer.getJson());
+                writer.write('\n');
+            }
+        }
+        segmentChannel.force(false);
+
+        ByteBuffer entries = ByteBuffer.allocate(customers.size() * INDEX_ENTRY_BYTES);
+        for (ArchivedCustomer customer : customers) {
+            putEntry(entries, customer.getId(), offset);
+            pendingOffsets.put(customer.getId(), offset);
+        }
+        entries.flip();
+        while (entries.hasRemaining()) {
+            pendingChannel.write(entries);
+        }
+        pendingChannel.force(false);
+
+        if (segmentChannel.size() >= segmentSize) {
+            seal();
+        }
+    }
+
+    /**
+     * Closes the open segment and writes its index. The next append starts a new segment.
+     */
+    public synchronized void seal() throws IOException {
+        if (segment == null) {
+            return;
+        }
+        segmentChannel.close();
+        pendingChannel.close();
+        writeIndex(pendingPath(segment), pendingOffsets);
+        segment = null;
+        pendingOffsets.clear();
+    }
+
+    /**
+     * The most recently archived copy of customer {@code id}.
+     */
+    public synchronized Optional<ArchivedCustomer> find(UUID id) throws IOException {
+        Long offset = pendingOffsets.get(id);
+        if (offset != null) {
+            return read(segment, offset, id);
+        }
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(directory)) {
+            segments = files.filter(p -> p.toString().endsWith(INDEX_SUFFIX))
+                    .sorted(Comparator.comparing(Path::toString).reversed())
+                    .toList();
+        }
+        for (Path index : segments) {
+            long found = search(index, id);
+            if (found >= 0) {
+                String name = index.getFileName().toString();
+                return read(index.resolveSibling(name.substring(0, name.length() - INDEX_SUFFIX.length()) + SEGMENT_SUFFIX),
+                        found, id);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private void open() throws IOException {
+        // Names sort by creation time, so the newest copy of a customer is found first
+        lastSegmentTime = Math.max(System.currentTimeMillis(), lastSegmentTime + 1);
+        segment = directory.resolve("customers-" + lastSegmentTime + SEGMENT_SUFFIX);
+        segmentChannel = FileChannel.open(segment, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        pendingChannel = FileChannel.open(pendingPath(segment), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    private static Optional<ArchivedCustomer> read(Path segment, long offset, UUID id) throws IOException {
+        String prefix = id.toString() + '\t';
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            channel.position(offset);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(Channels.newInputStream(channel)), StandardCharsets.UTF_8));
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (line.startsWith(prefix)) {
+                    return Optional.of(new ArchivedCustomer(id, line.substring(prefix.length())));
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Binary search of a sealed segment's index.
+     *
+     * @return the offset of the member holding {@code id}, or -1
+     */
+    private static long search(Path index, UUID id) throws IOException {
+        try (FileChannel channel = FileChannel.open(index, StandardOpenOption.READ)) {
+            ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_BYTES);
+            long low = 0;
+            long high = channel.size() / INDEX_ENTRY_BYTES - 1;
+            while (low <= high) {
+                long mid = (low + high) >>> 1;
+                entry.clear();
+                channel.read(entry, mid * INDEX_ENTRY_BYTES);
+                entry.flip();
+                int comparison = new UUID(entry.getLong(), entry.getLong()).compareTo(id);
+                if (comparison == 0) {
+                    return entry.getLong();
+                } else if (comparison < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static Map<UUID, Long> readPending(Path pending) throws IOException {
+        ByteBuffer entries = ByteBuffer.wrap(Files.readAllBytes(pending));
+        Map<UUID, Long> offsets = new HashMap<>();
+        // A torn entry at the end belongs to a batch that was never removed from the database
+        while (entries.remaining() >= INDEX_ENTRY_BYTES) {
+            offsets.put(new UUID(entries.getLong(), entries.getLong()), entries.getLong());
+        }
+        return offsets;
+    }
+
+    private static void writeIndex(Path pending, Map<UUID, Long> offsets) throws IOException {
+        String name = pending.getFileName().toString();
+        Path index = pending.resolveSibling(name.substring(0, name.length() - SEGMENT_SUFFIX.length() - PENDING_SUFFIX.length())
+                + INDEX_SUFFIX);
+        List<UUID> ids = new ArrayList<>(offsets.keySet());
+        ids.sort(null);
+        ByteBuffer entries = ByteBuffer.allocate(ids.size() * INDEX_ENTRY_BYTES);
+        ids.forEach(id -> putEntry(entries, id, offsets.get(id)));
+
+        Path temporary = index.resolveSibling(index.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            entries.flip();
+            while (entries.hasRemaining()) {
+                channel.write(entries);
+            }
+            channel.force(false);
+        }
+        Files.move(temporary, index, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        Files.delete(pending);
+    }
+
+    private static void putEntry(ByteBuffer buffer, UUID id, long offset) {
+        buffer.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits()).putLong(offset);
+    }
+
+    private static Path pendingPath(Path segment) {
+        return segment.resolveSibling(segment.getFileName() + PENDING_SUFFIX);
+    }
+}
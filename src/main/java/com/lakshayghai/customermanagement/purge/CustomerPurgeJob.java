@@ -0,0 +1,127 @@
+package com.lakshayghai.customermanagement.purge;
+
+import com.lakshayghai.customermanagement.sharding.ShardRouter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Removes deleted customers off-peak. Each batch locks a few deleted customers, archives them to
+ * the {@link CustomerArchive} and deletes them in one short transaction, then pauses, so purging
+ * never holds many locks or competes with daytime traffic. A run stops when nothing is left or its
+ * time is up; the remainder waits for the next run.
+ */
+@Component
+@Slf4j
+public class CustomerPurgeJob {
+
+    private final CustomerPurgeStore customerPurgeStore;
+    private final CustomerArchive customerArchive;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Duration gracePeriod;
+    private final int batchSize;
+    private final Duration pause;
+    private final Duration maxDuration;
+    private final Timer batchTimer;
+    private final Counter purged;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public CustomerPurgeJob(CustomerPurgeStore customerPurgeStore, CustomerArchive customerArchive, ShardRouter shardRouter,
+                            PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                            @Value("${customer.purge.enabled:true}") boolean enabled,
+                            @Value("${customer.purge.grace-period:PT24H}") Duration gracePeriod,
+                            @Value("${customer.purge.batch-size:200}") int batchSize,
+                            @Value("${customer.purge.pause:PT0.1S}") Duration pause,
+                            @Value("${customer.purge.max-duration:PT4H}") Duration maxDuration) {
+        this.customerPurgeStore = customerPurgeStore;
+        this.customerArchive = customerArchive;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.gracePeriod = gracePeriod;
+        this.batchSize = batchSize;
+        this.pause = pause;
+        this.maxDuration = maxDuration;
+        // How long each batch holds its row locks
+        this.batchTimer = Timer.builder("customer.purge.batch").register(meterRegistry);
+        this.purged = Counter.builder("customer.purge.purged").register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${customer.purge.cron:0 0 2 * * *}")
+    public void scheduledPurge() {
+        if (enabled) {
+            purge();
+        }
+    }
+
+    /**
+     * Purges customers deleted longer than the grace period ago, unless a purge is already running.
+     *
+     * @return the number of customers purged
+     */
+    public long purge() {
+        if (!running.compareAndSet(false, true)) {
+            return 0;
+        }
+        long total = 0;
+        long deadline = System.nanoTime() + maxDuration.toNanos();
+        LocalDateTime deletedBefore = LocalDateTime.now().minus(gracePeriod);
+        try {
+            while (System.nanoTime() < deadline) {
+                long batch = shardRouter.scatter(shard -> transactionTemplate.execute(status -> purgeBatch(deletedBefore)))
+                        .stream().mapToLong(Integer::longValue).sum();
+                total += batch;
+                if (batch == 0) {
+                    break;
+                }
+                Thread.sleep(pause.toMillis());
+            }
+            customerArchive.seal();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            log.error("Customer purge failed after {} customers", total, e);
+        } finally {
+            running.set(false);
+        }
+        log.info("Purged {} deleted customers", total);
+        return total;
+    }
+
+    /**
+     * Runs in a transaction on one shard.
+     */
+    private int purgeBatch(LocalDateTime deletedBefore) {
+        long start = System.nanoTime();
+        List<UUID> ids = customerPurgeStore.lockDeleted(deletedBefore, batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        try {
+            customerArchive.append(customerPurgeStore.loadForArchive(ids));
+        } catch (IOException e) {
+            // Rolls back, so nothing is deleted without being archived
+            throw new UncheckedIOException(e);
+        }
+        int deleted = customerPurgeStore.delete(ids);
+        purged.increment(deleted);
+        batchTimer.record(Duration.ofNanos(System.nanoTime() - start));
+        return deleted;
+    }
+}
@@ -0,0 +1,112 @@
+package com.lakshayghai.customermanagement.purge;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Queries on deleted customers, which entity queries never see. Runs on the shard the current
+ * thread or transaction is bound to.
+ */
+@Component
+public class CustomerPurgeStore {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public CustomerPurgeStore(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    public boolean isDeleted(UUID id) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM customer WHERE id = ? AND deleted_at IS NOT NULL)", Boolean.class, id));
+    }
+
+    /**
+     * Locks up to {@code limit} customers deleted before {@code deletedBefore}, oldest first,
+     * skipping any another purger holds.
+     */
+    List<UUID> lockDeleted(LocalDateTime deletedBefore, int limit) {
+        return jdbcTemplate.queryForList("SELECT id FROM customer WHERE deleted_at IS NOT NULL AND deleted_at < ? "
+                + "ORDER BY deleted_at LIMIT ? FOR UPDATE SKIP LOCKED", UUID.class, deletedBefore, limit);
+    }
+
+    /**
+     * The rows of {@code ids} and their phone numbers, as stored in the archive.
+     */
+    List<ArchivedCustomer> loadForArchive(Collection<UUID> ids) {
+        return jdbcTemplate.query("SELECT c.id, json_build_object('customer', row_to_json(c), 'phoneNumbers', "
+                        + "COALESCE((SELECT json_agg(p) FROM phone_number p WHERE p.customer_id = c.id), '[]'::json)) "
+                        + "FROM customer c WHERE c.id = ANY (?::uuid[])",
+                (rs, row) -> new ArchivedCustomer(rs.getObject(1, UUID.class), rs.getString(2)), (Object) uuids(ids));
+    }
+
+    /**
+     * Removes {@code ids} and their phone numbers; their duplicate cluster entries cascade.
+     */
+    int delete(Collection<UUID> ids) {
+        String[] array = uuids(ids);
+        jdbcTemplate.update("DELETE FROM phone_number WHERE customer_id = ANY (?::uuid[])", (Object) array);
+        return jdbcTemplate.update("DELETE FROM customer WHERE id = ANY (?::uuid[])", (Object) array);
+    }
+
+    /**
+     * Clears the deletion mark of customer {@code id}.
+     *
+     * @return false if it is not deleted
+     */
+    public boolean undelete(UUID id) {
+        return jdbcTemplate.update("UPDATE customer SET deleted_at = NULL WHERE id = ? AND deleted_at IS NOT NULL", id) == 1;
+    }
+
+    /**
+     * Email address of deleted customer {@code id}, or null.
+     */
+    public String findDeletedEmail(UUID id) {
+        return jdbcTemplate.query("SELECT email_address FROM customer WHERE id = ? AND deleted_at IS NOT NULL",
+                rs -> rs.next() ? rs.getString(1) : null, id);
+    }
+
+    /**
+     * Inserts an archived customer and its phone numbers again, as live rows.
+     */
+    public void insert(ArchivedCustomer archived) {
+        JsonNode record = parse(archived);
+        ObjectNode customer = (ObjectNode) record.get("customer");
+        customer.putNull("deleted_at");
+        jdbcTemplate.update("INSERT INTO customer SELECT * FROM json_populate_record(NULL::customer, ?::json)",
+                customer.toString());
+        jdbcTemplate.update("INSERT INTO phone_number SELECT * FROM json_populate_recordset(NULL::phone_number, ?::json)",
+                record.get("phoneNumbers").toString());
+    }
+
+    /**
+     * Email address stored with an archived customer.
+     */
+    public String emailOf(ArchivedCustomer archived) {
+        return parse(archived).path("customer").path("email_address").asText();
+    }
+
+    private JsonNode parse(ArchivedCustomer archived) {
+        try {
+            return objectMapper.readTree(archived.getJson());
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String[] uuids(Collection<UUID> ids) {
+        return ids.stream().map(UUID::toString).toArray(String[]::new);
+    }
+}
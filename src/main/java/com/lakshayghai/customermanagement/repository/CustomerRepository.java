@@ -1,11 +1,15 @@
 package com.lakshayghai.customermanagement.repository;
 
 import com.lakshayghai.customermanagement.entity.Customer;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -14,11 +18,26 @@ import java.util.UUID;
 public interface CustomerRepository extends JpaRepository<Customer, UUID> {
     boolean existsByEmailAddress(String emailAddress);
 
-    @Override
     @Query("SELECT DISTINCT c FROM Customer c LEFT JOIN FETCH c.phoneNumbers")
-    List<Customer> findAll();
+    List<Customer> findAllWithPhoneNumbers();
 
     @Query("SELECT c FROM Customer c LEFT JOIN FETCH c.phoneNumbers WHERE c.id = :id")
     Optional<Customer> findByIdWithPhoneNumbers(@Param("id") UUID id);
+
+    /**
+     * Locks the customer row until the transaction ends, serializing writes with shard moves.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Customer c WHERE c.id = :id")
+    Optional<Customer> findByIdForUpdate(@Param("id") UUID id);
+
+    @Query("SELECT DISTINCT c FROM Customer c LEFT JOIN FETCH c.phoneNumbers WHERE c.id IN :ids")
+    List<Customer> findAllByIdWithPhoneNumbers(@Param("ids") Collection<UUID> ids);
+
+    @Query("SELECT c.id FROM Customer c ORDER BY c.id")
+    List<UUID> findIds(Limit limit);
+
+    @Query("SELECT c.id FROM Customer c WHERE c.id > :after ORDER BY c.id")
+    List<UUID> findIdsAfter(@Param("after") UUID after, Limit limit);
 }
 
@@ -0,0 +1,93 @@
+package com.lakshayghai.customermanagement.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lakshayghai.customermanagement.model.IdempotentResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Shared idempotency records for multi-node deployments, backed by the {@code idempotency_key} table.
+ * A row without a status code is a claim held by the node currently executing the request.
+ */
+@Repository
+@ConditionalOnProperty(name = "customer.idempotency.jdbc.enabled", havingValue = "true")
+public class IdempotencyKeyRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public IdempotencyKeyRepository(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Claims the key for this node. Expired records and claims abandoned for longer than
+     * {@code inFlightTimeout} are taken over.
+     *
+     * @return true if the caller now owns the key
+     */
+    public boolean claim(String key, String requestFingerprint, Duration ttl, Duration inFlightTimeout) {
+        Instant now = Instant.now();
+        return jdbcTemplate.update("""
+                INSERT INTO idempotency_key (idempotency_key, request_fingerprint, claimed_at, expires_at)
+                VALUES (?, ?, ?, ?)
+                ON CONFLICT (idempotency_key) DO UPDATE
+                    SET request_fingerprint = EXCLUDED.request_fingerprint, claimed_at = EXCLUDED.claimed_at,
+                        expires_at = EXCLUDED.expires_at, status_code = NULL, response_body = NULL
+                    WHERE idempotency_key.expires_at < EXCLUDED.claimed_at
+                       OR (idempotency_key.status_code IS NULL AND idempotency_key.claimed_at < ?)
+                """,
+                key, requestFingerprint, Timestamp.from(now), Timestamp.from(now.plus(ttl)),
+                Timestamp.from(now.minus(inFlightTimeout))) == 1;
+    }
+
+    /**
+     * @return the stored record; a response with a status code of 0 means another node still holds the claim
+     */
+    public Optional<IdempotentResponse> find(String key) {
+        List<IdempotentResponse> rows = jdbcTemplate.query(
+                "SELECT request_fingerprint, status_code, response_body FROM idempotency_key WHERE idempotency_key = ?",
+                (rs, rowNum) -> new IdempotentResponse(rs.getString("request_fingerprint"), rs.getInt("status_code"),
+                        readBody(rs.getString("response_body"))),
+                key);
+        return rows.stream().findFirst();
+    }
+
+    public void complete(String key, IdempotentResponse response) {
+        jdbcTemplate.update("UPDATE idempotency_key SET status_code = ?, response_body = ? WHERE idempotency_key = ?",
+                response.getStatusCode(), writeBody(response.getBody()), key);
+    }
+
+    public void release(String key) {
+        jdbcTemplate.update("DELETE FROM idempotency_key WHERE idempotency_key = ? AND status_code IS NULL", key);
+    }
+
+    public int deleteExpired() {
+        return jdbcTemplate.update("DELETE FROM idempotency_key WHERE expires_at < ?", Timestamp.from(Instant.now()));
+    }
+
+    private String writeBody(Object body) {
+        try {
+            return body == null ? null : objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to store idempotent response", e);
+        }
+    }
+
+    private Object readBody(String body) {
+        try {
+            return body == null ? null : objectMapper.readTree(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to read idempotent response", e);
+        }
+    }
+}
@@ -1,13 +1,29 @@
 package com.lakshayghai.customermanagement.repository;
 
 import com.lakshayghai.customermanagement.entity.PhoneNumber;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface PhoneNumberRepository extends JpaRepository<PhoneNumber, UUID> {
+    long countByCustomerId(UUID customerId);
 
+    List<PhoneNumber> findByCustomerIdAndIdIn(UUID customerId, Collection<UUID> ids);
+
+    List<PhoneNumber> findByCustomerIdOrderById(UUID customerId, Limit limit);
+
+    List<PhoneNumber> findByCustomerIdAndIdGreaterThanOrderById(UUID customerId, UUID after, Limit limit);
+
+    @Modifying
+    @Query("DELETE FROM PhoneNumber p WHERE p.customer.id = :customerId AND p.id IN :ids")
+    int deleteByCustomerIdAndIdIn(@Param("customerId") UUID customerId, @Param("ids") Collection<UUID> ids);
 }
 
@@ -0,0 +1,135 @@
+package com.lakshayghai.customermanagement.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.lakshayghai.customermanagement.entity.Customer;
+import com.lakshayghai.customermanagement.history.CustomerChanges;
+import com.lakshayghai.customermanagement.history.CustomerHistoryStore;
+import com.lakshayghai.customermanagement.model.CustomerHistoryEntry;
+import com.lakshayghai.customermanagement.model.CustomerHistoryPage;
+import com.lakshayghai.customermanagement.repository.CustomerRepository;
+import com.lakshayghai.customermanagement.sharding.ShardRouter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+@Service
+public class CustomerHistoryService {
+
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final char CURSOR_SEPARATOR = '_';
+
+    private final CustomerHistoryStore customerHistoryStore;
+    private final CustomerRepository customerRepository;
+    private final ShardRouter shardRouter;
+    private final ObjectMapper objectMapper;
+    private final int retentionMonths;
+
+    public CustomerHistoryService(CustomerHistoryStore customerHistoryStore, CustomerRepository customerRepository,
+                                  ShardRouter shardRouter, ObjectMapper objectMapper,
+                                  @Value("${customer.history.retention-months:24}") int retentionMonths) {
+        this.customerHistoryStore = customerHistoryStore;
+        this.customerRepository = customerRepository;
+        this.shardRouter = shardRouter;
+        this.objectMapper = objectMapper;
+        this.retentionMonths = retentionMonths;
+    }
+
+    /**
+     * Keyset-paginated changes to customer {@code id}, newest first. History outlives the
+     * customer, so deleted customers still have one.
+     */
+    public ResponseEntity<?> getHistory(UUID id, int size, String after) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("size", "Must be between 1 and " + MAX_PAGE_SIZE));
+        }
+        LocalDateTime afterChangedAt = null;
+        int afterShard = 0;
+        long afterSeq = 0;
+        if (after != null) {
+            int seqSeparator = after.lastIndexOf(CURSOR_SEPARATOR);
+            int shardSeparator = after.lastIndexOf(CURSOR_SEPARATOR, seqSeparator - 1);
+            try {
+                afterChangedAt = LocalDateTime.parse(after.substring(0, shardSeparator));
+                afterShard = Integer.parseInt(after.substring(shardSeparator + 1, seqSeparator));
+                afterSeq = Long.parseLong(after.substring(seqSeparator + 1));
+            } catch (DateTimeParseException | NumberFormatException | IndexOutOfBoundsException e) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("after", "Invalid cursor"));
+            }
+        }
+
+        List<CustomerHistoryEntry> entries = customerHistoryStore.findPage(id, afterChangedAt, afterShard, afterSeq, size + 1);
+        if (entries.isEmpty() && after == null && findCustomer(id).isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Customer not found"));
+        }
+        List<CustomerHistoryEntry> content = entries.stream().limit(size).toList();
+        String nextCursor = null;
+        if (entries.size() > size) {
+            CustomerHistoryEntry last = content.get(content.size() - 1);
+            nextCursor = last.getChangedAt().toString() + CURSOR_SEPARATOR + last.getShard() + CURSOR_SEPARATOR + last.getSeq();
+        }
+        return ResponseEntity.ok(new CustomerHistoryPage(content, nextCursor));
+    }
+
+    /**
+     * Customer {@code id} as it was at {@code asOf}: its current state (or nothing, if deleted)
+     * with every later change reverted. Only the partitions holding those changes are read.
+     * Changes older than the retention period may have been dropped, so earlier points are refused.
+     */
+    public ResponseEntity<?> getCustomerAsOf(UUID id, LocalDateTime asOf) {
+        if (retentionMonths > 0) {
+            // The oldest partition CustomerHistoryJob keeps
+            LocalDateTime horizon = YearMonth.now().minusMonths(retentionMonths).atDay(1).atStartOfDay();
+            if (asOf.isBefore(horizon)) {
+                return ResponseEntity.status(HttpStatus.GONE)
+                        .body(Map.of("asOf", "History before " + horizon + " is no longer kept"));
+            }
+        }
+        Optional<Customer> current = findCustomer(id);
+        List<CustomerHistoryEntry> laterChanges = customerHistoryStore.findChangedAfter(id, asOf);
+
+        ObjectNode state;
+        if (current.isPresent()) {
+            state = objectMapper.valueToTree(current.get());
+        } else {
+            state = objectMapper.createObjectNode();
+            state.put("id", id.toString());
+        }
+        for (CustomerHistoryEntry entry : laterChanges) {
+            CustomerChanges.revert(state, entry.getChanges());
+        }
+
+        if (!existedAt(state, asOf)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Customer not found"));
+        }
+        return ResponseEntity.ok(state);
+    }
+
+    /**
+     * Created by {@code asOf}, and not deleted by then: a deleted customer with no later changes
+     * to revert has no fields left.
+     */
+    private static boolean existedAt(ObjectNode state, LocalDateTime asOf) {
+        JsonNode createdAt = state.get("createdAt");
+        if (createdAt == null || createdAt.isNull()) {
+            return false;
+        }
+        return !LocalDateTime.parse(createdAt.asText()).isAfter(asOf);
+    }
+
+    private Optional<Customer> findCustomer(UUID id) {
+        return shardRouter.callOnShard(shardRouter.locate(id, customerRepository::existsById),
+                () -> customerRepository.findByIdWithPhoneNumbers(id));
+    }
+}
@@ -1,42 +1,107 @@
 package com.lakshayghai.customermanagement.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lakshayghai.customermanagement.duplicate.DuplicateDetector;
+import com.lakshayghai.customermanagement.duplicate.DuplicateKeys;
 import com.lakshayghai.customermanagement.entity.Customer;
 import com.lakshayghai.customermanagement.entity.PhoneNumber;
+import com.lakshayghai.customermanagement.history.CustomerChanges;
+import com.lakshayghai.customermanagement.history.CustomerHistoryRecorder;
+import com.lakshayghai.customermanagement.jfr.CustomerOperation;
+import com.lakshayghai.customermanagement.jfr.PhoneNumberDiffEvent;
+import com.lakshayghai.customermanagement.jfr.ValidationEvent;
 import com.lakshayghai.customermanagement.model.CustomerDTO;
+import com.lakshayghai.customermanagement.model.CustomerFields;
+import com.lakshayghai.customermanagement.model.CustomerPage;
 import com.lakshayghai.customermanagement.model.PhoneNumberDTO;
+import com.lakshayghai.customermanagement.model.PhoneNumberPage;
+import com.lakshayghai.customermanagement.purge.ArchivedCustomer;
+import com.lakshayghai.customermanagement.purge.CustomerArchive;
+import com.lakshayghai.customermanagement.purge.CustomerPurgeStore;
 import com.lakshayghai.customermanagement.repository.CustomerRepository;
 import com.lakshayghai.customermanagement.repository.PhoneNumberRepository;
+import com.lakshayghai.customermanagement.sharding.ShardRouter;
+import com.lakshayghai.customermanagement.stats.CustomerCounters;
+import com.lakshayghai.customermanagement.util.UuidOrder;
 import com.lakshayghai.customermanagement.util.ValidationUtil;
 import jakarta.transaction.Transactional;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class CustomerService {
 
+    private static final Set<String> PATCHABLE_FIELDS = Set.of("firstName", "middleName", "lastName", "emailAddress");
+    private static final int MAX_PAGE_SIZE = 500;
+
     private final CustomerRepository customerRepository;
     private final PhoneNumberRepository phoneNumberRepository;
-
-    public CustomerService(CustomerRepository customerRepository, PhoneNumberRepository phoneNumberRepository) {
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ShardRouter shardRouter;
+    private final EmailDirectory emailDirectory;
+    private final PhoneNumberValidator phoneNumberValidator;
+    private final DuplicateDetector duplicateDetector;
+    private final CustomerHistoryRecorder customerHistoryRecorder;
+    private final CustomerPurgeStore customerPurgeStore;
+    private final CustomerArchive customerArchive;
+    private final CustomerCounters customerCounters;
+
+    public CustomerService(CustomerRepository customerRepository, PhoneNumberRepository phoneNumberRepository,
+                           Validator validator, ObjectMapper objectMapper, ShardRouter shardRouter,
+                           EmailDirectory emailDirectory, PhoneNumberValidator phoneNumberValidator,
+                           DuplicateDetector duplicateDetector, CustomerHistoryRecorder customerHistoryRecorder,
+                           CustomerPurgeStore customerPurgeStore, CustomerArchive customerArchive,
+                           CustomerCounters customerCounters) {
         this.customerRepository = customerRepository;
         this.phoneNumberRepository = phoneNumberRepository;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.shardRouter = shardRouter;
+        this.emailDirectory = emailDirectory;
+        this.phoneNumberValidator = phoneNumberValidator;
+        this.duplicateDetector = duplicateDetector;
+        this.customerHistoryRecorder = customerHistoryRecorder;
+        this.customerPurgeStore = customerPurgeStore;
+        this.customerArchive = customerArchive;
+        this.customerCounters = customerCounters;
     }
 
+    @CustomerOperation("create")
     @Transactional(dontRollbackOn = DataIntegrityViolationException.class)
     public ResponseEntity<?> createCustomerWithPhoneNumbers(CustomerDTO customerDTO) {
+        // New customers live on their email's home shard, next to its uniqueness record
+        shardRouter.bind(shardRouter.shardForEmail(customerDTO.getEmailAddress()));
         Map<String, String> errors = new HashMap<>();
+        ValidationEvent validation = ValidationEvent.start();
 
         // Validate email
         if (!ValidationUtil.isValidEmail(customerDTO.getEmailAddress())) {
@@ -44,23 +109,20 @@ public class CustomerService {
         }
 
         // First check if email exists
-        if (customerRepository.existsByEmailAddress(customerDTO.getEmailAddress())) {
+        if (emailDirectory.isTaken(customerDTO.getEmailAddress())) {
             errors.put("emailAddress", "Email address already exists");
+            // Rejected before any phone number was validated
+            validation.finish(0, errors.size());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errors);
         }
 
         // Validate phone numbers
-        List<PhoneNumber> phoneNumbers = new ArrayList<>();
-        for (PhoneNumberDTO phoneDTO : customerDTO.getPhoneNumbers()) {
-            try {
-                PhoneNumber phoneNumber = createPhoneNumberEntity(phoneDTO);
-                phoneNumbers.add(phoneNumber);
-            } catch (IllegalArgumentException ex) {
-                errors.put("phoneNumber", ex.getMessage());
-            }
-        }
+        PhoneNumberValidator.Result phoneValidation = phoneNumberValidator.validate(customerDTO.getPhoneNumbers());
+        List<PhoneNumber> phoneNumbers = phoneValidation.getPhoneNumbers();
+        errors.putAll(phoneValidation.getErrors());
 
         // If validation errors exist, return bad request
+        validation.finish(customerDTO.getPhoneNumbers().size(), errors.size());
         if (!errors.isEmpty()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errors);
         }
@@ -71,7 +133,14 @@ public class CustomerService {
             customer.setMiddleName(customerDTO.getMiddleName());
             customer.setLastName(customerDTO.getLastName());
             customer.setEmailAddress(customerDTO.getEmailAddress());
+            DuplicateKeys.assign(customer);
             customer = customerRepository.save(customer);
+            // Surface a duplicate email the filter let through here rather than at commit
+            customerRepository.flush();
+            if (!emailDirectory.register(customer.getEmailAddress(), customer.getId())) {
+                TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("emailAddress", "Email address already exists"));
+            }
 
             // Associate phone numbers
             Customer finalCustomer = customer;
@@ -79,23 +148,30 @@ public class CustomerService {
             phoneNumberRepository.saveAll(phoneNumbers);
 
             customer.setPhoneNumbers(phoneNumbers);
+            customerCounters.customerAdded(customer);
+            duplicateDetector.checkAfterCommit(customer);
             return ResponseEntity.status(HttpStatus.CREATED).body(customer);
         } catch (DataIntegrityViolationException e) {
             log.error("Data integrity violation while creating customer", e);
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
             Map<String, String> violationErrors = new HashMap<>();
             violationErrors.put("emailAddress", "Email address already exists");
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(violationErrors);
         }
     }
 
+    @CustomerOperation("update")
     @Transactional
     public ResponseEntity<?> updateCustomer(UUID id, CustomerDTO customerDTO) {
-        Optional<Customer> existingCustomerOpt = customerRepository.findById(id);
+        int shard = shardRouter.locate(id, customerRepository::existsById);
+        shardRouter.bind(shard);
+        Optional<Customer> existingCustomerOpt = customerRepository.findByIdForUpdate(id);
         if (existingCustomerOpt.isEmpty()) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Customer not found"));
+            return notFound(id, shard);
         }
 
         Map<String, String> errors = new HashMap<>();
+        ValidationEvent validation = ValidationEvent.start();
 
         // Validate email
         if (!ValidationUtil.isValidEmail(customerDTO.getEmailAddress())) {
@@ -103,28 +179,28 @@ public class CustomerService {
         }
 
         // Validate phone numbers
-        List<PhoneNumber> phoneNumbers = new ArrayList<>();
-        for (PhoneNumberDTO phoneDTO : customerDTO.getPhoneNumbers()) {
-            try {
-                PhoneNumber phoneNumber = createPhoneNumberEntity(phoneDTO);
-                phoneNumbers.add(phoneNumber);
-            } catch (IllegalArgumentException ex) {
-                errors.put("phoneNumber", ex.getMessage());
-            }
-        }
+        PhoneNumberValidator.Result phoneValidation = phoneNumberValidator.validate(customerDTO.getPhoneNumbers());
+        List<PhoneNumber> phoneNumbers = phoneValidation.getPhoneNumbers();
+        errors.putAll(phoneValidation.getErrors());
 
         // If validation errors exist, return bad request
+        validation.finish(customerDTO.getPhoneNumbers().size(), errors.size());
         if (!errors.isEmpty()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errors);
         }
 
         Customer existingCustomer = existingCustomerOpt.get();
+        if (!emailDirectory.change(existingCustomer.getEmailAddress(), customerDTO.getEmailAddress(), id)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("emailAddress", "Email address already exists"));
+        }
 
         // Update customer details
+        CustomerChanges.Snapshot before = CustomerChanges.snapshot(existingCustomer);
         existingCustomer.setFirstName(customerDTO.getFirstName());
         existingCustomer.setMiddleName(customerDTO.getMiddleName());
         existingCustomer.setLastName(customerDTO.getLastName());
         existingCustomer.setEmailAddress(customerDTO.getEmailAddress());
+        DuplicateKeys.assign(existingCustomer);
 
         // Compare and update phone numbers
         List<PhoneNumber> existingPhoneNumbers = existingCustomer.getPhoneNumbers();
@@ -135,6 +211,7 @@ public class CustomerService {
         List<PhoneNumber> toDelete = existingPhoneNumbers.stream()
                 .filter(existingPhone -> !phoneNumbers.contains(existingPhone)) // Remove ones not in new list
                 .collect(Collectors.toList());
+        PhoneNumberDiffEvent.emit(existingPhoneNumbers.size(), toAdd.size(), toDelete.size());
 
         // Delete old phone numbers
         if (!toDelete.isEmpty()) {
@@ -150,41 +227,374 @@ public class CustomerService {
         existingPhoneNumbers.addAll(toAdd);
 
         customerRepository.save(existingCustomer);
+        customerHistoryRecorder.recordUpdate(before, existingCustomer, toAdd, toDelete);
+        customerCounters.phoneNumbersChanged(toAdd, toDelete);
+        duplicateDetector.checkAfterCommit(existingCustomer);
 
         return ResponseEntity.status(HttpStatus.OK).body(existingCustomer);
     }
 
-    private PhoneNumber createPhoneNumberEntity(PhoneNumberDTO phoneDTO) {
-        if (!ValidationUtil.isValidPhoneNumber(phoneDTO.getPhoneNumber(), phoneDTO.getCountryCode())) {
-            throw new IllegalArgumentException("Invalid phone number: " + phoneDTO.getPhoneNumber());
+    /**
+     * Applies a JSON Merge Patch to a customer. Only the supplied fields are validated and,
+     * thanks to {@code @DynamicUpdate}, only changed columns are written. Phone numbers are
+     * edited without resending the list: {@code "phoneNumbers": {"add": [...], "remove": [ids]}}.
+     */
+    @CustomerOperation("patch")
+    @Transactional
+    public ResponseEntity<?> patchCustomer(UUID id, JsonNode patch) {
+        int shard = shardRouter.locate(id, customerRepository::existsById);
+        shardRouter.bind(shard);
+        Optional<Customer> existingCustomerOpt = customerRepository.findByIdForUpdate(id);
+        if (existingCustomerOpt.isEmpty()) {
+            return notFound(id, shard);
+        }
+        if (patch == null || !patch.isObject()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", "Patch document must be a JSON object"));
+        }
+
+        Customer existingCustomer = existingCustomerOpt.get();
+        Map<String, String> errors = new HashMap<>();
+        Map<String, String> changes = new HashMap<>();
+        ValidationEvent validation = ValidationEvent.start();
+
+        // Validate the supplied customer fields only
+        for (Iterator<Map.Entry<String, JsonNode>> it = patch.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = it.next();
+            if (field.getKey().equals("phoneNumbers")) {
+                continue;
+            }
+            if (!PATCHABLE_FIELDS.contains(field.getKey())) {
+                errors.put(field.getKey(), "Field cannot be patched");
+                continue;
+            }
+            if (!field.getValue().isNull() && !field.getValue().isTextual()) {
+                errors.put(field.getKey(), "Must be a string or null");
+                continue;
+            }
+            String value = field.getValue().isNull() ? null : field.getValue().asText();
+            for (ConstraintViolation<CustomerDTO> violation : validator.validateValue(CustomerDTO.class, field.getKey(), value)) {
+                errors.put(field.getKey(), violation.getMessage());
+            }
+            changes.put(field.getKey(), value);
+        }
+
+        String emailAddress = changes.get("emailAddress");
+        if (emailAddress != null && !emailAddress.equals(existingCustomer.getEmailAddress())) {
+            if (!ValidationUtil.isValidEmail(emailAddress)) {
+                errors.put("emailAddress", "Invalid email address: " + emailAddress);
+            } else if (emailDirectory.isTaken(emailAddress)) {
+                errors.put("emailAddress", "Email address already exists");
+            }
+        }
+
+        // Validate phone number operations
+        List<PhoneNumber> toAdd = new ArrayList<>();
+        List<UUID> toRemove = new ArrayList<>();
+        List<PhoneNumber> removed = List.of();
+        JsonNode phoneOperations = patch.get("phoneNumbers");
+        if (phoneOperations != null) {
+            readPhoneOperations(phoneOperations, toAdd, toRemove, errors);
+        }
+        if (errors.isEmpty() && !toRemove.isEmpty()) {
+            // Loaded rather than counted, so the history can restore them
+            removed = phoneNumberRepository.findByCustomerIdAndIdIn(id, toRemove);
+            if (removed.size() != toRemove.size()) {
+                errors.put("phoneNumbers.remove", "Phone number not found for customer");
+            } else if (phoneNumberRepository.countByCustomerId(id) - toRemove.size() + toAdd.size() < 1) {
+                errors.put("phoneNumbers", "At least one phone number is required");
+            }
+        }
+
+        // If validation errors exist, return bad request
+        validation.finish(toAdd.size(), errors.size());
+        if (!errors.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errors);
+        }
+
+        // Update only the supplied customer details
+        CustomerChanges.Snapshot before = CustomerChanges.snapshot(existingCustomer);
+        if (changes.containsKey("firstName")) {
+            existingCustomer.setFirstName(changes.get("firstName"));
+        }
+        if (changes.containsKey("middleName")) {
+            existingCustomer.setMiddleName(changes.get("middleName"));
+        }
+        if (changes.containsKey("lastName")) {
+            existingCustomer.setLastName(changes.get("lastName"));
+        }
+        if (changes.containsKey("emailAddress")) {
+            if (!emailDirectory.change(existingCustomer.getEmailAddress(), emailAddress, id)) {
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("emailAddress", "Email address already exists"));
+            }
+            existingCustomer.setEmailAddress(emailAddress);
+        }
+        DuplicateKeys.assign(existingCustomer);
+
+        // Apply phone number operations without loading the existing list
+        PhoneNumberDiffEvent.emit(-1, toAdd.size(), toRemove.size());
+        if (!toRemove.isEmpty()) {
+            phoneNumberRepository.deleteByCustomerIdAndIdIn(id, toRemove);
         }
+        if (!toAdd.isEmpty()) {
+            toAdd.forEach(phoneNumber -> phoneNumber.setCustomer(existingCustomer));
+            phoneNumberRepository.saveAll(toAdd);
+        }
+
+        customerRepository.saveAndFlush(existingCustomer);
+        customerHistoryRecorder.recordUpdate(before, existingCustomer, toAdd, removed);
+        customerCounters.phoneNumbersChanged(toAdd, removed);
+        Hibernate.initialize(existingCustomer.getPhoneNumbers());
+        duplicateDetector.checkAfterCommit(existingCustomer);
 
-        PhoneNumber phoneNumber = new PhoneNumber();
-        phoneNumber.setPhoneNumber(phoneDTO.getPhoneNumber());
-        phoneNumber.setPhoneType(phoneDTO.getPhoneType());
-        phoneNumber.setCountryCode(phoneDTO.getCountryCode());
-        phoneNumber.setVerified(phoneDTO.isVerified());
-        return phoneNumber;
+        return ResponseEntity.status(HttpStatus.OK).body(existingCustomer);
     }
 
-    public List<Customer> getAllCustomers() {
-        return customerRepository.findAll();
+    /**
+     * 404 for a customer missing from {@code shard}, or 409 if the rebalancer moved it to its home
+     * shard after it was located there, in which case the request can simply be retried.
+     */
+    private ResponseEntity<?> notFound(UUID id, int shard) {
+        int home = shardRouter.shardFor(id);
+        if (home != shard && shardRouter.inNewTransactionOnShard(home, () -> customerRepository.existsById(id))) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "Customer moved to another shard, retry the request"));
+        }
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Customer not found"));
     }
 
-    public ResponseEntity<?> getCustomerById(UUID id) {
-        return customerRepository.findByIdWithPhoneNumbers(id)
-                .<ResponseEntity<?>>map(ResponseEntity::ok)
+    private void readPhoneOperations(JsonNode operations, List<PhoneNumber> toAdd, List<UUID> toRemove,
+                                     Map<String, String> errors) {
+        JsonNode add = operations.path("add");
+        JsonNode remove = operations.path("remove");
+        if (!operations.isObject() || !(add.isMissingNode() || add.isArray()) || !(remove.isMissingNode() || remove.isArray())) {
+            errors.put("phoneNumbers", "Must be an object with 'add' and/or 'remove' arrays");
+            return;
+        }
+
+        for (int i = 0; i < add.size(); i++) {
+            String prefix = "phoneNumbers.add[" + i + "]";
+            try {
+                PhoneNumberDTO phoneDTO = objectMapper.treeToValue(add.get(i), PhoneNumberDTO.class);
+                Set<ConstraintViolation<PhoneNumberDTO>> violations = validator.validate(phoneDTO);
+                if (!violations.isEmpty()) {
+                    violations.forEach(v -> errors.put(prefix + "." + v.getPropertyPath(), v.getMessage()));
+                    continue;
+                }
+                toAdd.add(phoneNumberValidator.toEntity(phoneDTO));
+            } catch (JsonProcessingException | IllegalArgumentException ex) {
+                errors.put(prefix, ex.getMessage());
+            }
+        }
+
+        for (int i = 0; i < remove.size(); i++) {
+            try {
+                toRemove.add(UUID.fromString(remove.get(i).asText()));
+            } catch (IllegalArgumentException ex) {
+                errors.put("phoneNumbers.remove[" + i + "]", "Invalid phone number id");
+            }
+        }
+    }
+
+    public ResponseEntity<?> getCustomerStats() {
+        return ResponseEntity.ok(customerCounters.stats());
+    }
+
+    public ResponseEntity<?> getAllCustomers(CustomerFields fields) {
+        List<Customer> customers = shardRouter.scatter(shard -> fields.includesPhoneNumbers()
+                        ? customerRepository.findAllWithPhoneNumbers()
+                        : customerRepository.findAll()).stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(fields.select(objectMapper, customers));
+    }
+
+    /**
+     * Keyset-paginated customers ordered by id. Each shard returns its next {@code size} ids after
+     * the cursor, the sorted runs are merged, and only the customers on the page are loaded.
+     */
+    public ResponseEntity<?> getCustomerPage(int size, UUID after, CustomerFields fields) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("size", "Must be between 1 and " + MAX_PAGE_SIZE));
+        }
+
+        Limit limit = Limit.of(size + 1);
+        List<List<UUID>> runs = shardRouter.scatter(shard -> after == null
+                ? customerRepository.findIds(limit)
+                : customerRepository.findIdsAfter(after, limit));
+
+        // k-way merge of the per-shard runs, remembering which shard each id came from
+        PriorityQueue<Run> queue = new PriorityQueue<>(Comparator.comparing(Run::head, UuidOrder.UNSIGNED));
+        for (int shard = 0; shard < runs.size(); shard++) {
+            if (!runs.get(shard).isEmpty()) {
+                queue.add(new Run(shard, runs.get(shard).iterator()));
+            }
+        }
+        List<UUID> pageIds = new ArrayList<>(size);
+        Map<Integer, List<UUID>> idsByShard = new HashMap<>();
+        while (pageIds.size() < size && !queue.isEmpty()) {
+            Run run = queue.poll();
+            pageIds.add(run.head);
+            idsByShard.computeIfAbsent(run.shard, shard -> new ArrayList<>()).add(run.head);
+            if (run.advance()) {
+                queue.add(run);
+            }
+        }
+        UUID nextCursor = queue.isEmpty() ? null : pageIds.get(pageIds.size() - 1);
+
+        Map<UUID, Customer> customers = shardRouter.scatter(shard -> !idsByShard.containsKey(shard) ? List.<Customer>of()
+                        : fields.includesPhoneNumbers() ? customerRepository.findAllByIdWithPhoneNumbers(idsByShard.get(shard))
+                        : customerRepository.findAllById(idsByShard.get(shard))).stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toMap(Customer::getId, Function.identity()));
+        List<Customer> content = pageIds.stream()
+                .map(customers::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(fields.select(objectMapper, new CustomerPage(content, nextCursor)));
+    }
+
+    /**
+     * Joins the phone numbers only if {@code fields} asks for them.
+     */
+    public ResponseEntity<?> getCustomerById(UUID id, CustomerFields fields) {
+        return shardRouter.callOnShard(shardRouter.locate(id, customerRepository::existsById),
+                        () -> fields.includesPhoneNumbers()
+                                ? customerRepository.findByIdWithPhoneNumbers(id)
+                                : customerRepository.findById(id))
+                .<ResponseEntity<?>>map(customer -> ResponseEntity.ok(fields.select(objectMapper, customer)))
                 .orElse(ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body(Map.of("error", "Customer not found")));
     }
 
+    /**
+     * Keyset-paginated phone numbers of customer {@code id}, ordered by id.
+     */
+    public ResponseEntity<?> getPhoneNumbers(UUID id, int size, UUID after) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("size", "Must be between 1 and " + MAX_PAGE_SIZE));
+        }
+        Limit limit = Limit.of(size + 1);
+        Optional<List<PhoneNumber>> phoneNumbers = shardRouter.callOnShard(
+                shardRouter.locate(id, customerRepository::existsById), () -> customerRepository.existsById(id)
+                        ? Optional.of(after == null
+                                ? phoneNumberRepository.findByCustomerIdOrderById(id, limit)
+                                : phoneNumberRepository.findByCustomerIdAndIdGreaterThanOrderById(id, after, limit))
+                        : Optional.empty());
+        if (phoneNumbers.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Customer not found"));
+        }
+
+        List<PhoneNumber> content = phoneNumbers.get();
+        UUID nextCursor = null;
+        if (content.size() > size) {
+            content = content.subList(0, size);
+            nextCursor = content.get(size - 1).getId();
+        }
+        return ResponseEntity.ok(new PhoneNumberPage(content, nextCursor));
+    }
+
+    @CustomerOperation("delete")
     @Transactional
     public ResponseEntity<?> deleteCustomer(UUID id) {
-        if (!customerRepository.existsById(id)) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Customer not found"));
+        int shard = shardRouter.locate(id, customerRepository::existsById);
+        shardRouter.bind(shard);
+        if (customerRepository.findByIdForUpdate(id).isEmpty()) {
+            return notFound(id, shard);
+        }
+        // Phone numbers are loaded for the history record, and would be for the cascade anyway
+        Optional<Customer> customer = customerRepository.findByIdWithPhoneNumbers(id);
+        if (shardRouter.isSharded()) {
+            emailDirectory.unregister(customer.get().getEmailAddress());
         }
 
-        customerRepository.deleteById(id);
+        customerHistoryRecorder.recordDelete(customer.get());
+        customerCounters.customerRemoved(customer.get());
+        duplicateDetector.forget(id);
+        // Only marked here; CustomerPurgeJob archives and removes the rows off-peak
+        customer.get().setDeletedAt(LocalDateTime.now());
+        customerRepository.save(customer.get());
         return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
     }
+
+    /**
+     * Brings a deleted customer back: one still waiting to be purged is unmarked, a purged one is
+     * inserted again from the archive. Fails if its email address has been taken since.
+     */
+    @CustomerOperation("restore")
+    @Transactional(dontRollbackOn = DataIntegrityViolationException.class)
+    public ResponseEntity<?> restoreCustomer(UUID id) {
+        shardRouter.bind(shardRouter.locate(id, customerPurgeStore::isDeleted));
+        if (customerRepository.existsById(id)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "Customer is not deleted"));
+        }
+
+        String emailAddress = customerPurgeStore.findDeletedEmail(id);
+        Optional<ArchivedCustomer> archived = Optional.empty();
+        if (emailAddress == null) {
+            archived = findArchived(id);
+            if (archived.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Customer not found"));
+            }
+            emailAddress = customerPurgeStore.emailOf(archived.get());
+        }
+        if (emailDirectory.isTaken(emailAddress) || !emailDirectory.register(emailAddress, id)) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("emailAddress", "Email address already exists"));
+        }
+
+        try {
+            if (archived.isEmpty() && !customerPurgeStore.undelete(id)) {
+                // Purged since its email was read; the purge archives customers before removing them
+                archived = findArchived(id);
+                if (archived.isEmpty()) {
+                    TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+                    return ResponseEntity.status(HttpStatus.CONFLICT)
+                            .body(Map.of("error", "Customer was purged while being restored, retry the request"));
+                }
+            }
+            if (archived.isPresent()) {
+                customerPurgeStore.insert(archived.get());
+            }
+        } catch (DataIntegrityViolationException e) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("emailAddress", "Email address already exists"));
+        }
+        Customer customer = customerRepository.findByIdWithPhoneNumbers(id).orElseThrow();
+        customerHistoryRecorder.recordRestore(customer);
+        customerCounters.customerAdded(customer);
+        duplicateDetector.checkAfterCommit(customer);
+        return ResponseEntity.ok(customer);
+    }
+
+    private Optional<ArchivedCustomer> findArchived(UUID id) {
+        try {
+            return customerArchive.find(id);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static final class Run {
+        private final int shard;
+        private final Iterator<UUID> ids;
+        private UUID head;
+
+        private Run(int shard, Iterator<UUID> ids) {
+            this.shard = shard;
+            this.ids = ids;
+            this.head = ids.next();
+        }
+
+        private UUID head() {
+            return head;
+        }
+
+        private boolean advance() {
+            if (!ids.hasNext()) {
+                return false;
+            }
+            head = ids.next();
+            return true;
+        }
+    }
 }
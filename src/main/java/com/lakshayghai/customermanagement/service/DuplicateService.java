@@ -0,0 +1,85 @@
+package com.lakshayghai.customermanagement.service;
+
+import com.lakshayghai.customermanagement.duplicate.DuplicateStore;
+import com.lakshayghai.customermanagement.entity.Customer;
+import com.lakshayghai.customermanagement.model.DuplicateCluster;
+import com.lakshayghai.customermanagement.model.DuplicateClusterPage;
+import com.lakshayghai.customermanagement.repository.CustomerRepository;
+import com.lakshayghai.customermanagement.sharding.ShardRouter;
+import com.lakshayghai.customermanagement.util.UuidOrder;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+
+@Service
+public class DuplicateService {
+
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private final DuplicateStore duplicateStore;
+    private final CustomerRepository customerRepository;
+    private final ShardRouter shardRouter;
+
+    public DuplicateService(DuplicateStore duplicateStore, CustomerRepository customerRepository,
+                            ShardRouter shardRouter) {
+        this.duplicateStore = duplicateStore;
+        this.customerRepository = customerRepository;
+        this.shardRouter = shardRouter;
+    }
+
+    /**
+     * Keyset-paginated duplicate clusters ordered by cluster id. A cluster's customers may sit on
+     * several shards, so each shard returns its next {@code size} cluster ids and the union is cut
+     * to the page.
+     */
+    public ResponseEntity<?> getDuplicateClusters(int size, UUID after) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("size", "Must be between 1 and " + MAX_PAGE_SIZE));
+        }
+
+        TreeSet<UUID> clusterIds = new TreeSet<>(UuidOrder.UNSIGNED);
+        duplicateStore.findClusterIdsAfter(after, size + 1).forEach(clusterIds::addAll);
+        List<UUID> pageIds = clusterIds.stream().limit(size).toList();
+        UUID nextCursor = clusterIds.size() > size ? pageIds.get(pageIds.size() - 1) : null;
+
+        Map<UUID, List<UUID>> members = pageIds.isEmpty() ? Map.of() : duplicateStore.findMembers(pageIds);
+        // Deleting customers can leave a cluster of one behind
+        List<DuplicateCluster> content = pageIds.stream()
+                .filter(clusterId -> members.getOrDefault(clusterId, List.of()).size() > 1)
+                .map(clusterId -> new DuplicateCluster(clusterId,
+                        members.get(clusterId).stream().sorted(UuidOrder.UNSIGNED).toList()))
+                .toList();
+        return ResponseEntity.ok(new DuplicateClusterPage(content, nextCursor));
+    }
+
+    /**
+     * The other customers in the cluster of customer {@code id}.
+     */
+    public ResponseEntity<?> getDuplicates(UUID id) {
+        if (!shardRouter.callOnShard(shardRouter.locate(id, customerRepository::existsById),
+                () -> customerRepository.existsById(id))) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Customer not found"));
+        }
+
+        UUID clusterId = duplicateStore.findClusterIds(List.of(id)).get(id);
+        List<UUID> others = clusterId == null ? List.of() : duplicateStore.findMembers(List.of(clusterId))
+                .getOrDefault(clusterId, List.of()).stream()
+                .filter(member -> !member.equals(id))
+                .toList();
+        if (others.isEmpty()) {
+            return ResponseEntity.ok(List.of());
+        }
+        List<Customer> customers = shardRouter.scatter(shard -> customerRepository.findAllByIdWithPhoneNumbers(others)).stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparing(Customer::getId, UuidOrder.UNSIGNED))
+                .toList();
+        return ResponseEntity.ok(customers);
+    }
+}
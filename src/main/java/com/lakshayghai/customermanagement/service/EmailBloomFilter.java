@@ -0,0 +1,152 @@
+package com.lakshayghai.customermanagement.service;
+
+import com.lakshayghai.customermanagement.sharding.ShardRouter;
+import com.lakshayghai.customermanagement.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bloom filter over every customer email, consulted before the email-exists query. A definite
+ * "not present" skips the query; the unique constraint (or {@code customer_email} when sharded)
+ * still rejects the rare duplicate that slips through, e.g. one committed by another node.
+ * <p>
+ * The filter is built by streaming the email column once the application is ready, kept current
+ * as emails are registered, and rebuilt periodically so deleted and changed emails age out. Until
+ * the first build completes every email is reported as possibly present.
+ */
+@Component
+@Slf4j
+public class EmailBloomFilter {
+
+    private final JdbcTemplate streamingJdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ShardRouter shardRouter;
+    private final boolean enabled;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final Timer buildTimer;
+    private final Counter negatives;
+    private final Counter positives;
+    private final Counter falsePositives;
+
+    private volatile BloomFilter current;
+    private volatile BloomFilter building;
+
+    public EmailBloomFilter(DataSource dataSource, PlatformTransactionManager transactionManager,
+                            ShardRouter shardRouter, MeterRegistry meterRegistry,
+                            @Value("${customer.email-filter.enabled:true}") boolean enabled,
+                            @Value("${customer.email-filter.expected-insertions:1000000}") long expectedInsertions,
+                            @Value("${customer.email-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                            @Value("${customer.email-filter.fetch-size:10000}") int fetchSize) {
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.shardRouter = shardRouter;
+        this.enabled = enabled;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+
+        this.buildTimer = Timer.builder("customer.email.filter.build").register(meterRegistry);
+        this.negatives = Counter.builder("customer.email.filter.lookups").tag("result", "absent").register(meterRegistry);
+        this.positives = Counter.builder("customer.email.filter.lookups").tag("result", "maybe").register(meterRegistry);
+        this.falsePositives = Counter.builder("customer.email.filter.false-positives").register(meterRegistry);
+        Gauge.builder("customer.email.filter.size", this, f -> f.current == null ? 0 : f.current.sizeInBytes())
+                .baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("customer.email.filter.insertions", this, f -> f.current == null ? 0 : f.current.insertions())
+                .register(meterRegistry);
+        Gauge.builder("customer.email.filter.expected-fpp", this, f -> f.current == null ? 1 : f.current.expectedFalsePositiveRate())
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return false only if no customer has {@code email}
+     */
+    public boolean mightContain(String email) {
+        BloomFilter filter = current;
+        if (filter == null) {
+            return true;
+        }
+        boolean maybe = filter.mightContain(email);
+        (maybe ? positives : negatives).increment();
+        return maybe;
+    }
+
+    /**
+     * Records an email about to be stored. Call it before the storing transaction commits, so a
+     * rebuild running concurrently cannot miss it.
+     */
+    public void add(String email) {
+        BloomFilter filter = current;
+        if (filter != null) {
+            filter.put(email);
+        }
+        BloomFilter next = building;
+        if (next != null) {
+            next.put(email);
+        }
+    }
+
+    /**
+     * Reports that the database disagreed with a "maybe" from {@link #mightContain}.
+     */
+    public void recordFalsePositive() {
+        falsePositives.increment();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    @Scheduled(initialDelayString = "${customer.email-filter.rebuild-interval:PT6H}",
+            fixedDelayString = "${customer.email-filter.rebuild-interval:PT6H}")
+    public void scheduledRebuild() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        try {
+            long rows = shardRouter.scatter(shard -> readOnlyTransaction.execute(status ->
+                            streamingJdbcTemplate.queryForObject("SELECT count(*) FROM customer WHERE deleted_at IS NULL", Long.class)))
+                    .stream().mapToLong(Long::longValue).sum();
+            // Leave room for the customers created until the next rebuild
+            BloomFilter next = new BloomFilter(Math.max(expectedInsertions, rows * 2), falsePositiveRate);
+            building = next;
+            shardRouter.scatter(shard -> readOnlyTransaction.execute(status -> {
+                streamingJdbcTemplate.query("SELECT email_address FROM customer WHERE deleted_at IS NULL", rs -> {
+                    next.put(rs.getString(1));
+                });
+                return null;
+            }));
+            current = next;
+            long elapsed = System.nanoTime() - start;
+            buildTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            log.info("Built email filter over {} customers in {} ms ({} KiB, {} hashes)", rows,
+                    TimeUnit.NANOSECONDS.toMillis(elapsed), next.sizeInBytes() / 1024, next.hashCount());
+        } catch (RuntimeException e) {
+            log.error("Unable to build email filter, keeping the previous one", e);
+        } finally {
+            building = null;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.lakshayghai.customermanagement.service;
+
+import com.lakshayghai.customermanagement.jfr.EmailCheckEvent;
+import com.lakshayghai.customermanagement.repository.CustomerRepository;
+import com.lakshayghai.customermanagement.sharding.ShardRouter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+
+/**
+ * Global email uniqueness.
+ * <p>
+ * Unsharded, the unique constraint on {@code customer.email_address} is enough. Sharded, customers
+ * with the same email may sit on different shards, so each email also gets a {@code customer_email}
+ * record on its home shard, where the primary key enforces uniqueness across the cluster. New
+ * customers are placed on their email's home shard, so both rows are written in one transaction.
+ */
+@Component
+public class EmailDirectory {
+
+    private final CustomerRepository customerRepository;
+    private final ShardRouter shardRouter;
+    private final JdbcTemplate jdbcTemplate;
+    private final EmailBloomFilter emailBloomFilter;
+
+    public EmailDirectory(CustomerRepository customerRepository, ShardRouter shardRouter, JdbcTemplate jdbcTemplate,
+                          EmailBloomFilter emailBloomFilter) {
+        this.customerRepository = customerRepository;
+        this.shardRouter = shardRouter;
+        this.jdbcTemplate = jdbcTemplate;
+        this.emailBloomFilter = emailBloomFilter;
+    }
+
+    public boolean isTaken(String email) {
+        EmailCheckEvent event = EmailCheckEvent.start();
+        if (!emailBloomFilter.mightContain(email)) {
+            return event.finish(false, false);
+        }
+        boolean taken = exists(email);
+        if (!taken) {
+            emailBloomFilter.recordFalsePositive();
+        }
+        return event.finish(true, taken);
+    }
+
+    private boolean exists(String email) {
+        if (!shardRouter.isSharded()) {
+            return customerRepository.existsByEmailAddress(email);
+        }
+        if (existsOn(shardRouter.shardForEmail(email), email)) {
+            return true;
+        }
+        int previous = shardRouter.previousShardForEmail(email);
+        return previous >= 0 && existsOn(previous, email);
+    }
+
+    /**
+     * Records {@code email} as used by {@code customerId}.
+     *
+     * @return false if another customer already uses it
+     */
+    public boolean register(String email, UUID customerId) {
+        emailBloomFilter.add(email);
+        if (!shardRouter.isSharded()) {
+            return true;
+        }
+        int previous = shardRouter.previousShardForEmail(email);
+        if (previous >= 0 && existsOn(previous, email)) {
+            return false;
+        }
+        return shardRouter.inTransactionOnShard(shardRouter.shardForEmail(email), () -> jdbcTemplate.update(
+                "INSERT INTO customer_email (email_address, customer_id) VALUES (?, ?) ON CONFLICT DO NOTHING",
+                email, customerId) == 1);
+    }
+
+    /**
+     * Releases {@code email} when the current transaction commits. The record on the shard the
+     * transaction is bound to is deleted with it, records on other shards right after it.
+     */
+    public void unregister(String email) {
+        if (!shardRouter.isSharded()) {
+            return;
+        }
+        deleteOnCommit(shardRouter.shardForEmail(email), email);
+        int previous = shardRouter.previousShardForEmail(email);
+        if (previous >= 0) {
+            deleteOnCommit(previous, email);
+        }
+    }
+
+    /**
+     * Moves a customer from {@code oldEmail} to {@code newEmail} as part of the current transaction.
+     * If it rolls back, a record for the new email already written on another shard is released.
+     *
+     * @return false if another customer already uses {@code newEmail}
+     */
+    public boolean change(String oldEmail, String newEmail, UUID customerId) {
+        if (oldEmail.equals(newEmail)) {
+            return true;
+        }
+        if (!shardRouter.isSharded()) {
+            emailBloomFilter.add(newEmail);
+            return true;
+        }
+        if (!register(newEmail, customerId)) {
+            return false;
+        }
+        int newHome = shardRouter.shardForEmail(newEmail);
+        if (!shardRouter.isBoundTo(newHome)) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        deleteInNewTransaction(newHome, newEmail);
+                    }
+                }
+            });
+        }
+        unregister(oldEmail);
+        return true;
+    }
+
+    private boolean existsOn(int shard, String email) {
+        return shardRouter.inTransactionOnShard(shard, () -> Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM customer_email WHERE email_address = ?)", Boolean.class, email)));
+    }
+
+    private void deleteOnCommit(int shard, String email) {
+        if (shardRouter.isBoundTo(shard)) {
+            jdbcTemplate.update("DELETE FROM customer_email WHERE email_address = ?", email);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    deleteInNewTransaction(shard, email);
+                }
+            }
+        });
+    }
+
+    private void deleteInNewTransaction(int shard, String email) {
+        shardRouter.inNewTransactionOnShard(shard, () ->
+                jdbcTemplate.update("DELETE FROM customer_email WHERE email_address = ?", email));
+    }
+}
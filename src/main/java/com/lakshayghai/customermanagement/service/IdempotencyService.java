@@ -0,0 +1,243 @@
+package com.lakshayghai.customermanagement.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.lakshayghai.customermanagement.model.IdempotentResponse;
+import com.lakshayghai.customermanagement.repository.IdempotencyKeyRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates retried writes carrying an {@code Idempotency-Key} header.
+ * <p>
+ * The first response for a key is kept in a bounded, TTL-expiring in-memory map and replayed
+ * to retries without touching {@link CustomerService} or the database. Concurrent duplicates
+ * wait on the in-flight request instead of executing it again. When
+ * {@code customer.idempotency.jdbc.enabled} is set, keys are also claimed in the
+ * {@code idempotency_key} table so retries landing on another node are deduplicated too.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_REQUEUED = 8;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final ObjectMapper canonicalMapper;
+    private final Duration ttl;
+    private final Duration inFlightTimeout;
+    private final int maxEntries;
+
+    public IdempotencyService(ObjectProvider<IdempotencyKeyRepository> idempotencyKeyRepository, ObjectMapper objectMapper,
+                              @Value("${customer.idempotency.ttl:PT24H}") Duration ttl,
+                              @Value("${customer.idempotency.in-flight-timeout:PT30S}") Duration inFlightTimeout,
+                              @Value("${customer.idempotency.max-entries:100000}") int maxEntries) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository.getIfAvailable();
+        this.canonicalMapper = objectMapper.copy();
+        this.canonicalMapper.setConfig(canonicalMapper.getSerializationConfig()
+                .with(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+                .with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS));
+        this.ttl = ttl;
+        this.inFlightTimeout = inFlightTimeout;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Runs {@code action} at most once per key and scope, replaying its response to retries.
+     *
+     * @param key     the client supplied idempotency key, may be null
+     * @param scope   the operation the key applies to, e.g. {@code "PUT /customers/{id}"}
+     * @param request the request payload; reusing a key with a different payload is rejected
+     */
+    public ResponseEntity<?> execute(String key, String scope, Object request, Supplier<ResponseEntity<?>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+
+        String storeKey = scope + ' ' + key;
+        String fingerprint = fingerprint(request);
+
+        while (true) {
+            Entry entry = new Entry(storeKey, fingerprint, System.nanoTime() + ttl.toNanos());
+            Entry existing = entries.putIfAbsent(storeKey, entry);
+            if (existing == null) {
+                insertionOrder.add(entry);
+                evictIfFull();
+                return executeOwned(storeKey, entry, action);
+            }
+            if (existing.isExpired(System.nanoTime())) {
+                entries.remove(storeKey, existing);
+                continue;
+            }
+            if (!existing.fingerprint.equals(fingerprint)) {
+                return keyReused();
+            }
+            try {
+                return replay(existing.response.get(inFlightTimeout.toMillis(), TimeUnit.MILLISECONDS));
+            } catch (ExecutionException e) {
+                // The first request failed and was not recorded, so this one may run it
+            } catch (TimeoutException e) {
+                return inProgress();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return inProgress();
+            }
+        }
+    }
+
+    private ResponseEntity<?> executeOwned(String storeKey, Entry entry, Supplier<ResponseEntity<?>> action) {
+        if (idempotencyKeyRepository != null
+                && !idempotencyKeyRepository.claim(storeKey, entry.fingerprint, ttl, inFlightTimeout)) {
+            Optional<IdempotentResponse> stored = idempotencyKeyRepository.find(storeKey);
+            if (stored.isPresent() && stored.get().getStatusCode() != 0) {
+                if (!stored.get().getRequestFingerprint().equals(entry.fingerprint)) {
+                    abandon(storeKey, entry, false);
+                    return keyReused();
+                }
+                entry.response.complete(stored.get());
+                return replay(stored.get());
+            }
+            abandon(storeKey, entry, false);
+            return inProgress();
+        }
+
+        ResponseEntity<?> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            abandon(storeKey, entry, true);
+            throw e;
+        }
+
+        if (response.getStatusCode().is5xxServerError()) {
+            abandon(storeKey, entry, true);
+            return response;
+        }
+
+        IdempotentResponse recorded = new IdempotentResponse(entry.fingerprint, response.getStatusCode().value(), response.getBody());
+        if (idempotencyKeyRepository != null) {
+            idempotencyKeyRepository.complete(storeKey, recorded);
+        }
+        entry.response.complete(recorded);
+        return response;
+    }
+
+    private void abandon(String storeKey, Entry entry, boolean claimed) {
+        entries.remove(storeKey, entry);
+        if (claimed && idempotencyKeyRepository != null) {
+            idempotencyKeyRepository.release(storeKey);
+        }
+        entry.response.completeExceptionally(new IllegalStateException("Request was not recorded"));
+    }
+
+    /**
+     * Drops the oldest recorded entries until the map is back within {@code max-entries}. Every
+     * entry is queued once, when inserted, so this is O(1) amortized; in-flight entries go back to
+     * the end of the queue, at most a few per call. Expired entries are left to {@link #removeExpired()}.
+     */
+    private void evictIfFull() {
+        int requeued = 0;
+        while (entries.size() > maxEntries) {
+            Entry oldest = insertionOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            if (oldest.response.isDone()) {
+                entries.remove(oldest.key, oldest);
+            } else {
+                insertionOrder.add(oldest);
+                if (++requeued >= MAX_REQUEUED) {
+                    return;
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${customer.idempotency.sweep-interval:PT1M}")
+    public void removeExpired() {
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> entry.isExpired(now) && entry.response.isDone());
+        // Entries removed from the map by now are no longer eligible for eviction
+        insertionOrder.removeIf(entry -> entries.get(entry.key) != entry);
+        if (idempotencyKeyRepository != null) {
+            int removed = idempotencyKeyRepository.deleteExpired();
+            log.debug("Removed {} expired idempotency keys", removed);
+        }
+    }
+
+    /**
+     * SHA-256 of the request as JSON with properties and map keys sorted, so equal payloads match
+     * across nodes and restarts while any changed field does not.
+     */
+    private String fingerprint(Object request) {
+        try {
+            byte[] json = canonicalMapper.writeValueAsBytes(request);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to fingerprint idempotent request", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ResponseEntity<?> replay(IdempotentResponse response) {
+        return ResponseEntity.status(response.getStatusCode())
+                .header(REPLAYED_HEADER, "true")
+                .body(response.getBody());
+    }
+
+    private static ResponseEntity<?> keyReused() {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                .body(Map.of("error", IDEMPOTENCY_KEY_HEADER + " was already used for a different request"));
+    }
+
+    private ResponseEntity<?> inProgress() {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header("Retry-After", String.valueOf(Math.max(1, inFlightTimeout.toSeconds())))
+                .body(Map.of("error", "A request with this " + IDEMPOTENCY_KEY_HEADER + " is still in progress"));
+    }
+
+    private static final class Entry {
+        private final String key;
+        private final String fingerprint;
+        private final long expiresAtNanos;
+        private final CompletableFuture<IdempotentResponse> response = new CompletableFuture<>();
+
+        private Entry(String key, String fingerprint, long expiresAtNanos) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAtNanos > 0;
+        }
+    }
+}
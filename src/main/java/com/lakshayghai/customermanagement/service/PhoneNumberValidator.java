@@ -0,0 +1,100 @@
+package com.lakshayghai.customermanagement.service;
+
+import com.lakshayghai.customermanagement.entity.PhoneNumber;
+import com.lakshayghai.customermanagement.model.PhoneNumberDTO;
+import com.lakshayghai.customermanagement.util.ValidationUtil;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Validates a customer's phone numbers and turns them into entities, in input order.
+ * <p>
+ * libphonenumber parsing is CPU bound, so lists of at least {@code parallel-threshold} numbers are
+ * split across a bounded fork-join pool shared by all requests; smaller ones are validated on the
+ * calling thread, where the hand-off would cost more than it saves.
+ */
+@Component
+public class PhoneNumberValidator implements DisposableBean {
+
+    private final int parallelThreshold;
+    private final ForkJoinPool pool;
+
+    public PhoneNumberValidator(@Value("${customer.phone-validation.parallel-threshold:64}") int parallelThreshold,
+                                @Value("${customer.phone-validation.parallelism:0}") int parallelism) {
+        this.parallelThreshold = parallelThreshold;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @return the valid numbers as entities and one error per invalid number, keyed
+     * {@code phoneNumbers[i].phoneNumber}
+     */
+    public Result validate(List<PhoneNumberDTO> phoneDTOs) {
+        Object[] results;
+        if (phoneDTOs.size() < parallelThreshold) {
+            results = phoneDTOs.stream().map(PhoneNumberValidator::validateOne).toArray();
+        } else {
+            results = pool.submit(() -> IntStream.range(0, phoneDTOs.size())
+                    .parallel()
+                    .mapToObj(i -> validateOne(phoneDTOs.get(i)))
+                    .toArray()).join();
+        }
+
+        List<PhoneNumber> phoneNumbers = new ArrayList<>(results.length);
+        Map<String, String> errors = new LinkedHashMap<>();
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] instanceof PhoneNumber phoneNumber) {
+                phoneNumbers.add(phoneNumber);
+            } else {
+                errors.put("phoneNumbers[" + i + "].phoneNumber", (String) results[i]);
+            }
+        }
+        return new Result(phoneNumbers, errors);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the number is not valid for its country
+     */
+    public PhoneNumber toEntity(PhoneNumberDTO phoneDTO) {
+        if (!(validateOne(phoneDTO) instanceof PhoneNumber phoneNumber)) {
+            throw new IllegalArgumentException("Invalid phone number: " + phoneDTO.getPhoneNumber());
+        }
+        return phoneNumber;
+    }
+
+    /**
+     * @return the entity, or the error message
+     */
+    private static Object validateOne(PhoneNumberDTO phoneDTO) {
+        String e164 = ValidationUtil.toE164(phoneDTO.getPhoneNumber(), phoneDTO.getCountryCode());
+        if (e164 == null) {
+            return "Invalid phone number: " + phoneDTO.getPhoneNumber();
+        }
+        PhoneNumber phoneNumber = new PhoneNumber();
+        phoneNumber.setPhoneNumber(phoneDTO.getPhoneNumber());
+        phoneNumber.setE164(e164);
+        phoneNumber.setPhoneType(phoneDTO.getPhoneType());
+        phoneNumber.setCountryCode(phoneDTO.getCountryCode());
+        phoneNumber.setVerified(phoneDTO.isVerified());
+        return phoneNumber;
+    }
+
+    @Override
+    public void destroy() {
+        pool.shutdown();
+    }
+
+    @lombok.Value
+    public static class Result {
+        List<PhoneNumber> phoneNumbers;
+        Map<String, String> errors;
+    }
+}
@@ -0,0 +1,83 @@
+package com.lakshayghai.customermanagement.sharding;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Consistent hash ring with virtual nodes. Node positions depend only on the shard index, so
+ * growing the ring from N to N+1 shards moves roughly 1/(N+1) of the keys.
+ */
+public class ConsistentHashRing {
+
+    private final long[] positions;
+    private final int[] shards;
+    private final int shardCount;
+
+    public ConsistentHashRing(int shardCount, int virtualNodes) {
+        if (shardCount < 1 || virtualNodes < 1) {
+            throw new IllegalArgumentException("Shard count and virtual nodes must be positive");
+        }
+        this.shardCount = shardCount;
+
+        long[][] nodes = new long[shardCount * virtualNodes][];
+        for (int shard = 0; shard < shardCount; shard++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                nodes[shard * virtualNodes + node] = new long[]{mix(shard * 0x9E3779B97F4A7C15L + node), shard};
+            }
+        }
+        Arrays.sort(nodes, (a, b) -> Long.compare(a[0], b[0]));
+
+        this.positions = new long[nodes.length];
+        this.shards = new int[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            positions[i] = nodes[i][0];
+            shards[i] = (int) nodes[i][1];
+        }
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    public int shardFor(UUID id) {
+        return shardForHash(hash(id));
+    }
+
+    public int shardFor(String key) {
+        return shardForHash(hash(key));
+    }
+
+    private int shardForHash(long hash) {
+        int index = Arrays.binarySearch(positions, hash);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return shards[index == positions.length ? 0 : index];
+    }
+
+    static long hash(UUID id) {
+        return mix(id.getMostSignificantBits() ^ mix(id.getLeastSignificantBits()));
+    }
+
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * MurmurHash3 finalizer, spreads sequential inputs over the whole ring.
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
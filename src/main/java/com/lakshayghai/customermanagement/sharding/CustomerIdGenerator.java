@@ -0,0 +1,36 @@
+package com.lakshayghai.customermanagement.sharding;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.EnumSet;
+
+/**
+ * Random UUIDs for customers, drawn so they hash to the shard the creating transaction is bound to.
+ * <p>
+ * Created by Spring through Hibernate's bean container ({@code hibernate.cdi.extensions=true}), so
+ * each persistence unit gets the {@link ShardRouter} of its own application context. The router is
+ * looked up on first use: it depends on the transaction manager, which is still being built when
+ * Hibernate creates its generators.
+ */
+public class CustomerIdGenerator implements BeforeExecutionGenerator {
+
+    private final ObjectProvider<ShardRouter> shardRouter;
+
+    public CustomerIdGenerator(ObjectProvider<ShardRouter> shardRouter) {
+        this.shardRouter = shardRouter;
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+        return shardRouter.getObject().newCustomerId();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
@@ -0,0 +1,17 @@
+package com.lakshayghai.customermanagement.sharding;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates the customer id with {@link CustomerIdGenerator}.
+ */
+@IdGeneratorType(CustomerIdGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface GeneratedCustomerId {
+}
@@ -0,0 +1,175 @@
+package com.lakshayghai.customermanagement.sharding;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Online resharding. After shards are appended to {@code customer.sharding.shards} (with
+ * {@code customer.sharding.previous-shard-count} set to the old count), moves every customer, its
+ * phone numbers, duplicate cluster membership and email records to their new home shard in the
+ * background while the application keeps serving traffic.
+ * <p>
+ * Each batch, customer, phone number and cluster rows alike, is locked on its source shard, copied to the
+ * target shard and committed there, then deleted from the source. Writes lock the customer row
+ * before touching its phone numbers, so they either finish before the batch copies the rows or
+ * wait for it and find the customer gone; the service answers the latter with a 409 that can be
+ * retried against the new shard. Reads find moved customers on the new shard and the rest on the
+ * old one. Once the log reports completion, {@code previous-shard-count} can be removed.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = {"customer.sharding.enabled", "customer.sharding.rebalance.enabled"}, havingValue = "true")
+public class ShardRebalancer implements ApplicationRunner {
+
+    private final ShardRouter shardRouter;
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public ShardRebalancer(ShardRouter shardRouter, JdbcTemplate jdbcTemplate,
+                           @Value("${customer.sharding.rebalance.batch-size:500}") int batchSize) {
+        this.shardRouter = shardRouter;
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Thread.ofPlatform().name("shard-rebalancer").daemon().start(() -> {
+            try {
+                rebalance();
+            } catch (RuntimeException e) {
+                log.error("Shard rebalancing failed, restart to resume", e);
+            }
+        });
+    }
+
+    public void rebalance() {
+        long customers = 0;
+        long emails = 0;
+        for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+            customers += moveCustomers(shard);
+            emails += moveEmails(shard);
+        }
+        log.info("Shard rebalancing complete: moved {} customers and {} email records", customers, emails);
+    }
+
+    private long moveCustomers(int source) {
+        long moved = 0;
+        UUID after = null;
+        while (true) {
+            UUID cursor = after;
+            List<UUID> ids = shardRouter.callOnShard(source, () -> cursor == null
+                    ? jdbcTemplate.queryForList("SELECT id FROM customer ORDER BY id LIMIT ?", UUID.class, batchSize)
+                    : jdbcTemplate.queryForList("SELECT id FROM customer WHERE id > ? ORDER BY id LIMIT ?",
+                    UUID.class, cursor, batchSize));
+            if (ids.isEmpty()) {
+                return moved;
+            }
+            after = ids.get(ids.size() - 1);
+
+            Map<Integer, List<UUID>> byTarget = new HashMap<>();
+            for (UUID id : ids) {
+                int target = shardRouter.shardFor(id);
+                if (target != source) {
+                    byTarget.computeIfAbsent(target, shard -> new ArrayList<>()).add(id);
+                }
+            }
+            for (Map.Entry<Integer, List<UUID>> batch : byTarget.entrySet()) {
+                moved += shardRouter.inNewTransactionOnShard(source, () -> moveCustomerBatch(batch.getValue(), batch.getKey()));
+            }
+            if (moved > 0 && !byTarget.isEmpty()) {
+                log.info("Shard {}: moved {} customers so far", source, moved);
+            }
+        }
+    }
+
+    /**
+     * Runs in a transaction on the source shard, which keeps the rows locked until they are deleted.
+     * Phone numbers are locked too: a write removing one does not touch the customer row, and
+     * without the lock a removal committed mid-batch would be copied back from the stale read.
+     * Cluster rows are locked for the same reason, as merges rewrite them by cluster.
+     */
+    private int moveCustomerBatch(List<UUID> ids, int target) {
+        String in = placeholders(ids.size());
+        Object[] args = ids.toArray();
+        List<Map<String, Object>> customers = jdbcTemplate.queryForList(
+                "SELECT * FROM customer WHERE id IN (" + in + ") FOR UPDATE", args);
+        List<Map<String, Object>> phoneNumbers = jdbcTemplate.queryForList(
+                "SELECT * FROM phone_number WHERE customer_id IN (" + in + ") FOR UPDATE", args);
+        List<Map<String, Object>> duplicates = jdbcTemplate.queryForList(
+                "SELECT * FROM customer_duplicate WHERE customer_id IN (" + in + ") FOR UPDATE", args);
+
+        shardRouter.inNewTransactionOnShard(target, () -> {
+            copy("customer", customers);
+            copy("phone_number", phoneNumbers);
+            copy("customer_duplicate", duplicates);
+            return null;
+        });
+
+        // Phone numbers and cluster rows follow through ON DELETE CASCADE
+        return jdbcTemplate.update("DELETE FROM customer WHERE id IN (" + in + ")", args);
+    }
+
+    private long moveEmails(int source) {
+        long moved = 0;
+        String after = null;
+        while (true) {
+            String cursor = after;
+            List<Map<String, Object>> rows = shardRouter.callOnShard(source, () -> cursor == null
+                    ? jdbcTemplate.queryForList("SELECT * FROM customer_email ORDER BY email_address LIMIT ?", batchSize)
+                    : jdbcTemplate.queryForList("SELECT * FROM customer_email WHERE email_address > ? ORDER BY email_address LIMIT ?",
+                    cursor, batchSize));
+            if (rows.isEmpty()) {
+                return moved;
+            }
+            after = (String) rows.get(rows.size() - 1).get("email_address");
+
+            Map<Integer, List<Map<String, Object>>> byTarget = new HashMap<>();
+            for (Map<String, Object> row : rows) {
+                int target = shardRouter.shardForEmail((String) row.get("email_address"));
+                if (target != source) {
+                    byTarget.computeIfAbsent(target, shard -> new ArrayList<>()).add(row);
+                }
+            }
+            for (Map.Entry<Integer, List<Map<String, Object>>> batch : byTarget.entrySet()) {
+                // Lookups check both the new and the previous home shard, so the copy need not be atomic
+                shardRouter.inNewTransactionOnShard(batch.getKey(), () -> {
+                    copy("customer_email", batch.getValue());
+                    return null;
+                });
+                Object[] emails = batch.getValue().stream().map(row -> row.get("email_address")).toArray();
+                moved += shardRouter.inNewTransactionOnShard(source, () -> jdbcTemplate.update(
+                        "DELETE FROM customer_email WHERE email_address IN (" + placeholders(emails.length) + ")", emails));
+            }
+        }
+    }
+
+    private void copy(String table, List<Map<String, Object>> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<String> columns = new ArrayList<>(rows.get(0).keySet());
+        String sql = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+                + placeholders(columns.size()) + ") ON CONFLICT DO NOTHING";
+        List<Object[]> values = rows.stream()
+                .map(row -> columns.stream().map(row::get).toArray())
+                .toList();
+        jdbcTemplate.batchUpdate(sql, values);
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
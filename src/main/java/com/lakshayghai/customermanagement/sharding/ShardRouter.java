@@ -0,0 +1,224 @@
+package com.lakshayghai.customermanagement.sharding;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Places customers on shards and selects the shard the current thread talks to.
+ * <p>
+ * Customers live on the shard their id hashes to on a {@link ConsistentHashRing}, phone numbers
+ * next to their customer. The selected shard is a thread-local read by {@link ShardRoutingDataSource}
+ * when a connection is first used, so it can be bound at the top of a transactional method. With a
+ * single shard every operation is a no-op and the application behaves as an unsharded one.
+ */
+public class ShardRouter {
+
+    private static final ThreadLocal<Integer> CURRENT_SHARD = new ThreadLocal<>();
+
+    private final ConsistentHashRing ring;
+    private final ConsistentHashRing previousRing;
+    private final TransactionTemplate requiresNew;
+
+    public ShardRouter(int shardCount, int virtualNodes) {
+        this(shardCount, virtualNodes, null, null);
+    }
+
+    public ShardRouter(int shardCount, int virtualNodes, Integer previousShardCount,
+                       PlatformTransactionManager transactionManager) {
+        this.ring = new ConsistentHashRing(shardCount, virtualNodes);
+        this.previousRing = previousShardCount == null || previousShardCount == shardCount
+                ? null : new ConsistentHashRing(previousShardCount, virtualNodes);
+        if (transactionManager != null) {
+            this.requiresNew = new TransactionTemplate(transactionManager);
+            this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        } else {
+            this.requiresNew = null;
+        }
+    }
+
+    public boolean isSharded() {
+        return ring.shardCount() > 1;
+    }
+
+    public int shardCount() {
+        return ring.shardCount();
+    }
+
+    public int shardFor(UUID id) {
+        return isSharded() ? ring.shardFor(id) : 0;
+    }
+
+    /**
+     * Home shard of an email address, which holds its {@code customer_email} uniqueness record.
+     */
+    public int shardForEmail(String email) {
+        return isSharded() ? ring.shardFor(email) : 0;
+    }
+
+    /**
+     * Home shard of an email address before resharding, or -1 if it did not change.
+     */
+    public int previousShardForEmail(String email) {
+        if (previousRing == null) {
+            return -1;
+        }
+        int previous = previousRing.shardFor(email);
+        return previous == ring.shardFor(email) ? -1 : previous;
+    }
+
+    /**
+     * Shard a customer currently lives on. While resharding, customers not yet moved are found
+     * on their previous shard.
+     */
+    public int locate(UUID id, Predicate<UUID> existsOnShard) {
+        int shard = shardFor(id);
+        if (previousRing == null) {
+            return shard;
+        }
+        int previous = previousRing.shardFor(id);
+        if (previous == shard || inTransactionOnShard(shard, () -> existsOnShard.test(id))) {
+            return shard;
+        }
+        return previous;
+    }
+
+    /**
+     * Binds the current transaction to a shard; must be called before its first statement.
+     */
+    public void bind(int shard) {
+        if (!isSharded()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Shard can only be bound inside a transaction");
+        }
+        Integer previous = CURRENT_SHARD.get();
+        CURRENT_SHARD.set(shard);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                restore(previous);
+            }
+        });
+    }
+
+    /**
+     * Runs {@code action} against {@code shard}, outside of any transaction.
+     */
+    public <T> T callOnShard(int shard, Supplier<T> action) {
+        if (!isSharded()) {
+            return action.get();
+        }
+        Integer previous = CURRENT_SHARD.get();
+        CURRENT_SHARD.set(shard);
+        try {
+            return action.get();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * True if the current transaction is bound to {@code shard}.
+     */
+    public boolean isBoundTo(int shard) {
+        return !isSharded() || (Integer.valueOf(shard).equals(CURRENT_SHARD.get())
+                && TransactionSynchronizationManager.isActualTransactionActive());
+    }
+
+    /**
+     * Runs {@code action} in a transaction on {@code shard}: the current one if it is already
+     * bound to that shard, otherwise a new one.
+     */
+    public <T> T inTransactionOnShard(int shard, Supplier<T> action) {
+        return isBoundTo(shard) ? action.get() : inNewTransactionOnShard(shard, action);
+    }
+
+    /**
+     * Runs {@code action} in a new transaction on {@code shard}, suspending the current one.
+     */
+    public <T> T inNewTransactionOnShard(int shard, Supplier<T> action) {
+        if (!isSharded()) {
+            return action.get();
+        }
+        Integer previous = CURRENT_SHARD.get();
+        CURRENT_SHARD.set(shard);
+        try {
+            return requiresNew.execute(status -> action.get());
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Runs {@code action} on every shard in parallel and returns the results in shard order.
+     */
+    public <T> List<T> scatter(IntFunction<T> action) {
+        if (!isSharded()) {
+            return Collections.singletonList(action.apply(0));
+        }
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<T>> futures = new ArrayList<>();
+            for (int shard = 0; shard < shardCount(); shard++) {
+                int target = shard;
+                futures.add(executor.submit(() -> callOnShard(target, () -> action.apply(target))));
+            }
+            List<T> results = new ArrayList<>(futures.size());
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Shard selected for the calling thread, or null for the default shard.
+     */
+    static Integer currentShard() {
+        return CURRENT_SHARD.get();
+    }
+
+    /**
+     * New customer id placed on the shard bound to the current thread, so a customer created
+     * through its email's home shard keeps the customer row and the uniqueness record together.
+     */
+    UUID newCustomerId() {
+        Integer shard = CURRENT_SHARD.get();
+        UUID id = UUID.randomUUID();
+        if (shard == null || !isSharded()) {
+            return id;
+        }
+        while (shardFor(id) != shard) {
+            id = UUID.randomUUID();
+        }
+        return id;
+    }
+
+    private static void restore(Integer previous) {
+        if (previous == null) {
+            CURRENT_SHARD.remove();
+        } else {
+            CURRENT_SHARD.set(previous);
+        }
+    }
+}
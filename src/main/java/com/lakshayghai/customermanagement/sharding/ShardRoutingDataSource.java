@@ -0,0 +1,39 @@
+package com.lakshayghai.customermanagement.sharding;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hands out connections to the shard selected by {@link ShardRouter}, falling back to shard 0,
+ * which also holds the unsharded tables.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardRouter.currentShard();
+    }
+
+    /**
+     * Shard data sources in shard order.
+     */
+    public List<DataSource> getShards() {
+        return getResolvedDataSources().entrySet().stream()
+                .sorted((a, b) -> Integer.compare((Integer) a.getKey(), (Integer) b.getKey()))
+                .map(Map.Entry::getValue)
+                .toList();
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        for (DataSource shard : getResolvedDataSources().values()) {
+            if (shard instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
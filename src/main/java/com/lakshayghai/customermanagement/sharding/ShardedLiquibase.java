@@ -0,0 +1,27 @@
+package com.lakshayghai.customermanagement.sharding;
+
+import liquibase.exception.LiquibaseException;
+import liquibase.integration.spring.SpringLiquibase;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Applies the changelog to every shard, in shard order.
+ */
+public class ShardedLiquibase extends SpringLiquibase {
+
+    private final List<DataSource> shards;
+
+    public ShardedLiquibase(List<DataSource> shards) {
+        this.shards = shards;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws LiquibaseException {
+        for (DataSource shard : shards) {
+            setDataSource(shard);
+            super.afterPropertiesSet();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.lakshayghai.customermanagement.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import liquibase.integration.spring.SpringLiquibase;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Optional horizontal sharding, enabled with {@code customer.sharding.enabled=true} and one
+ * {@code customer.sharding.shards[n].*} entry per Postgres node. Without it a single-shard
+ * {@link ShardRouter} is registered and Boot's own data source and Liquibase setup apply.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    @Bean
+    public ShardRouter shardRouter(ShardingProperties properties, PlatformTransactionManager transactionManager) {
+        if (!properties.isEnabled()) {
+            return new ShardRouter(1, properties.getVirtualNodes());
+        }
+        return new ShardRouter(properties.getShards().size(), properties.getVirtualNodes(),
+                properties.getPreviousShardCount(), transactionManager);
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(name = "customer.sharding.enabled", havingValue = "true")
+    static class ShardedDataSourceConfig {
+
+        @Bean
+        public ShardRoutingDataSource shardRoutingDataSource(ShardingProperties properties) {
+            if (properties.getShards().isEmpty()) {
+                throw new IllegalStateException("customer.sharding.shards must list at least one shard");
+            }
+            Map<Object, Object> targets = new HashMap<>();
+            for (int i = 0; i < properties.getShards().size(); i++) {
+                ShardingProperties.Shard shard = properties.getShards().get(i);
+                HikariDataSource dataSource = new HikariDataSource();
+                dataSource.setPoolName("shard-" + i);
+                dataSource.setJdbcUrl(shard.getUrl());
+                dataSource.setUsername(shard.getUsername());
+                dataSource.setPassword(shard.getPassword());
+                dataSource.setMaximumPoolSize(shard.getMaximumPoolSize());
+                targets.put(i, dataSource);
+            }
+            ShardRoutingDataSource routing = new ShardRoutingDataSource();
+            routing.setTargetDataSources(targets);
+            routing.setDefaultTargetDataSource(targets.get(0));
+            return routing;
+        }
+
+        /**
+         * Defers fetching the physical connection until the first statement, so a transaction can
+         * still be bound to its shard after it has begun.
+         */
+        @Bean
+        @Primary
+        public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+            return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+        }
+
+        @Bean
+        public SpringLiquibase liquibase(ShardRoutingDataSource shardRoutingDataSource,
+                                         @Value("${spring.liquibase.change-log}") String changeLog) {
+            List<DataSource> shards = shardRoutingDataSource.getShards();
+            ShardedLiquibase liquibase = new ShardedLiquibase(shards);
+            liquibase.setChangeLog(changeLog);
+            return liquibase;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.lakshayghai.customermanagement.sharding;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "customer.sharding")
+public class ShardingProperties {
+
+    private boolean enabled;
+
+    private int virtualNodes = 128;
+
+    /**
+     * Shard count before the most recent shards were appended. While set, reads and writes fall
+     * back to the previous placement for customers {@link ShardRebalancer} has not moved yet.
+     */
+    private Integer previousShardCount;
+
+    private List<Shard> shards = new ArrayList<>();
+
+    @Data
+    public static class Shard {
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
@@ -0,0 +1,253 @@
+package com.lakshayghai.customermanagement.stats;
+
+import com.lakshayghai.customermanagement.entity.Customer;
+import com.lakshayghai.customermanagement.entity.PhoneNumber;
+import com.lakshayghai.customermanagement.model.CustomerStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Customer and phone number counts, maintained incrementally so {@code GET /customers/stats} never
+ * touches the customer tables.
+ * <p>
+ * Committed changes land in striped {@link LongAdder}s, cheap under concurrent writes, and are
+ * added to {@code customer_stats} in one batch per flush. Reads combine the stored counts, which
+ * include other nodes' flushes, with this node's unflushed changes. Periodic reconciliation
+ * replaces the stored counts with exact {@code COUNT ... GROUP BY} results, correcting drift from
+ * crashes between commit and flush or from rows changed outside the service.
+ * <p>
+ * The recount already includes changes that nodes have not flushed yet. Unflushed changes are
+ * therefore kept in slices by the time they were committed, and every node drops the slices
+ * older than the last reconciliation on its next flush.
+ */
+@Component
+@Slf4j
+public class CustomerCounters {
+
+    static final String CUSTOMERS = "customers";
+    private static final String PHONE_NUMBERS = "phone_numbers";
+    private static final long SLICE_MILLIS = 10;
+    // Slices this old no longer receive changes and are removed once flushed
+    private static final long SETTLED_SLICES = 100;
+
+    private final CustomerStatsStore customerStatsStore;
+    private final boolean enabled;
+    private final Counter drift;
+
+    private final ConcurrentSkipListMap<Long, ConcurrentHashMap<String, LongAdder>> unflushed = new ConcurrentSkipListMap<>();
+    private volatile Map<String, Long> stored = Map.of();
+    private volatile LocalDateTime reconciledAt;
+
+    public CustomerCounters(CustomerStatsStore customerStatsStore, MeterRegistry meterRegistry,
+                            @Value("${customer.stats.enabled:true}") boolean enabled) {
+        this.customerStatsStore = customerStatsStore;
+        this.enabled = enabled;
+        // Sum of the corrections made by reconciliation
+        this.drift = Counter.builder("customer.stats.drift").register(meterRegistry);
+    }
+
+    /**
+     * Counts a new or restored {@code customer} and its phone numbers once the current
+     * transaction commits.
+     */
+    public void customerAdded(Customer customer) {
+        Map<String, Long> deltas = new HashMap<>();
+        deltas.put(CUSTOMERS, 1L);
+        count(deltas, customer.getPhoneNumbers(), 1);
+        applyAfterCommit(deltas);
+    }
+
+    /**
+     * Stops counting deleted {@code customer}, whose phone numbers must be loaded, once the current
+     * transaction commits.
+     */
+    public void customerRemoved(Customer customer) {
+        Map<String, Long> deltas = new HashMap<>();
+        deltas.put(CUSTOMERS, -1L);
+        count(deltas, customer.getPhoneNumbers(), -1);
+        applyAfterCommit(deltas);
+    }
+
+    public void phoneNumbersChanged(Collection<PhoneNumber> added, Collection<PhoneNumber> removed) {
+        Map<String, Long> deltas = new HashMap<>();
+        count(deltas, added, 1);
+        count(deltas, removed, -1);
+        applyAfterCommit(deltas);
+    }
+
+    /**
+     * Current counts, from memory.
+     */
+    public CustomerStats stats() {
+        Map<String, Long> counts = new HashMap<>(stored);
+        unflushed.values().forEach(slice -> slice.forEach((key, delta) -> counts.merge(key, delta.sum(), Long::sum)));
+
+        long phoneNumbers = 0;
+        Map<String, Long> byCountryCode = new TreeMap<>();
+        Map<String, Long> byType = new TreeMap<>();
+        Map<String, Long> byVerification = new TreeMap<>();
+        for (Map.Entry<String, Long> count : counts.entrySet()) {
+            String[] key = count.getKey().split(":", 4);
+            if (key.length < 4 || !key[0].equals(PHONE_NUMBERS) || count.getValue() == 0) {
+                continue;
+            }
+            phoneNumbers += count.getValue();
+            byCountryCode.merge(key[1], count.getValue(), Long::sum);
+            byVerification.merge(Boolean.parseBoolean(key[2]) ? "verified" : "unverified", count.getValue(), Long::sum);
+            byType.merge(key[3], count.getValue(), Long::sum);
+        }
+        return new CustomerStats(counts.getOrDefault(CUSTOMERS, 0L), phoneNumbers, byCountryCode, byType,
+                byVerification, reconciledAt);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            stored = customerStatsStore.load();
+        } catch (RuntimeException e) {
+            log.error("Unable to load customer stats", e);
+        }
+        if (stored.isEmpty()) {
+            reconcile();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${customer.stats.flush-interval:PT5S}")
+    public void scheduledFlush() {
+        if (enabled) {
+            flush();
+        }
+    }
+
+    @Scheduled(initialDelayString = "${customer.stats.reconcile-interval:PT1H}",
+            fixedDelayString = "${customer.stats.reconcile-interval:PT1H}")
+    public void scheduledReconcile() {
+        if (enabled) {
+            reconcile();
+        }
+    }
+
+    /**
+     * Adds this node's unflushed changes to {@code customer_stats} and reloads it.
+     */
+    public synchronized void flush() {
+        Map<Long, Map<String, Long>> flushed = new HashMap<>();
+        try {
+            Map<String, Long> counts = customerStatsStore.flush(reconciledAt -> {
+                // Included in the recount
+                unflushed.headMap(Math.floorDiv(reconciledAt, SLICE_MILLIS)).clear();
+                return unflushed(flushed);
+            });
+            long settled = System.currentTimeMillis() / SLICE_MILLIS - SETTLED_SLICES;
+            flushed.forEach((slice, deltas) -> {
+                ConcurrentHashMap<String, LongAdder> pending = unflushed.get(slice);
+                // Changes committed since the snapshot stay for the next flush
+                deltas.forEach((key, delta) -> pending.get(key).add(-delta));
+                if (slice < settled && pending.values().stream().allMatch(delta -> delta.sum() == 0)) {
+                    unflushed.remove(slice);
+                }
+            });
+            stored = counts;
+        } catch (RuntimeException e) {
+            log.warn("Unable to flush customer stats, retrying on the next flush", e);
+        }
+    }
+
+    /**
+     * Replaces the stored counts with exact ones.
+     */
+    public synchronized void reconcile() {
+        flush();
+        long start = System.nanoTime();
+        try {
+            CustomerStatsStore.Reconciliation reconciliation = customerStatsStore.reconcile();
+            long corrected = 0;
+            Collection<String> keys = new HashSet<>(reconciliation.getBefore().keySet());
+            keys.addAll(reconciliation.getAfter().keySet());
+            for (String key : keys) {
+                corrected += Math.abs(reconciliation.getAfter().getOrDefault(key, 0L)
+                        - reconciliation.getBefore().getOrDefault(key, 0L));
+            }
+            drift.increment(corrected);
+            stored = reconciliation.getAfter();
+            reconciledAt = LocalDateTime.now();
+            log.info("Reconciled customer stats in {} ms, corrected by {}", (System.nanoTime() - start) / 1_000_000, corrected);
+        } catch (RuntimeException e) {
+            log.error("Unable to reconcile customer stats", e);
+            return;
+        }
+        // Drops this node's changes the recount included
+        flush();
+    }
+
+    static String phoneNumberKey(String countryCode, boolean verified, String phoneType) {
+        // The type goes last: it is the only part that could contain a separator
+        return PHONE_NUMBERS + ':' + countryCode + ':' + verified + ':' + phoneType;
+    }
+
+    /**
+     * Sums the unflushed changes, recording each slice's share in {@code bySlice}.
+     */
+    private Map<String, Long> unflushed(Map<Long, Map<String, Long>> bySlice) {
+        Map<String, Long> deltas = new HashMap<>();
+        unflushed.forEach((slice, pending) -> pending.forEach((key, delta) -> {
+            long sum = delta.sum();
+            if (sum != 0) {
+                bySlice.computeIfAbsent(slice, s -> new HashMap<>()).put(key, sum);
+                deltas.merge(key, sum, Long::sum);
+            }
+        }));
+        deltas.values().removeIf(delta -> delta == 0);
+        return deltas;
+    }
+
+    private static void count(Map<String, Long> deltas, Collection<PhoneNumber> phoneNumbers, long delta) {
+        for (PhoneNumber phoneNumber : phoneNumbers) {
+            deltas.merge(phoneNumberKey(phoneNumber.getCountryCode(), phoneNumber.isVerified(), phoneNumber.getPhoneType()),
+                    delta, Long::sum);
+        }
+    }
+
+    private void applyAfterCommit(Map<String, Long> deltas) {
+        if (!enabled || deltas.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(deltas);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(deltas);
+            }
+        });
+    }
+
+    private void apply(Map<String, Long> deltas) {
+        ConcurrentHashMap<String, LongAdder> slice = unflushed.computeIfAbsent(System.currentTimeMillis() / SLICE_MILLIS,
+                s -> new ConcurrentHashMap<>());
+        deltas.forEach((key, delta) -> slice.computeIfAbsent(key, k -> new LongAdder()).add(delta));
+    }
+}
@@ -0,0 +1,127 @@
+package com.lakshayghai.customermanagement.stats;
+
+import com.lakshayghai.customermanagement.sharding.ShardRouter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.LongFunction;
+
+/**
+ * The {@code customer_stats} table. Counts cover every shard and are kept on the first one, along
+ * with the database time of the last reconciliation.
+ */
+@Component
+public class CustomerStatsStore {
+
+    private static final int SUMMARY_SHARD = 0;
+    private static final String RECONCILED_AT = "reconciled_at";
+    private static final String NOW_MILLIS = "(extract(epoch FROM clock_timestamp()) * 1000)::bigint";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+
+    public CustomerStatsStore(JdbcTemplate jdbcTemplate, ShardRouter shardRouter, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    Map<String, Long> load() {
+        return shardRouter.callOnShard(SUMMARY_SHARD, this::read);
+    }
+
+    /**
+     * Adds the deltas returned by {@code pending} to the stored counts in one batch, waiting for a
+     * running reconciliation. {@code pending} gets the time of the last reconciliation on this
+     * node's clock, or {@link Long#MIN_VALUE}, so it can leave out the changes the recount included.
+     *
+     * @return the stored counts after the flush
+     */
+    Map<String, Long> flush(LongFunction<Map<String, Long>> pending) {
+        return shardRouter.callOnShard(SUMMARY_SHARD, () -> transactionTemplate.execute(status -> {
+            // Conflicts with the lock reconcile holds, not with other flushes
+            jdbcTemplate.execute("LOCK TABLE customer_stats IN ROW EXCLUSIVE MODE");
+            long[] times = jdbcTemplate.queryForObject("SELECT (SELECT stat_value FROM customer_stats WHERE stat_key = ?), "
+                    + NOW_MILLIS, (rs, row) -> new long[]{rs.getObject(1) != null ? rs.getLong(1) : Long.MIN_VALUE, rs.getLong(2)},
+                    RECONCILED_AT);
+            long clockOffset = times[1] - System.currentTimeMillis();
+            Map<String, Long> deltas = pending.apply(times[0] == Long.MIN_VALUE ? Long.MIN_VALUE : times[0] - clockOffset);
+
+            // Sorted, so concurrent flushes from several nodes lock rows in the same order
+            List<Object[]> rows = new TreeMap<>(deltas).entrySet().stream()
+                    .map(delta -> new Object[]{delta.getKey(), delta.getValue()})
+                    .toList();
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate("INSERT INTO customer_stats (stat_key, stat_value) VALUES (?, ?) ON CONFLICT (stat_key) DO UPDATE "
+                        + "SET stat_value = customer_stats.stat_value + EXCLUDED.stat_value, updated_at = now()", rows);
+            }
+            return read();
+        }));
+    }
+
+    /**
+     * Replaces the stored counts with exact ones. Flushes wait until it is done, and the time taken
+     * before counting lets every node drop the changes it has not flushed yet but that the count
+     * already includes.
+     *
+     * @return the counts before and after
+     */
+    Reconciliation reconcile() {
+        return shardRouter.callOnShard(SUMMARY_SHARD, () -> transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("LOCK TABLE customer_stats IN EXCLUSIVE MODE");
+            Map<String, Long> before = read();
+            long reconciledAt = jdbcTemplate.queryForObject("SELECT " + NOW_MILLIS, Long.class);
+            Map<String, Long> after = count();
+            jdbcTemplate.update("DELETE FROM customer_stats");
+            Map<String, Long> rows = new TreeMap<>(after);
+            rows.put(RECONCILED_AT, reconciledAt);
+            jdbcTemplate.batchUpdate("INSERT INTO customer_stats (stat_key, stat_value) VALUES (?, ?)",
+                    rows.entrySet().stream()
+                            .map(count -> new Object[]{count.getKey(), count.getValue()})
+                            .toList());
+            return new Reconciliation(before, after);
+        }));
+    }
+
+    /**
+     * Exact counts of live customers and their phone numbers, over every shard.
+     */
+    private Map<String, Long> count() {
+        Map<String, Long> counts = new HashMap<>();
+        shardRouter.scatter(shard -> {
+            Map<String, Long> shardCounts = new HashMap<>();
+            shardCounts.put(CustomerCounters.CUSTOMERS,
+                    jdbcTemplate.queryForObject("SELECT count(*) FROM customer WHERE deleted_at IS NULL", Long.class));
+            jdbcTemplate.query("SELECT p.country_code, COALESCE(p.is_verified, FALSE), p.phone_type, count(*) "
+                            + "FROM phone_number p JOIN customer c ON c.id = p.customer_id WHERE c.deleted_at IS NULL "
+                            + "GROUP BY p.country_code, COALESCE(p.is_verified, FALSE), p.phone_type",
+                    rs -> {
+                        shardCounts.put(CustomerCounters.phoneNumberKey(rs.getString(1), rs.getBoolean(2), rs.getString(3)),
+                                rs.getLong(4));
+                    });
+            return shardCounts;
+        }).forEach(shardCounts -> shardCounts.forEach((key, count) -> counts.merge(key, count, Long::sum)));
+        return counts;
+    }
+
+    private Map<String, Long> read() {
+        Map<String, Long> counts = new HashMap<>();
+        jdbcTemplate.query("SELECT stat_key, stat_value FROM customer_stats WHERE stat_key <> ?", rs -> {
+            counts.put(rs.getString(1), rs.getLong(2));
+        }, RECONCILED_AT);
+        return counts;
+    }
+
+    @lombok.Value
+    static class Reconciliation {
+        Map<String, Long> before;
+        Map<String, Long> after;
+    }
+}
@@ -0,0 +1,17 @@
+package com.lakshayghai.customermanagement.util;
+
+import java.util.Comparator;
+import java.util.UUID;
+
+public final class UuidOrder {
+
+    /**
+     * Postgres orders UUIDs by their bytes, i.e. as unsigned numbers, unlike {@link UUID#compareTo}.
+     */
+    public static final Comparator<UUID> UNSIGNED = Comparator
+            .comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+            .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+    private UuidOrder() {
+    }
+}
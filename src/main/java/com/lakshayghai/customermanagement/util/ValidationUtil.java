@@ -2,6 +2,7 @@ package com.lakshayghai.customermanagement.util;
 
 import com.google.i18n.phonenumbers.PhoneNumberUtil;
 import com.google.i18n.phonenumbers.NumberParseException;
+import com.google.i18n.phonenumbers.Phonenumber;
 import org.apache.commons.validator.routines.EmailValidator;
 
 public class ValidationUtil {
@@ -16,6 +17,19 @@ public class ValidationUtil {
         }
     }
 
+    /**
+     * @return the number in E.164 format, or null if it is not valid for its country
+     */
+    public static String toE164(String phoneNumber, String countryCode) {
+        try {
+            Phonenumber.PhoneNumber parsed = phoneNumberUtil.parse(phoneNumber, countryCode);
+            return phoneNumberUtil.isValidNumber(parsed)
+                    ? phoneNumberUtil.format(parsed, PhoneNumberUtil.PhoneNumberFormat.E164) : null;
+        } catch (NumberParseException e) {
+            return null;
+        }
+    }
+
     public static boolean isValidEmail(String email) {
         return EmailValidator.getInstance().isValid(email);
     }
@@ -0,0 +1,22 @@
+-- liquibase formatted sql
+
+-- changeset lakshayghai:20261019-4
+-- Blocking keys for duplicate detection; rows written before this change are filled in by the scan job
+ALTER TABLE customer ADD COLUMN email_local_key VARCHAR(255) COLLATE "C";
+ALTER TABLE customer ADD COLUMN name_key VARCHAR(255) COLLATE "C";
+ALTER TABLE phone_number ADD COLUMN e164 VARCHAR(16) COLLATE "C";
+
+-- changeset lakshayghai:20261019-5 runInTransaction:false
+-- Covering indexes, so the scan job's ordered key reads are index-only scans
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_customer_email_local_key ON customer (email_local_key, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_customer_name_key ON customer (name_key, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_phone_number_e164 ON phone_number (e164, customer_id);
+
+-- changeset lakshayghai:20261019-6
+CREATE TABLE IF NOT EXISTS customer_duplicate (
+    customer_id UUID PRIMARY KEY,
+    cluster_id UUID NOT NULL,
+    detected_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (customer_id) REFERENCES customer(id) ON DELETE CASCADE
+);
+CREATE INDEX idx_customer_duplicate_cluster_id ON customer_duplicate (cluster_id);
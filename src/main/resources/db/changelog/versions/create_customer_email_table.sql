@@ -0,0 +1,7 @@
+-- liquibase formatted sql
+
+-- changeset lakshayghai:20261019-3
+CREATE TABLE IF NOT EXISTS customer_email (
+    email_address VARCHAR(255) PRIMARY KEY,
+    customer_id UUID NOT NULL
+);
@@ -0,0 +1,39 @@
+-- liquibase formatted sql
+
+-- changeset lakshayghai:20261019-7
+-- Row-level diffs of customer updates and deletes, one partition per month so retention drops whole tables
+CREATE TABLE IF NOT EXISTS customer_history (
+    seq BIGINT NOT NULL,
+    customer_id UUID NOT NULL,
+    operation VARCHAR(16) NOT NULL,
+    changed_at TIMESTAMP NOT NULL,
+    changes JSONB NOT NULL,
+    PRIMARY KEY (customer_id, changed_at, seq)
+) PARTITION BY RANGE (changed_at);
+
+-- changeset lakshayghai:20261019-8
+-- Written in the changing transaction, then moved to customer_history in batches
+CREATE TABLE IF NOT EXISTS customer_history_outbox (
+    seq BIGSERIAL PRIMARY KEY,
+    customer_id UUID NOT NULL,
+    operation VARCHAR(16) NOT NULL,
+    changed_at TIMESTAMP NOT NULL,
+    changes JSONB NOT NULL
+);
+CREATE INDEX idx_customer_history_outbox_customer_id ON customer_history_outbox (customer_id);
+
+-- changeset lakshayghai:20261019-9 splitStatements:false
+CREATE OR REPLACE FUNCTION create_customer_history_partition(partition_month DATE) RETURNS VOID AS $$
+DECLARE
+    month_start DATE := date_trunc('month', partition_month);
+BEGIN
+    EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF customer_history FOR VALUES FROM (%L) TO (%L)',
+                   'customer_history_' || to_char(month_start, 'YYYYMM'), month_start,
+                   (month_start + INTERVAL '1 month')::date);
+END;
+$$ LANGUAGE plpgsql;
+
+-- changeset lakshayghai:20261019-10
+-- Later months are created ahead of time by CustomerHistoryJob
+SELECT create_customer_history_partition((CURRENT_DATE + make_interval(months => m))::date)
+FROM generate_series(0, 2) AS m;
@@ -0,0 +1,9 @@
+-- liquibase formatted sql
+
+-- changeset lakshayghai:20261019-14
+-- Counts behind GET /customers/stats, kept current by CustomerCounters and reconciled periodically
+CREATE TABLE IF NOT EXISTS customer_stats (
+    stat_key VARCHAR(255) PRIMARY KEY,
+    stat_value BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
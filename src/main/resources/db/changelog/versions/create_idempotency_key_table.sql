@@ -0,0 +1,14 @@
+-- liquibase formatted sql
+
+-- changeset lakshayghai:20261019-1
+CREATE TABLE IF NOT EXISTS idempotency_key (
+    idempotency_key VARCHAR(512) PRIMARY KEY,
+    request_hash INTEGER NOT NULL,
+    status_code INTEGER,
+    response_body TEXT,
+    claimed_at TIMESTAMP NOT NULL,
+    expires_at TIMESTAMP NOT NULL
+);
+
+-- changeset lakshayghai:20261019-2
+CREATE INDEX idx_idempotency_key_expires_at ON idempotency_key (expires_at);
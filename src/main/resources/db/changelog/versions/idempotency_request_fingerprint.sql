@@ -0,0 +1,7 @@
+-- liquibase formatted sql
+
+-- changeset lakshayghai:20261019-15
+-- Requests are matched by the SHA-256 of their canonical JSON; keys recorded with the old hash
+-- no longer match and are answered 422 until they expire
+ALTER TABLE idempotency_key RENAME COLUMN request_hash TO request_fingerprint;
+ALTER TABLE idempotency_key ALTER COLUMN request_fingerprint TYPE VARCHAR(64) USING request_fingerprint::text;
@@ -0,0 +1,15 @@
+-- liquibase formatted sql
+
+-- changeset lakshayghai:20261019-11
+-- Deleted customers stay until CustomerPurgeJob archives and removes them off-peak
+ALTER TABLE customer ADD COLUMN deleted_at TIMESTAMP;
+
+-- changeset lakshayghai:20261019-12 runInTransaction:false
+-- Emails of deleted customers can be reused while they wait to be purged
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS uq_customer_email_address_live ON customer (email_address) WHERE deleted_at IS NULL;
+-- Keyset pages read live ids without visiting the table; the purge job finds deleted rows without scanning live ones
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_customer_live_id ON customer (id) WHERE deleted_at IS NULL;
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_customer_deleted_at ON customer (deleted_at) WHERE deleted_at IS NOT NULL;
+
+-- changeset lakshayghai:20261019-13
+ALTER TABLE customer DROP CONSTRAINT IF EXISTS customer_email_address_key;
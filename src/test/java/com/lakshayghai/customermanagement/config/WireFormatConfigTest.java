@@ -0,0 +1,103 @@
+package com.lakshayghai.customermanagement.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lakshayghai.customermanagement.entity.Customer;
+import com.lakshayghai.customermanagement.entity.PhoneNumber;
+import com.lakshayghai.customermanagement.model.CustomerDTO;
+import com.lakshayghai.customermanagement.model.PhoneNumberDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WireFormatConfigTest {
+
+    private final WireFormatConfig config = new WireFormatConfig();
+
+    private ObjectMapper jsonMapper;
+    private ObjectMapper cborMapper;
+    private ObjectMapper smileMapper;
+    private Customer customer;
+
+    @BeforeEach
+    void setUp() {
+        jsonMapper = new Jackson2ObjectMapperBuilder().build();
+        cborMapper = config.cborHttpMessageConverter(new Jackson2ObjectMapperBuilder()).getObjectMapper();
+        smileMapper = config.smileHttpMessageConverter(new Jackson2ObjectMapperBuilder()).getObjectMapper();
+
+        customer = new Customer();
+        customer.setId(UUID.randomUUID());
+        customer.setFirstName("John");
+        customer.setLastName("Doe");
+        customer.setEmailAddress("john.doe@example.com");
+        customer.setCreatedAt(LocalDateTime.now());
+        customer.setModifiedAt(LocalDateTime.now());
+
+        List<PhoneNumber> phoneNumbers = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            PhoneNumber phoneNumber = new PhoneNumber();
+            phoneNumber.setId(UUID.randomUUID());
+            phoneNumber.setPhoneNumber("+1212555236" + i);
+            phoneNumber.setPhoneType("MOBILE");
+            phoneNumber.setCountryCode("US");
+            phoneNumber.setCreatedAt(LocalDateTime.now());
+            phoneNumber.setModifiedAt(LocalDateTime.now());
+            phoneNumbers.add(phoneNumber);
+        }
+        customer.setPhoneNumbers(phoneNumbers);
+    }
+
+    @Test
+    void binaryFormats_AreSmallerThanJson() throws Exception {
+        int jsonSize = jsonMapper.writeValueAsBytes(customer).length;
+
+        assertTrue(cborMapper.writeValueAsBytes(customer).length < jsonSize);
+        assertTrue(smileMapper.writeValueAsBytes(customer).length < jsonSize);
+    }
+
+    @Test
+    void binaryFormats_RoundTripRequestDto() throws Exception {
+        PhoneNumberDTO phoneNumberDTO = new PhoneNumberDTO();
+        phoneNumberDTO.setPhoneNumber("+12125552368");
+        phoneNumberDTO.setPhoneType("MOBILE");
+        phoneNumberDTO.setCountryCode("US");
+        phoneNumberDTO.setVerified(true);
+
+        CustomerDTO customerDTO = new CustomerDTO();
+        customerDTO.setFirstName("John");
+        customerDTO.setLastName("Doe");
+        customerDTO.setEmailAddress("john.doe@example.com");
+        customerDTO.setPhoneNumbers(List.of(phoneNumberDTO));
+
+        assertEquals(customerDTO, cborMapper.readValue(cborMapper.writeValueAsBytes(customerDTO), CustomerDTO.class));
+        assertEquals(customerDTO, smileMapper.readValue(smileMapper.writeValueAsBytes(customerDTO), CustomerDTO.class));
+    }
+
+    @Test
+    void binaryFormats_PreserveAuditTimestamps() throws Exception {
+        Customer decoded = cborMapper.readValue(cborMapper.writeValueAsBytes(customer), Customer.class);
+
+        assertEquals(customer.getCreatedAt(), decoded.getCreatedAt());
+        assertEquals(customer.getPhoneNumbers().size(), decoded.getPhoneNumbers().size());
+    }
+
+    @Test
+    void binaryConverters_HandleTheirMediaTypesOnly() {
+        var cbor = config.cborHttpMessageConverter(new Jackson2ObjectMapperBuilder());
+        var smile = config.smileHttpMessageConverter(new Jackson2ObjectMapperBuilder());
+
+        assertTrue(cbor.canRead(CustomerDTO.class, MediaType.valueOf("application/cbor")));
+        assertTrue(cbor.canWrite(Customer.class, MediaType.valueOf("application/cbor")));
+        assertFalse(cbor.canWrite(Customer.class, MediaType.APPLICATION_JSON));
+        assertTrue(smile.canRead(CustomerDTO.class, MediaType.valueOf("application/x-jackson-smile")));
+        assertTrue(smile.canWrite(Customer.class, MediaType.valueOf("application/x-jackson-smile")));
+        assertFalse(smile.canWrite(Customer.class, MediaType.APPLICATION_JSON));
+    }
+}
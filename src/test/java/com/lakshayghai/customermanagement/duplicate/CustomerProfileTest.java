@@ -0,0 +1,70 @@
+package com.lakshayghai.customermanagement.duplicate;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CustomerProfileTest {
+
+    @Test
+    void emailLocalKey_CasingDotsAndPlusTag_Ignored() {
+        assertEquals("johnsmith", DuplicateKeys.emailLocalKey("John.Smith+newsletter@Example.com"));
+        assertEquals("johnsmith", DuplicateKeys.emailLocalKey("johnsmith@example.com"));
+        assertEquals("gmail.com", DuplicateKeys.emailDomain("john@GoogleMail.com"));
+    }
+
+    @Test
+    void nameKey_SimilarSoundingLastNames_SameKey() {
+        assertEquals(DuplicateKeys.nameKey("John", "Smith"), DuplicateKeys.nameKey(" john ", "Smyth"));
+        assertNotEquals(DuplicateKeys.nameKey("John", "Smith"), DuplicateKeys.nameKey("Jane", "Smith"));
+        assertNotEquals(DuplicateKeys.nameKey("John", "Smith"), DuplicateKeys.nameKey("John", "Johnson"));
+    }
+
+    @Test
+    void isDuplicateOf_SameEmailUpToCaseAndPlusTag_True() {
+        CustomerProfile a = profile("John", "Smith", "john.smith@example.com");
+        CustomerProfile b = profile("Jonathan", "Smith", "John.Smith+shop@EXAMPLE.com");
+
+        assertTrue(a.isDuplicateOf(b));
+        assertTrue(b.isDuplicateOf(a));
+    }
+
+    @Test
+    void isDuplicateOf_SameLocalPartOtherDomainDifferentName_False() {
+        CustomerProfile a = profile("John", "Smith", "jsmith@example.com");
+        CustomerProfile b = profile("Jane", "Smith", "jsmith@other.org");
+
+        assertFalse(a.isDuplicateOf(b));
+    }
+
+    @Test
+    void isDuplicateOf_SoundAlikeNameSimilarLocalPart_True() {
+        CustomerProfile a = profile("John", "Smith", "jsmith@example.com");
+        CustomerProfile b = profile("John", "Smyth", "jsmith1@other.org");
+
+        assertTrue(a.isDuplicateOf(b));
+    }
+
+    @Test
+    void isDuplicateOf_SameNameUnrelatedEmail_False() {
+        CustomerProfile a = profile("John", "Smith", "jsmith@example.com");
+        CustomerProfile b = profile("John", "Smith", "pottery.fan@other.org");
+
+        assertFalse(a.isDuplicateOf(b));
+    }
+
+    @Test
+    void jaroWinkler_KnownPairs_MatchReferenceValues() {
+        assertEquals(0.961, CustomerProfile.jaroWinkler("martha", "marhta"), 0.001);
+        assertEquals(0.840, CustomerProfile.jaroWinkler("dwayne", "duane"), 0.001);
+        assertEquals(1.0, CustomerProfile.jaroWinkler("same", "same"));
+        assertEquals(0.0, CustomerProfile.jaroWinkler("abc", "xyz"));
+        assertEquals(0.0, CustomerProfile.jaroWinkler("", "xyz"));
+    }
+
+    private static CustomerProfile profile(String firstName, String lastName, String emailAddress) {
+        return CustomerProfile.of(UUID.randomUUID(), firstName, lastName, emailAddress);
+    }
+}
@@ -0,0 +1,147 @@
+package com.lakshayghai.customermanagement.duplicate;
+
+import com.lakshayghai.customermanagement.sharding.ShardRouter;
+import com.lakshayghai.customermanagement.util.UuidOrder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DuplicateScanJobTest {
+
+    private static final int CHUNK_SIZE = 4;
+    private static final int MAX_BLOCK_SIZE = 3;
+    private static final int MAX_PHONE_BLOCK_SIZE = 2;
+
+    @Mock
+    private DuplicateStore duplicateStore;
+
+    private final Map<BlockingKey, List<DuplicateStore.KeyedId>> index = new EnumMap<>(BlockingKey.class);
+    private final Map<UUID, CustomerProfile> profiles = new HashMap<>();
+    private DuplicateScanJob job;
+
+    @BeforeEach
+    void setUp() {
+        for (BlockingKey key : BlockingKey.values()) {
+            index.put(key, new ArrayList<>());
+        }
+        when(duplicateStore.backfillCustomerKeys(any(), anyInt())).thenReturn(List.of());
+        when(duplicateStore.backfillPhoneKeys(any(), anyInt())).thenReturn(List.of());
+        // Serves each key's rows in key order, like the index would
+        when(duplicateStore.readKeys(any(), anyString(), anyBoolean(), anyInt())).thenAnswer(invocation -> {
+            BlockingKey key = invocation.getArgument(0);
+            String from = invocation.getArgument(1);
+            boolean inclusive = invocation.getArgument(2);
+            int limit = invocation.getArgument(3);
+            return index.get(key).stream()
+                    .filter(row -> inclusive ? row.getKey().compareTo(from) >= 0 : row.getKey().compareTo(from) > 0)
+                    .limit(limit)
+                    .toList();
+        });
+        lenient().when(duplicateStore.loadProfiles(any())).thenAnswer(invocation -> {
+            Map<UUID, CustomerProfile> loaded = new HashMap<>();
+            for (UUID id : invocation.<Collection<UUID>>getArgument(0)) {
+                loaded.put(id, profiles.get(id));
+            }
+            return loaded;
+        });
+        job = new DuplicateScanJob(duplicateStore, new ShardRouter(1, 16), CHUNK_SIZE, MAX_BLOCK_SIZE, MAX_PHONE_BLOCK_SIZE, 2);
+    }
+
+    @Test
+    void scan_BlockAcrossChunkBoundary_ComparedWhole() {
+        UUID a = customer("John", "Smith", "jsmith@example.com");
+        UUID b = customer("Ann", "Lee", "ann@example.com");
+        UUID c = customer("Bob", "Ray", "bob@example.com");
+        UUID d = customer("John", "Smith", "j.smith+1@example.com");
+        UUID e = customer("Zed", "Ward", "zed@example.com");
+        // jsmith's block straddles the first chunk of four rows
+        index(BlockingKey.EMAIL_LOCAL_PART, a, b, c, d, e);
+
+        job.scan();
+
+        Map<UUID, UUID> clusters = savedClusters();
+        assertEquals(2, clusters.size());
+        assertEquals(clusters.get(a), clusters.get(d));
+    }
+
+    @Test
+    void scan_SharedPhone_ClustersWithoutComparing() {
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        index.get(BlockingKey.PHONE).add(new DuplicateStore.KeyedId("+12125552368", a));
+        index.get(BlockingKey.PHONE).add(new DuplicateStore.KeyedId("+12125552368", b));
+
+        job.scan();
+
+        assertEquals(Map.of(a, lowest(a, b), b, lowest(a, b)), savedClusters());
+        verify(duplicateStore, never()).loadProfiles(any());
+    }
+
+    @Test
+    void scan_PhoneSharedBeyondPhoneBlockSize_NotClustered() {
+        for (int i = 0; i < MAX_PHONE_BLOCK_SIZE + 1; i++) {
+            index.get(BlockingKey.PHONE).add(new DuplicateStore.KeyedId("+12125552368", UUID.randomUUID()));
+        }
+
+        job.scan();
+
+        assertTrue(savedClusters().isEmpty());
+        assertEquals(1L, job.lastRun().get("oversizedBlocksSkipped"));
+    }
+
+    @Test
+    void scan_OversizedBlock_Skipped() {
+        for (int i = 0; i < CHUNK_SIZE + 2; i++) {
+            index.get(BlockingKey.PHONE).add(new DuplicateStore.KeyedId("+12125552368", UUID.randomUUID()));
+        }
+        UUID a = UUID.randomUUID();
+        UUID b = UUID.randomUUID();
+        index.get(BlockingKey.PHONE).add(new DuplicateStore.KeyedId("+12125552369", a));
+        index.get(BlockingKey.PHONE).add(new DuplicateStore.KeyedId("+12125552369", b));
+
+        job.scan();
+
+        assertEquals(2, savedClusters().size());
+        assertEquals(1L, job.lastRun().get("oversizedBlocksSkipped"));
+    }
+
+    private UUID customer(String firstName, String lastName, String emailAddress) {
+        UUID id = UUID.randomUUID();
+        profiles.put(id, CustomerProfile.of(id, firstName, lastName, emailAddress));
+        return id;
+    }
+
+    private void index(BlockingKey key, UUID... ids) {
+        for (UUID id : ids) {
+            index.get(key).add(new DuplicateStore.KeyedId(profiles.get(id).getEmailLocalKey(), id));
+        }
+        index.get(key).sort((x, y) -> x.getKey().compareTo(y.getKey()));
+    }
+
+    private static UUID lowest(UUID a, UUID b) {
+        return UuidOrder.UNSIGNED.compare(a, b) < 0 ? a : b;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<UUID, UUID> savedClusters() {
+        ArgumentCaptor<Map<UUID, UUID>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(duplicateStore).saveClusters(captor.capture(), any());
+        return captor.getValue();
+    }
+}
@@ -0,0 +1,208 @@
+package com.lakshayghai.customermanagement.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RateLimitFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new RateLimitFilter(meterRegistry, 1, 10, 5, 100, 2, 1, 10, Duration.ofSeconds(1), Duration.ofSeconds(1));
+    }
+
+    private MockHttpServletResponse perform(String method, String path, String remoteAddr) throws Exception {
+        return perform(method, path, remoteAddr, new MockFilterChain());
+    }
+
+    private MockHttpServletResponse perform(String method, String path, String remoteAddr, FilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setServletPath(path);
+        request.setRemoteAddr(remoteAddr);
+        return perform(request, chain);
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequest request, FilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    @Test
+    void tokenBucket_AllowsBurstThenRejects() {
+        TokenBucket bucket = new TokenBucket(10, 5, 0);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, bucket.tryAcquire(1, 0));
+        }
+        assertTrue(bucket.tryAcquire(1, 0) > 0);
+        assertEquals(0, bucket.tryAcquire(1, TimeUnit.MILLISECONDS.toNanos(100)));
+    }
+
+    @Test
+    void concurrencyLimiter_BacksOffOncePerWindow() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 20, 100, 1_000);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        for (int i = 0; i < 4; i++) {
+            limiter.release(1_000, false, 0);
+        }
+        assertEquals(10, limiter.getLimit());
+
+        limiter.release(1_000, false, System.nanoTime() + 1_000);
+
+        assertEquals(9, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void concurrencyLimiter_FastestRequestUnderThreshold_DoesNotBackOff() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 20, 100, 1_000);
+
+        for (int i = 0; i < 6; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        for (int i = 0; i < 5; i++) {
+            limiter.release(1_000, false, 0);
+        }
+        limiter.release(50, false, System.nanoTime() + 1_000);
+
+        assertEquals(11, limiter.getLimit());
+    }
+
+    @Test
+    void concurrencyLimiter_BacksOffOnDrops() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 20, 100, 1_000);
+
+        for (int i = 0; i < 2; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        limiter.release(50, true, 0);
+        limiter.release(50, false, System.nanoTime() + 1_000);
+
+        assertEquals(9, limiter.getLimit());
+    }
+
+    @Test
+    void databaseTime_CountsConnectionsHeldByTheRequest() throws Exception {
+        DataSource target = mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        DataSource dataSource = (DataSource) new DatabaseTime().postProcessAfterInitialization(target, "dataSource");
+
+        dataSource.getConnection().close();
+        LongAdder nanos = DatabaseTime.start();
+        try {
+            Connection connection = dataSource.getConnection();
+            Thread.sleep(5);
+            connection.close();
+            connection.close();
+        } finally {
+            DatabaseTime.stop();
+        }
+
+        assertTrue(nanos.sum() >= TimeUnit.MILLISECONDS.toNanos(5));
+        assertTrue(nanos.sum() < TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    void listRequests_CostMoreThanSingleCustomerRequests() throws Exception {
+        assertEquals(HttpStatus.OK.value(), perform("GET", "/customers", "10.0.0.1").getStatus());
+        assertEquals(HttpStatus.OK.value(), perform("GET", "/customers", "10.0.0.1").getStatus());
+
+        MockHttpServletResponse rejected = perform("GET", "/customers", "10.0.0.1");
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), rejected.getStatus());
+        assertNotNull(rejected.getHeader("Retry-After"));
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(HttpStatus.OK.value(), perform("GET", "/customers/" + i, "10.0.0.2").getStatus());
+        }
+    }
+
+    @Test
+    void clientsAreLimitedIndependently() throws Exception {
+        perform("GET", "/customers", "10.0.0.1");
+        perform("GET", "/customers", "10.0.0.1");
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), perform("GET", "/customers", "10.0.0.1").getStatus());
+        assertEquals(HttpStatus.OK.value(), perform("GET", "/customers", "10.0.0.2").getStatus());
+        assertEquals(1.0, meterRegistry.get("customer.ratelimit.rejected").tag("reason", "rate").counter().count());
+    }
+
+    @Test
+    void clientIdHeader_DoesNotGetAFreshBucket() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/customers");
+            request.setServletPath("/customers");
+            request.setRemoteAddr("10.0.0.1");
+            request.addHeader("X-Client-Id", "rotated-" + i);
+            assertEquals(HttpStatus.OK.value(), perform(request, new MockFilterChain()).getStatus());
+        }
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/customers");
+        request.setServletPath("/customers");
+        request.setRemoteAddr("10.0.0.1");
+        request.addHeader("X-Client-Id", "rotated-2");
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), perform(request, new MockFilterChain()).getStatus());
+    }
+
+    @Test
+    void clientsBeyondMaxClients_ShareOverflowBucketUntilSwept() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new RateLimitFilter(meterRegistry, 1, 10, 5, 1, 2, 1, 10, Duration.ofSeconds(1), Duration.ofSeconds(1));
+        perform("GET", "/customers/0", "10.0.0.1");
+
+        perform("GET", "/customers", "10.0.0.2");
+        perform("GET", "/customers", "10.0.0.3");
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), perform("GET", "/customers", "10.0.0.4").getStatus());
+        assertEquals(1.0, meterRegistry.get("customer.ratelimit.clients").gauge().value());
+    }
+
+    @Test
+    void requestsOverConcurrencyLimit_AreShed() throws Exception {
+        FilterChain third = (request, response) -> {
+            try {
+                assertEquals(HttpStatus.SERVICE_UNAVAILABLE.value(), perform("GET", "/customers/2", "10.0.0.3").getStatus());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        };
+        FilterChain second = (request, response) -> {
+            try {
+                assertEquals(HttpStatus.OK.value(), perform("GET", "/customers/1", "10.0.0.2", third).getStatus());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        };
+
+        assertEquals(HttpStatus.OK.value(), perform("GET", "/customers/0", "10.0.0.1", second).getStatus());
+        assertEquals(1.0, meterRegistry.get("customer.ratelimit.rejected").tag("reason", "concurrency").counter().count());
+    }
+
+    @Test
+    void nonCustomerPaths_AreNotLimited() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            assertEquals(HttpStatus.OK.value(), perform("GET", "/actuator/health", "10.0.0.1").getStatus());
+        }
+    }
+}
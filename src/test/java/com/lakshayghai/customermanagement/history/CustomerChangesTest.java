@@ -0,0 +1,102 @@
+package com.lakshayghai.customermanagement.history;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.lakshayghai.customermanagement.entity.Customer;
+import com.lakshayghai.customermanagement.entity.PhoneNumber;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CustomerChangesTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private Customer customer;
+    private PhoneNumber mobile;
+
+    @BeforeEach
+    void setUp() {
+        customer = new Customer();
+        customer.setId(UUID.randomUUID());
+        customer.setFirstName("John");
+        customer.setLastName("Smith");
+        customer.setEmailAddress("john@example.com");
+        customer.setCreatedAt(LocalDateTime.of(2026, 1, 5, 9, 30));
+        customer.setModifiedAt(LocalDateTime.of(2026, 2, 1, 12, 0));
+        mobile = phone("+12125552368", "MOBILE");
+        customer.setPhoneNumbers(new ArrayList<>(List.of(mobile)));
+    }
+
+    @Test
+    void diff_ChangedFieldsOnly_KeepsBeforeAndAfter() {
+        CustomerChanges.Snapshot before = CustomerChanges.snapshot(customer);
+        customer.setLastName("Smyth");
+        LocalDateTime changedAt = LocalDateTime.of(2026, 3, 1, 8, 0);
+
+        ObjectNode changes = CustomerChanges.diff(objectMapper, before, customer, List.of(), List.of(), changedAt);
+
+        assertEquals(2, changes.size());
+        assertEquals("Smith", changes.get("lastName").get(0).asText());
+        assertEquals("Smyth", changes.get("lastName").get(1).asText());
+        assertEquals("2026-02-01T12:00:00", changes.get("modifiedAt").get(0).asText());
+    }
+
+    @Test
+    void diff_NothingChanged_ReturnsNull() {
+        CustomerChanges.Snapshot before = CustomerChanges.snapshot(customer);
+        customer.setFirstName("John");
+
+        assertNull(CustomerChanges.diff(objectMapper, before, customer, List.of(), List.of(), LocalDateTime.now()));
+    }
+
+    @Test
+    void revert_Update_RestoresPreviousState() {
+        JsonNode original = objectMapper.valueToTree(customer);
+        CustomerChanges.Snapshot before = CustomerChanges.snapshot(customer);
+        PhoneNumber home = phone("+12125552369", "HOME");
+        customer.setMiddleName("Robert");
+        customer.setEmailAddress("john.smith@example.com");
+        customer.setPhoneNumbers(new ArrayList<>(List.of(home)));
+        customer.setModifiedAt(LocalDateTime.of(2026, 3, 1, 8, 0));
+        ObjectNode changes = CustomerChanges.diff(objectMapper, before, customer, List.of(home), List.of(mobile),
+                customer.getModifiedAt());
+
+        ObjectNode state = objectMapper.valueToTree(customer);
+        CustomerChanges.revert(state, objectMapper.valueToTree(changes));
+
+        assertEquals(original, state);
+    }
+
+    @Test
+    void revert_Deletion_RestoresCustomerFromNothing() {
+        JsonNode original = objectMapper.valueToTree(customer);
+        ObjectNode changes = CustomerChanges.deletion(objectMapper, customer);
+
+        ObjectNode state = objectMapper.createObjectNode();
+        state.put("id", customer.getId().toString());
+        CustomerChanges.revert(state, changes);
+
+        assertEquals(original, state);
+    }
+
+    private static PhoneNumber phone(String number, String type) {
+        PhoneNumber phone = new PhoneNumber();
+        phone.setId(UUID.randomUUID());
+        phone.setPhoneNumber(number);
+        phone.setPhoneType(type);
+        phone.setCountryCode("US");
+        phone.setCreatedAt(LocalDateTime.of(2026, 1, 5, 9, 30));
+        phone.setModifiedAt(LocalDateTime.of(2026, 1, 5, 9, 30));
+        return phone;
+    }
+}
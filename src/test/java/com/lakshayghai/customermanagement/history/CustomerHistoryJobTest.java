@@ -0,0 +1,63 @@
+package com.lakshayghai.customermanagement.history;
+
+import com.lakshayghai.customermanagement.sharding.ShardRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CustomerHistoryJobTest {
+
+    @Mock
+    private CustomerHistoryStore customerHistoryStore;
+
+    @Test
+    void maintainPartitions_CreatesAheadAndDropsExpiredMonths() {
+        CustomerHistoryJob job = job(3, 12);
+        when(customerHistoryStore.partitions()).thenReturn(List.of(
+                YearMonth.of(2025, 9), YearMonth.of(2025, 10), YearMonth.of(2026, 10)));
+
+        job.maintainPartitions(YearMonth.of(2026, 10));
+
+        for (int month = 10; month <= 12; month++) {
+            verify(customerHistoryStore).createPartition(YearMonth.of(2026, month));
+        }
+        verify(customerHistoryStore).createPartition(YearMonth.of(2027, 1));
+        verify(customerHistoryStore).dropPartition(YearMonth.of(2025, 9));
+        verify(customerHistoryStore, never()).dropPartition(YearMonth.of(2025, 10));
+        verify(customerHistoryStore, never()).dropPartition(YearMonth.of(2026, 10));
+    }
+
+    @Test
+    void maintainPartitions_NoRetention_KeepsEverything() {
+        CustomerHistoryJob job = job(0, 0);
+
+        job.maintainPartitions(YearMonth.of(2026, 10));
+
+        verify(customerHistoryStore).createPartition(YearMonth.of(2026, 10));
+        verify(customerHistoryStore, never()).partitions();
+        verify(customerHistoryStore, never()).dropPartition(any());
+    }
+
+    @Test
+    void flush_FullBatches_DrainsUntilOutboxEmpty() {
+        CustomerHistoryJob job = job(0, 0);
+        when(customerHistoryStore.drain(2)).thenReturn(2, 2, 1);
+
+        job.flush();
+
+        verify(customerHistoryStore, times(3)).drain(2);
+    }
+
+    private CustomerHistoryJob job(int premakeMonths, int retentionMonths) {
+        return new CustomerHistoryJob(customerHistoryStore, new ShardRouter(1, 16), new SimpleMeterRegistry(),
+                2, retentionMonths, premakeMonths);
+    }
+}
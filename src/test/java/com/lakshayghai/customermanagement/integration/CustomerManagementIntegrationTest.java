@@ -4,6 +4,7 @@ import com.lakshayghai.customermanagement.TestcontainersConfiguration;
 import com.lakshayghai.customermanagement.entity.Customer;
 import com.lakshayghai.customermanagement.entity.PhoneNumber;
 import com.lakshayghai.customermanagement.model.CustomerDTO;
+import com.lakshayghai.customermanagement.model.CustomerFields;
 import com.lakshayghai.customermanagement.model.PhoneNumberDTO;
 import com.lakshayghai.customermanagement.repository.CustomerRepository;
 import com.lakshayghai.customermanagement.repository.PhoneNumberRepository;
@@ -152,7 +153,7 @@ class CustomerManagementIntegrationTest {
         assertNotNull(customer);
 
         // Read
-        ResponseEntity<?> readResponse = customerService.getCustomerById(customer.getId());
+        ResponseEntity<?> readResponse = customerService.getCustomerById(customer.getId(), CustomerFields.CUSTOMER_ONLY);
         assertEquals(HttpStatus.OK, readResponse.getStatusCode());
         assertNotNull(readResponse.getBody());
 
@@ -168,7 +169,7 @@ class CustomerManagementIntegrationTest {
         assertEquals(HttpStatus.NO_CONTENT, deleteResponse.getStatusCode());
 
         // Verify deletion
-        ResponseEntity<?> verifyResponse = customerService.getCustomerById(customer.getId());
+        ResponseEntity<?> verifyResponse = customerService.getCustomerById(customer.getId(), CustomerFields.CUSTOMER_ONLY);
         assertEquals(HttpStatus.NOT_FOUND, verifyResponse.getStatusCode());
     }
 
@@ -204,7 +205,8 @@ class CustomerManagementIntegrationTest {
         customerService.createCustomerWithPhoneNumbers(secondCustomer);
 
         // Get all customers
-        List<Customer> allCustomers = customerService.getAllCustomers();
+        @SuppressWarnings("unchecked")
+        List<Customer> allCustomers = (List<Customer>) customerService.getAllCustomers(CustomerFields.WITH_PHONE_NUMBERS).getBody();
         assertEquals(2, allCustomers.size());
 
         // Verify phone numbers for all customers
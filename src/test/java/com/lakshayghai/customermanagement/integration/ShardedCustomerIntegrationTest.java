@@ -0,0 +1,163 @@
+package com.lakshayghai.customermanagement.integration;
+
+import com.lakshayghai.customermanagement.entity.Customer;
+import com.lakshayghai.customermanagement.model.CustomerDTO;
+import com.lakshayghai.customermanagement.model.CustomerFields;
+import com.lakshayghai.customermanagement.model.CustomerPage;
+import com.lakshayghai.customermanagement.model.PhoneNumberDTO;
+import com.lakshayghai.customermanagement.service.CustomerService;
+import com.lakshayghai.customermanagement.sharding.ShardRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class ShardedCustomerIntegrationTest {
+
+    private static final List<PostgreSQLContainer<?>> SHARDS = List.of(
+            new PostgreSQLContainer<>(DockerImageName.parse("postgres:17.2")),
+            new PostgreSQLContainer<>(DockerImageName.parse("postgres:17.2")),
+            new PostgreSQLContainer<>(DockerImageName.parse("postgres:17.2")));
+
+    static {
+        SHARDS.parallelStream().forEach(PostgreSQLContainer::start);
+    }
+
+    @DynamicPropertySource
+    static void shardProperties(DynamicPropertyRegistry registry) {
+        registry.add("customer.sharding.enabled", () -> "true");
+        for (int i = 0; i < SHARDS.size(); i++) {
+            PostgreSQLContainer<?> shard = SHARDS.get(i);
+            registry.add("customer.sharding.shards[" + i + "].url", shard::getJdbcUrl);
+            registry.add("customer.sharding.shards[" + i + "].username", shard::getUsername);
+            registry.add("customer.sharding.shards[" + i + "].password", shard::getPassword);
+        }
+    }
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        shardRouter.scatter(shard -> jdbcTemplate.update("DELETE FROM customer")
+                + jdbcTemplate.update("DELETE FROM customer_email"));
+    }
+
+    private static CustomerDTO customerDTO(String emailAddress) {
+        PhoneNumberDTO phone = new PhoneNumberDTO();
+        phone.setPhoneNumber("+12125552368");
+        phone.setPhoneType("MOBILE");
+        phone.setCountryCode("US");
+
+        CustomerDTO customerDTO = new CustomerDTO();
+        customerDTO.setFirstName("Jane");
+        customerDTO.setLastName("Smith");
+        customerDTO.setEmailAddress(emailAddress);
+        customerDTO.setPhoneNumbers(List.of(phone));
+        return customerDTO;
+    }
+
+    private long countOnShard(int shard, String table) {
+        return shardRouter.callOnShard(shard, () -> jdbcTemplate.queryForObject("SELECT count(*) FROM " + table, Long.class));
+    }
+
+    private List<UUID> createCustomers(int count) {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            CustomerDTO customerDTO = customerDTO("customer" + i + "@example.com");
+            // Phone numbers are unique per shard, give each customer its own
+            customerDTO.getPhoneNumbers().get(0).setPhoneNumber("+121255" + (52000 + i));
+            ResponseEntity<?> response = customerService.createCustomerWithPhoneNumbers(customerDTO);
+            assertEquals(HttpStatus.CREATED, response.getStatusCode());
+            ids.add(((Customer) response.getBody()).getId());
+        }
+        return ids;
+    }
+
+    @Test
+    void createCustomer_SpreadsCustomersWithPhoneNumbersAcrossShards() {
+        List<UUID> ids = createCustomers(30);
+
+        for (int shard = 0; shard < SHARDS.size(); shard++) {
+            assertTrue(countOnShard(shard, "customer") > 0);
+            assertEquals(countOnShard(shard, "customer"), countOnShard(shard, "phone_number"));
+            assertEquals(countOnShard(shard, "customer"), countOnShard(shard, "customer_email"));
+        }
+        for (UUID id : ids) {
+            assertEquals(HttpStatus.OK, customerService.getCustomerById(id, CustomerFields.CUSTOMER_ONLY).getStatusCode());
+        }
+        assertEquals(30, ((List<?>) customerService.getAllCustomers(CustomerFields.CUSTOMER_ONLY).getBody()).size());
+    }
+
+    @Test
+    void createCustomer_DuplicateEmail_ReturnsBadRequest() {
+        createCustomers(1);
+
+        ResponseEntity<?> response = customerService.createCustomerWithPhoneNumbers(customerDTO("customer0@example.com"));
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    @Test
+    void getCustomerPage_MergesShardsInIdOrder() {
+        Set<UUID> expected = new HashSet<>(createCustomers(30));
+
+        List<UUID> seen = new ArrayList<>();
+        UUID after = null;
+        do {
+            CustomerPage page = (CustomerPage) customerService.getCustomerPage(7, after, CustomerFields.CUSTOMER_ONLY).getBody();
+            page.getContent().forEach(customer -> seen.add(customer.getId()));
+            after = page.getNextCursor();
+        } while (after != null);
+
+        assertEquals(expected, new HashSet<>(seen));
+        assertEquals(expected.size(), seen.size());
+        List<UUID> sorted = new ArrayList<>(seen);
+        sorted.sort((a, b) -> a.toString().compareTo(b.toString()));
+        assertEquals(sorted, seen);
+    }
+
+    @Test
+    void updateCustomer_NewEmail_MovesEmailRecord() {
+        UUID id = createCustomers(1).get(0);
+        CustomerDTO customerDTO = customerDTO("renamed@example.com");
+        customerDTO.getPhoneNumbers().get(0).setPhoneNumber("+12125552000");
+
+        assertEquals(HttpStatus.OK, customerService.updateCustomer(id, customerDTO).getStatusCode());
+
+        assertEquals(HttpStatus.CREATED, customerService.createCustomerWithPhoneNumbers(customerDTO("customer0@example.com")).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, customerService.createCustomerWithPhoneNumbers(customerDTO("renamed@example.com")).getStatusCode());
+    }
+
+    @Test
+    void deleteCustomer_ReleasesEmail() {
+        UUID id = createCustomers(1).get(0);
+
+        assertEquals(HttpStatus.NO_CONTENT, customerService.deleteCustomer(id).getStatusCode());
+
+        assertEquals(HttpStatus.NOT_FOUND, customerService.getCustomerById(id, CustomerFields.CUSTOMER_ONLY).getStatusCode());
+        assertEquals(HttpStatus.CREATED, customerService.createCustomerWithPhoneNumbers(customerDTO("customer0@example.com")).getStatusCode());
+    }
+}
@@ -0,0 +1,96 @@
+package com.lakshayghai.customermanagement.jfr;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FlightRecorderEndpointTest {
+
+    @TempDir
+    Path dumpDirectory;
+
+    private FlightRecorderEndpoint endpoint;
+
+    @BeforeEach
+    void setUp() {
+        endpoint = new FlightRecorderEndpoint("default", Duration.ofMinutes(5), DataSize.ofMegabytes(50), dumpDirectory);
+    }
+
+    @AfterEach
+    void tearDown() {
+        endpoint.destroy();
+    }
+
+    @Test
+    void start_NotRunning_StartsWithRingBufferLimits() {
+        Map<String, Object> status = endpoint.start(null, Duration.ofMinutes(1), null);
+
+        assertEquals(true, status.get("running"));
+        assertEquals("default", status.get("settings"));
+        assertEquals(Duration.ofMinutes(1), status.get("maxAge"));
+        assertEquals(DataSize.ofMegabytes(50), status.get("maxSize"));
+    }
+
+    @Test
+    void start_UnknownSettings_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> endpoint.start("missing", null, null));
+        assertEquals(false, endpoint.status().get("running"));
+    }
+
+    @Test
+    void dump_Running_ContainsCustomerEvents() throws Exception {
+        endpoint.start(null, null, null);
+        UUID id = UUID.randomUUID();
+        ProxyFactory proxyFactory = new ProxyFactory(new Operations());
+        proxyFactory.addAdvisor(FlightRecorderConfig.customerOperationAdvisor());
+        ((Operations) proxyFactory.getProxy()).update(id);
+
+        Resource dump = endpoint.dump("dump");
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump.getFile().toPath()).stream()
+                .filter(event -> event.getEventType().getName().equals("com.lakshayghai.customermanagement.CustomerOperation"))
+                .toList();
+        assertEquals(1, events.size());
+        assertEquals("update", events.get(0).getString("operation"));
+        assertEquals(id.toString(), events.get(0).getString("customerId"));
+        assertEquals(200, events.get(0).getInt("status"));
+    }
+
+    @Test
+    void dump_NotRunning_ReturnsNull() {
+        assertNull(endpoint.dump("dump"));
+    }
+
+    @Test
+    void stop_Running_StopsRecording() {
+        endpoint.start(null, null, null);
+
+        Map<String, Object> status = endpoint.stop();
+
+        assertEquals(false, status.get("running"));
+        assertNull(endpoint.dump("dump"));
+    }
+
+    public static class Operations {
+
+        @CustomerOperation("update")
+        public ResponseEntity<?> update(UUID id) {
+            return ResponseEntity.ok().build();
+        }
+    }
+}
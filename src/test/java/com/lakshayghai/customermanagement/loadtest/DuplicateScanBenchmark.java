@@ -0,0 +1,41 @@
+package com.lakshayghai.customermanagement.loadtest;
+
+import com.lakshayghai.customermanagement.CustomerManagementApplication;
+import com.lakshayghai.customermanagement.TestcontainersConfiguration;
+import com.lakshayghai.customermanagement.duplicate.DuplicateScanJob;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Seeds a Testcontainers Postgres with synthetic customers, a share of them near-duplicates, and
+ * times a full {@link DuplicateScanJob} run over them.
+ * <p>
+ * {@code ./mvnw -Ploadtest test-compile exec:java -Dloadtest.main=com.lakshayghai.customermanagement.loadtest.DuplicateScanBenchmark -Dexec.args="10000000 0.01"}
+ */
+@Slf4j
+public class DuplicateScanBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        long customers = args.length > 0 ? Long.parseLong(args[0]) : 10_000_000;
+        double duplicateRate = args.length > 1 ? Double.parseDouble(args[1]) : 0.01;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        try (ConfigurableApplicationContext context = SpringApplication.from(CustomerManagementApplication::main)
+                .with(TestcontainersConfiguration.class)
+                .run("--server.port=0", "--spring.datasource.hikari.maximum-pool-size=" + (threads + 4))
+                .getApplicationContext()) {
+            SyntheticDataGenerator generator = new SyntheticDataGenerator(context.getBean(DataSource.class), duplicateRate);
+            generator.seed(customers, 3, threads, 0);
+
+            DuplicateScanJob job = context.getBean(DuplicateScanJob.class);
+            job.scan();
+            Map<String, Object> run = job.lastRun();
+            // Each seeded near-duplicate and the customer it copies end up in one cluster
+            log.info("{} customers with {} seeded near-duplicates: {}", customers, generator.duplicates(), run);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.lakshayghai.customermanagement.loadtest;
+
+import com.lakshayghai.customermanagement.util.BloomFilter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Measures the email {@link BloomFilter} at production scale: build time, memory, lookup cost and
+ * the observed false positive rate.
+ * <p>
+ * {@code ./mvnw -Ploadtest test-compile exec:java -Dloadtest.main=com.lakshayghai.customermanagement.loadtest.EmailFilterBenchmark -Dexec.args="20000000 0.01"}
+ */
+@Slf4j
+public class EmailFilterBenchmark {
+
+    public static void main(String[] args) {
+        int emails = args.length > 0 ? Integer.parseInt(args[0]) : 20_000_000;
+        double falsePositiveRate = args.length > 1 ? Double.parseDouble(args[1]) : 0.01;
+        int probes = Math.min(emails, 5_000_000);
+
+        BloomFilter filter = new BloomFilter(emails, falsePositiveRate);
+        long start = System.nanoTime();
+        IntStream.range(0, emails).parallel().forEach(i -> filter.put(email("customer", i)));
+        long buildNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        long falsePositives = IntStream.range(0, probes).filter(i -> filter.mightContain(email("absent", i))).count();
+        long lookupNanos = System.nanoTime() - start;
+
+        log.info("{} emails: built in {} ms, {} MiB, {} hashes", emails, TimeUnit.NANOSECONDS.toMillis(buildNanos),
+                filter.sizeInBytes() / (1024 * 1024), filter.hashCount());
+        log.info("{} absent lookups: {} ns/lookup, false positive rate {} (configured {}, expected {})", probes,
+                lookupNanos / probes, (double) falsePositives / probes, falsePositiveRate, filter.expectedFalsePositiveRate());
+    }
+
+    private static String email(String prefix, int i) {
+        return prefix + '.' + Integer.toHexString(i * 0x9E3779B1) + i + "@example.com";
+    }
+}
@@ -0,0 +1,82 @@
+package com.lakshayghai.customermanagement.loadtest;
+
+import com.lakshayghai.customermanagement.CustomerManagementApplication;
+import com.lakshayghai.customermanagement.TestcontainersConfiguration;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Seeds a Testcontainers Postgres with customers and compares the read shapes of
+ * {@code GET /customers/{id}} and {@code GET /customers?size=}: customer columns only (the default),
+ * a few selected fields, and with phone numbers joined. Reports the rows the queries return,
+ * response bytes and latency for each.
+ * <p>
+ * {@code ./mvnw -Ploadtest test-compile exec:java -Dloadtest.main=com.lakshayghai.customermanagement.loadtest.FieldSelectionBenchmark -Dexec.args="1000000 3 10000"}
+ */
+@Slf4j
+public class FieldSelectionBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+
+    public static void main(String[] args) throws Exception {
+        long customers = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        int maxPhones = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        try (ConfigurableApplicationContext context = SpringApplication.from(CustomerManagementApplication::main)
+                .with(TestcontainersConfiguration.class)
+                .run("--server.port=0", "--customer.rate-limit.enabled=false")
+                .getApplicationContext()) {
+            DataSource dataSource = context.getBean(DataSource.class);
+            List<UUID> sample = new SyntheticDataGenerator(dataSource).seed(customers, maxPhones, threads, requests);
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+
+            // One row per customer without the join, one per phone number with it
+            long joinedRows = new JdbcTemplate(dataSource).queryForObject("SELECT count(*) FROM customer c "
+                    + "LEFT JOIN phone_number p ON p.customer_id = c.id WHERE c.id = ANY (?::uuid[])", Long.class,
+                    (Object) sample.stream().map(UUID::toString).toArray(String[]::new));
+            log.info("{} customers read: {} rows without phone numbers, {} rows with", sample.size(), sample.size(), joinedRows);
+
+            try (HttpClient client = HttpClient.newHttpClient()) {
+                for (String query : List.of("", "?fields=firstName,lastName,emailAddress", "?include=phoneNumbers")) {
+                    measure(client, "GET /customers/{id}" + query, sample, id -> baseUrl + "/customers/" + id + query);
+                }
+                for (String query : List.of("", "&fields=firstName,lastName,emailAddress", "&include=phoneNumbers")) {
+                    // Consecutive pages from each sampled id
+                    List<UUID> cursors = sample.subList(0, Math.max(1, sample.size() / PAGE_SIZE));
+                    measure(client, "GET /customers?size=" + PAGE_SIZE + query, cursors,
+                            id -> baseUrl + "/customers?size=" + PAGE_SIZE + "&after=" + id + query);
+                }
+            }
+        }
+    }
+
+    private static void measure(HttpClient client, String name, List<UUID> ids, Function<UUID, String> url) throws Exception {
+        LatencyHistogram latency = new LatencyHistogram();
+        long bytes = 0;
+        for (UUID id : ids) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(url.apply(id))).GET().build();
+            long start = System.nanoTime();
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            latency.record(System.nanoTime() - start);
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException(name + " returned " + response.statusCode());
+            }
+            bytes += response.body().length;
+        }
+        log.info("{}: {} requests, {} bytes/response, p50/p99 {}/{} us", name, ids.size(), bytes / ids.size(),
+                latency.percentileMicros(50), latency.percentileMicros(99));
+    }
+}
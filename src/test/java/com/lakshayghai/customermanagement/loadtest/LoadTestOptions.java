@@ -0,0 +1,69 @@
+package com.lakshayghai.customermanagement.loadtest;
+
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Command line options for {@link LoadTestRunner}, given as {@code --name=value}.
+ */
+@Data
+public class LoadTestOptions {
+
+    private String baseUrl = "http://localhost:8080";
+    private String jdbcUrl = "jdbc:postgresql://localhost:5432/customerdb";
+    private String jdbcUsername = "myuser";
+    private String jdbcPassword = "secret";
+    private boolean testcontainers;
+    private long seed;
+    private int maxPhones = 3;
+    private int seedThreads = 4;
+    private Duration warmup = Duration.ofSeconds(10);
+    private Duration duration = Duration.ofMinutes(1);
+    private int concurrency = 32;
+    private Map<LoadTestRunner.Scenario, Integer> mix = parseMix("create=10,get=55,update=20,list=5,delete=10");
+    private String listPath = "/customers";
+    private String label = System.getProperty("loadtest.label", "dev");
+    private String reportDir = "target/loadtest";
+
+    public static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            String[] pair = arg.substring(2).split("=", 2);
+            String value = pair.length > 1 ? pair[1] : "true";
+            switch (pair[0]) {
+                case "base-url" -> options.baseUrl = value;
+                case "jdbc-url" -> options.jdbcUrl = value;
+                case "jdbc-username" -> options.jdbcUsername = value;
+                case "jdbc-password" -> options.jdbcPassword = value;
+                case "testcontainers" -> options.testcontainers = Boolean.parseBoolean(value);
+                case "seed" -> options.seed = Long.parseLong(value);
+                case "max-phones" -> options.maxPhones = Integer.parseInt(value);
+                case "seed-threads" -> options.seedThreads = Integer.parseInt(value);
+                case "warmup" -> options.warmup = Duration.parse(value);
+                case "duration" -> options.duration = Duration.parse(value);
+                case "concurrency" -> options.concurrency = Integer.parseInt(value);
+                case "mix" -> options.mix = parseMix(value);
+                case "list-path" -> options.listPath = value;
+                case "label" -> options.label = value;
+                case "report-dir" -> options.reportDir = value;
+                default -> throw new IllegalArgumentException("Unknown option: --" + pair[0]);
+            }
+        }
+        return options;
+    }
+
+    static Map<LoadTestRunner.Scenario, Integer> parseMix(String mix) {
+        Map<LoadTestRunner.Scenario, Integer> weights = new EnumMap<>(LoadTestRunner.Scenario.class);
+        for (String entry : mix.split(",")) {
+            String[] pair = entry.trim().split("=");
+            weights.put(LoadTestRunner.Scenario.valueOf(pair[0].trim().toUpperCase()), Integer.parseInt(pair[1].trim()));
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,327 @@
+package com.lakshayghai.customermanagement.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.lakshayghai.customermanagement.CustomerManagementApplication;
+import com.lakshayghai.customermanagement.TestcontainersConfiguration;
+import com.lakshayghai.customermanagement.model.CustomerDTO;
+import com.lakshayghai.customermanagement.model.PhoneNumberDTO;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Capacity test harness for the customer API.
+ * <p>
+ * Optionally seeds the database with {@link SyntheticDataGenerator}, then drives a weighted mix of
+ * create, get-by-id, update, list and delete requests from virtual-thread workers for a fixed
+ * duration and writes throughput and latency percentiles per scenario to a JSON report, named
+ * after {@code --label}, so runs can be compared across versions.
+ * <p>
+ * Runs against the docker-compose stack by default, or against an in-process application backed by
+ * a Testcontainers Postgres with {@code --testcontainers}:
+ * <pre>
+ * ./mvnw -Ploadtest test-compile exec:java -Dexec.args="--testcontainers --seed=1000000 --duration=PT2M"
+ * </pre>
+ */
+@Slf4j
+public class LoadTestRunner {
+
+    public enum Scenario { CREATE, GET, UPDATE, LIST, DELETE }
+
+    private static final int ID_POOL_SIZE = 100_000;
+
+    private final LoadTestOptions options;
+    private final String baseUrl;
+    private final HttpClient httpClient = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final IdPool ids = new IdPool(ID_POOL_SIZE);
+    private final Map<Scenario, ScenarioStats> stats = new EnumMap<>(Scenario.class);
+    private final AtomicLong sequence = new AtomicLong();
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private volatile boolean measuring;
+
+    public LoadTestRunner(LoadTestOptions options, String baseUrl) {
+        this.options = options;
+        this.baseUrl = baseUrl;
+        for (Scenario scenario : Scenario.values()) {
+            stats.put(scenario, new ScenarioStats());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+
+        ConfigurableApplicationContext context = null;
+        String baseUrl = options.getBaseUrl();
+        DataSource dataSource;
+        if (options.isTestcontainers()) {
+            context = SpringApplication.from(CustomerManagementApplication::main)
+                    .with(TestcontainersConfiguration.class)
+                    .run("--server.port=0", "--customer.rate-limit.enabled=false")
+                    .getApplicationContext();
+            baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            dataSource = context.getBean(DataSource.class);
+        } else {
+            HikariDataSource hikari = new HikariDataSource();
+            hikari.setJdbcUrl(options.getJdbcUrl());
+            hikari.setUsername(options.getJdbcUsername());
+            hikari.setPassword(options.getJdbcPassword());
+            hikari.setMaximumPoolSize(Math.max(2, options.getSeedThreads()));
+            dataSource = hikari;
+        }
+
+        try {
+            LoadTestRunner runner = new LoadTestRunner(options, baseUrl);
+            if (options.getSeed() > 0) {
+                runner.ids.addAll(new SyntheticDataGenerator(dataSource)
+                        .seed(options.getSeed(), options.getMaxPhones(), options.getSeedThreads(), ID_POOL_SIZE));
+            } else {
+                runner.ids.addAll(sampleIds(dataSource));
+            }
+            runner.run();
+        } finally {
+            if (context != null) {
+                context.close();
+            } else {
+                ((HikariDataSource) dataSource).close();
+            }
+        }
+    }
+
+    public void run() throws Exception {
+        long warmupEnd = System.nanoTime() + options.getWarmup().toNanos();
+        long end = warmupEnd + options.getDuration().toNanos();
+        List<Scenario> weighted = new ArrayList<>();
+        options.getMix().forEach((scenario, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                weighted.add(scenario);
+            }
+        });
+
+        log.info("Running {} workers against {} for {} (+{} warmup), mix {}", options.getConcurrency(), baseUrl,
+                options.getDuration(), options.getWarmup(), options.getMix());
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < options.getConcurrency(); i++) {
+                workers.submit(() -> {
+                    while (System.nanoTime() < end) {
+                        measuring = System.nanoTime() >= warmupEnd;
+                        execute(weighted.get(ThreadLocalRandom.current().nextInt(weighted.size())));
+                    }
+                });
+            }
+        }
+
+        writeReport();
+    }
+
+    private void execute(Scenario scenario) {
+        HttpRequest request = switch (scenario) {
+            case CREATE -> request("/customers").POST(body(randomCustomer())).build();
+            case GET -> withId(id -> request("/customers/" + id).GET().build());
+            case UPDATE -> withId(id -> request("/customers/" + id).PUT(body(randomCustomer())).build());
+            case LIST -> request(options.getListPath()).GET().build();
+            case DELETE -> {
+                UUID id = ids.take();
+                yield id == null ? null : request("/customers/" + id).DELETE().build();
+            }
+        };
+        if (request == null) {
+            return;
+        }
+
+        ScenarioStats scenarioStats = stats.get(scenario);
+        long start = System.nanoTime();
+        try {
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            long latency = System.nanoTime() - start;
+            if (scenario == Scenario.CREATE && response.statusCode() == 201) {
+                ids.add(UUID.fromString(objectMapper.readTree(response.body()).get("id").asText()));
+            }
+            if (measuring) {
+                scenarioStats.record(latency, response.statusCode(), response.body().length);
+            }
+        } catch (Exception e) {
+            if (measuring) {
+                scenarioStats.failures.increment();
+            }
+        }
+    }
+
+    private HttpRequest withId(Function<UUID, HttpRequest> builder) {
+        UUID id = ids.random();
+        return id == null ? null : builder.apply(id);
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .header("Accept", "application/json");
+    }
+
+    private HttpRequest.BodyPublisher body(Object value) {
+        try {
+            return HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(value));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private CustomerDTO randomCustomer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        CustomerDTO customer = new CustomerDTO();
+        customer.setFirstName("Load");
+        customer.setLastName("Test" + random.nextInt(1000));
+        customer.setEmailAddress("load." + runId + "." + sequence.incrementAndGet() + "@example.com");
+
+        List<PhoneNumberDTO> phoneNumbers = new ArrayList<>();
+        int phones = 1 + random.nextInt(options.getMaxPhones());
+        for (int i = 0; i < phones; i++) {
+            PhoneNumberDTO phoneNumber = new PhoneNumberDTO();
+            phoneNumber.setCountryCode("US");
+            phoneNumber.setPhoneNumber(SyntheticDataGenerator.randomPhoneNumber("US", random));
+            phoneNumber.setPhoneType(i == 0 ? "MOBILE" : i == 1 ? "HOME" : "WORK");
+            phoneNumber.setVerified(random.nextBoolean());
+            phoneNumbers.add(phoneNumber);
+        }
+        customer.setPhoneNumbers(phoneNumbers);
+        return customer;
+    }
+
+    private void writeReport() throws Exception {
+        double seconds = options.getDuration().toMillis() / 1000.0;
+        Map<String, Object> scenarios = new LinkedHashMap<>();
+        System.out.printf("%n%-8s %10s %10s %10s %10s %10s %10s %10s %10s%n",
+                "scenario", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<Scenario, ScenarioStats> entry : stats.entrySet()) {
+            ScenarioStats s = entry.getValue();
+            long requests = s.latency.count();
+            if (requests == 0 && s.failures.sum() == 0) {
+                continue;
+            }
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("requests", requests);
+            row.put("errors", s.errors.sum() + s.failures.sum());
+            row.put("throttled", s.throttled.sum());
+            row.put("throughputPerSecond", requests / seconds);
+            row.put("meanResponseBytes", requests == 0 ? 0 : s.bytes.sum() / requests);
+            row.put("p50Micros", s.latency.percentileMicros(50));
+            row.put("p90Micros", s.latency.percentileMicros(90));
+            row.put("p99Micros", s.latency.percentileMicros(99));
+            row.put("p999Micros", s.latency.percentileMicros(99.9));
+            row.put("maxMicros", s.latency.maxMicros());
+            scenarios.put(entry.getKey().name().toLowerCase(), row);
+            System.out.printf("%-8s %10d %10d %10.1f %10.2f %10.2f %10.2f %10.2f %10.2f%n",
+                    entry.getKey().name().toLowerCase(), requests, s.errors.sum() + s.failures.sum(), requests / seconds,
+                    s.latency.percentileMicros(50) / 1000.0, s.latency.percentileMicros(90) / 1000.0,
+                    s.latency.percentileMicros(99) / 1000.0, s.latency.percentileMicros(99.9) / 1000.0,
+                    s.latency.maxMicros() / 1000.0);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", options.getLabel());
+        report.put("finishedAt", Instant.now().toString());
+        report.put("baseUrl", baseUrl);
+        report.put("concurrency", options.getConcurrency());
+        report.put("durationSeconds", seconds);
+        report.put("mix", options.getMix());
+        report.put("scenarios", scenarios);
+
+        Path dir = Path.of(options.getReportDir());
+        Files.createDirectories(dir);
+        Path file = dir.resolve("report-" + options.getLabel() + "-" + System.currentTimeMillis() + ".json");
+        objectMapper.enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), report);
+        log.info("Report written to {}", file.toAbsolutePath());
+    }
+
+    private static List<UUID> sampleIds(DataSource dataSource) throws Exception {
+        List<UUID> sample = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT id FROM customer LIMIT " + ID_POOL_SIZE)) {
+            while (rs.next()) {
+                sample.add(rs.getObject(1, UUID.class));
+            }
+        }
+        return sample;
+    }
+
+    private static final class ScenarioStats {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder throttled = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+
+        private void record(long latencyNanos, int status, int responseBytes) {
+            latency.record(latencyNanos);
+            bytes.add(responseBytes);
+            if (status == 429 || status == 503) {
+                throttled.increment();
+            } else if (status >= 400) {
+                errors.increment();
+            }
+        }
+    }
+
+    /**
+     * Fixed-size pool of known customer ids shared by the workers; new ids overwrite old slots.
+     */
+    private static final class IdPool {
+        private final AtomicReferenceArray<UUID> slots;
+        private final AtomicLong next = new AtomicLong();
+
+        private IdPool(int size) {
+            this.slots = new AtomicReferenceArray<>(size);
+        }
+
+        private void add(UUID id) {
+            slots.set((int) (next.getAndIncrement() % slots.length()), id);
+        }
+
+        private void addAll(List<UUID> ids) {
+            ids.forEach(this::add);
+        }
+
+        private UUID random() {
+            int filled = (int) Math.min(next.get(), slots.length());
+            return filled == 0 ? null : slots.get(ThreadLocalRandom.current().nextInt(filled));
+        }
+
+        private UUID take() {
+            int filled = (int) Math.min(next.get(), slots.length());
+            if (filled == 0) {
+                return null;
+            }
+            int index = ThreadLocalRandom.current().nextInt(filled);
+            UUID id = slots.get(index);
+            return id != null && slots.compareAndSet(index, id, null) ? id : null;
+        }
+    }
+}
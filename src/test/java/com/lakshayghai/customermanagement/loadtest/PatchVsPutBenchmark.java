@@ -0,0 +1,104 @@
+package com.lakshayghai.customermanagement.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.lakshayghai.customermanagement.CustomerManagementApplication;
+import com.lakshayghai.customermanagement.TestcontainersConfiguration;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Seeds a Testcontainers Postgres with customers and compares changing one field with
+ * {@code PUT /customers/{id}}, which resends the customer and replaces its phone numbers, and
+ * {@code PATCH /customers/{id}} with a merge patch of that field alone. Reports the statements
+ * Hibernate prepared and the entities it loaded, inserted, updated and deleted per request, and
+ * latency, for each. Statements issued through {@code JdbcTemplate}, such as the history and email
+ * directory writes, are not in Hibernate's statistics.
+ * <p>
+ * {@code ./mvnw -Ploadtest test-compile exec:java -Dloadtest.main=com.lakshayghai.customermanagement.loadtest.PatchVsPutBenchmark -Dexec.args="100000 3 2000"}
+ */
+@Slf4j
+public class PatchVsPutBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        long customers = args.length > 0 ? Long.parseLong(args[0]) : 100_000;
+        int maxPhones = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int requests = args.length > 2 ? Integer.parseInt(args[2]) : 2_000;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        try (ConfigurableApplicationContext context = SpringApplication.from(CustomerManagementApplication::main)
+                .with(TestcontainersConfiguration.class)
+                .run("--server.port=0", "--customer.rate-limit.enabled=false",
+                        "--spring.jpa.properties.hibernate.generate_statistics=true")
+                .getApplicationContext()) {
+            List<UUID> sample = new SyntheticDataGenerator(context.getBean(DataSource.class))
+                    .seed(customers, maxPhones, threads, requests * 2);
+            int half = sample.size() / 2;
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            Statistics statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+            ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+
+            try (HttpClient client = HttpClient.newHttpClient()) {
+                // The customer as PUT resends it, read before measuring
+                List<HttpRequest> puts = new ArrayList<>(half);
+                for (UUID id : sample.subList(0, half)) {
+                    HttpResponse<byte[]> current = client.send(HttpRequest.newBuilder(
+                                    URI.create(baseUrl + "/customers/" + id + "?include=phoneNumbers")).GET().build(),
+                            HttpResponse.BodyHandlers.ofByteArray());
+                    ObjectNode customer = (ObjectNode) objectMapper.readTree(current.body());
+                    customer.put("firstName", "Put" + id.toString().substring(0, 8));
+                    puts.add(HttpRequest.newBuilder(URI.create(baseUrl + "/customers/" + id))
+                            .header("Content-Type", "application/json")
+                            .PUT(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(customer)))
+                            .build());
+                }
+                List<HttpRequest> patches = new ArrayList<>(half);
+                for (UUID id : sample.subList(half, half * 2)) {
+                    patches.add(HttpRequest.newBuilder(URI.create(baseUrl + "/customers/" + id))
+                            .header("Content-Type", "application/merge-patch+json")
+                            .method("PATCH", HttpRequest.BodyPublishers.ofString(
+                                    "{\"firstName\":\"Patch" + id.toString().substring(0, 8) + "\"}"))
+                            .build());
+                }
+
+                measure(client, statistics, "PUT /customers/{id}", puts);
+                measure(client, statistics, "PATCH /customers/{id}", patches);
+            }
+        }
+    }
+
+    private static void measure(HttpClient client, Statistics statistics, String name, List<HttpRequest> requests)
+            throws Exception {
+        LatencyHistogram latency = new LatencyHistogram();
+        statistics.clear();
+        for (HttpRequest request : requests) {
+            long start = System.nanoTime();
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            latency.record(System.nanoTime() - start);
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException(name + " returned " + response.statusCode());
+            }
+        }
+        double count = requests.size();
+        log.info("{}: {} requests, {} statements/request (entities loaded/inserted/updated/deleted {}/{}/{}/{}), p50/p99 {}/{} us",
+                name, requests.size(), String.format("%.1f", statistics.getPrepareStatementCount() / count),
+                String.format("%.1f", statistics.getEntityLoadCount() / count),
+                String.format("%.1f", statistics.getEntityInsertCount() / count),
+                String.format("%.1f", statistics.getEntityUpdateCount() / count),
+                String.format("%.1f", statistics.getEntityDeleteCount() / count),
+                latency.percentileMicros(50), latency.percentileMicros(99));
+    }
+}
@@ -0,0 +1,70 @@
+package com.lakshayghai.customermanagement.loadtest;
+
+import com.lakshayghai.customermanagement.model.PhoneNumberDTO;
+import com.lakshayghai.customermanagement.service.PhoneNumberValidator;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Compares serial and parallel {@link PhoneNumberValidator} throughput across list sizes, to pick
+ * {@code customer.phone-validation.parallel-threshold} for the machine it runs on.
+ * <p>
+ * {@code ./mvnw -Ploadtest test-compile exec:java -Dloadtest.main=com.lakshayghai.customermanagement.loadtest.PhoneValidationBenchmark -Dexec.args="4"}
+ */
+@Slf4j
+public class PhoneValidationBenchmark {
+
+    private static final int[] SIZES = {1, 4, 16, 32, 64, 128, 256, 1000};
+    private static final int WARMUP_NUMBERS = 200_000;
+    private static final int MEASURED_NUMBERS = 400_000;
+
+    public static void main(String[] args) {
+        int parallelism = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        PhoneNumberValidator serial = new PhoneNumberValidator(Integer.MAX_VALUE, 1);
+        PhoneNumberValidator parallel = new PhoneNumberValidator(1, parallelism);
+        log.info("Parallelism {} on {} processors", parallelism, Runtime.getRuntime().availableProcessors());
+
+        Integer crossover = null;
+        for (int size : SIZES) {
+            List<PhoneNumberDTO> phones = IntStream.range(0, size).mapToObj(PhoneValidationBenchmark::phone).toList();
+            run(serial, phones, WARMUP_NUMBERS);
+            run(parallel, phones, WARMUP_NUMBERS);
+            long serialNanos = run(serial, phones, MEASURED_NUMBERS);
+            long parallelNanos = run(parallel, phones, MEASURED_NUMBERS);
+            log.info("{} numbers: serial {} us/list, parallel {} us/list", size, serialNanos / 1000.0, parallelNanos / 1000.0);
+            if (parallelNanos >= serialNanos) {
+                crossover = null;
+            } else if (crossover == null) {
+                crossover = size;
+            }
+        }
+        log.info("Parallel validation wins from {} numbers up", crossover != null ? crossover : "none of the measured sizes");
+
+        serial.destroy();
+        parallel.destroy();
+    }
+
+    /**
+     * @return mean nanoseconds per list
+     */
+    private static long run(PhoneNumberValidator validator, List<PhoneNumberDTO> phones, int numbers) {
+        int iterations = Math.max(1, numbers / phones.size());
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            if (validator.validate(phones).getPhoneNumbers().size() != phones.size()) {
+                throw new IllegalStateException("Benchmark numbers must all be valid");
+            }
+        }
+        return (System.nanoTime() - start) / iterations;
+    }
+
+    private static PhoneNumberDTO phone(int i) {
+        PhoneNumberDTO phone = new PhoneNumberDTO();
+        phone.setPhoneNumber(String.format("+1212555%04d", i % 10_000));
+        phone.setPhoneType("MOBILE");
+        phone.setCountryCode("US");
+        return phone;
+    }
+}
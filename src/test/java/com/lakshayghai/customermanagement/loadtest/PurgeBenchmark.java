@@ -0,0 +1,154 @@
+package com.lakshayghai.customermanagement.loadtest;
+
+import com.lakshayghai.customermanagement.CustomerManagementApplication;
+import com.lakshayghai.customermanagement.TestcontainersConfiguration;
+import com.lakshayghai.customermanagement.purge.CustomerPurgeJob;
+import com.lakshayghai.customermanagement.service.CustomerService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.function.Consumer;
+
+/**
+ * Compares deleting customers the old way, a synchronous hard delete per request, with a soft
+ * delete per request followed by a {@link CustomerPurgeJob} run. Concurrent traffic keeps updating
+ * random customers throughout, and its latency, the delete latency, the longest a purge batch held
+ * its locks and the most lock waits seen at once are reported for each phase.
+ * <p>
+ * {@code ./mvnw -Ploadtest test-compile exec:java -Dloadtest.main=com.lakshayghai.customermanagement.loadtest.PurgeBenchmark -Dexec.args="1000000 50000"}
+ */
+@Slf4j
+public class PurgeBenchmark {
+
+    private static final int TRAFFIC_THREADS = 16;
+    private static final int DELETE_THREADS = 8;
+
+    public static void main(String[] args) throws Exception {
+        long customers = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        int deletes = args.length > 1 ? Integer.parseInt(args[1]) : 50_000;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        try (ConfigurableApplicationContext context = SpringApplication.from(CustomerManagementApplication::main)
+                .with(TestcontainersConfiguration.class)
+                .run("--server.port=0", "--spring.datasource.hikari.maximum-pool-size=" + (TRAFFIC_THREADS + DELETE_THREADS + 8),
+                        "--customer.purge.enabled=false", "--customer.purge.grace-period=PT0S",
+                        "--customer.history.enabled=false", "--customer.archive.dir=target/loadtest/archive")
+                .getApplicationContext()) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+            TransactionTemplate transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+            CustomerService customerService = context.getBean(CustomerService.class);
+            CustomerPurgeJob purgeJob = context.getBean(CustomerPurgeJob.class);
+
+            List<UUID> sample = new SyntheticDataGenerator(context.getBean(DataSource.class))
+                    .seed(customers, 3, threads, deletes * 3);
+            int third = sample.size() / 3;
+            List<UUID> hardDeleted = sample.subList(0, third);
+            List<UUID> softDeleted = sample.subList(third, 2 * third);
+            List<UUID> traffic = sample.subList(2 * third, sample.size());
+
+            // As deleteCustomer did before: phones and customer removed in the request's transaction
+            run("hard delete", jdbcTemplate, traffic, hardDeleted, id -> transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update("DELETE FROM phone_number WHERE customer_id = ?", id);
+                jdbcTemplate.update("DELETE FROM customer WHERE id = ?", id);
+            }));
+            run("soft delete", jdbcTemplate, traffic, softDeleted, customerService::deleteCustomer);
+
+            long start = System.nanoTime();
+            run("purge", jdbcTemplate, traffic, List.of(), id -> {
+            }, purgeJob::purge);
+            Timer batch = context.getBean(MeterRegistry.class).timer("customer.purge.batch");
+            log.info("purge: {} batches in {} ms, lock hold mean {} ms, max {} ms", batch.count(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                    (long) batch.mean(TimeUnit.MILLISECONDS), (long) batch.max(TimeUnit.MILLISECONDS));
+        }
+    }
+
+    private static void run(String phase, JdbcTemplate jdbcTemplate, List<UUID> traffic, List<UUID> ids,
+                            Consumer<UUID> delete) throws Exception {
+        run(phase, jdbcTemplate, traffic, ids, delete, () -> {
+        });
+    }
+
+    /**
+     * Deletes {@code ids} with {@code delete} from a few threads, then runs {@code after}, while
+     * traffic updates random {@code traffic} customers.
+     */
+    private static void run(String phase, JdbcTemplate jdbcTemplate, List<UUID> traffic, List<UUID> ids,
+                            Consumer<UUID> delete, Runnable after) throws Exception {
+        LatencyHistogram trafficLatency = new LatencyHistogram();
+        LatencyHistogram deleteLatency = new LatencyHistogram();
+        LongAccumulator maxLockWaits = new LongAccumulator(Math::max, 0);
+        AtomicBoolean done = new AtomicBoolean();
+
+        ExecutorService executor = Executors.newFixedThreadPool(TRAFFIC_THREADS + DELETE_THREADS + 1);
+        try {
+            for (int i = 0; i < TRAFFIC_THREADS; i++) {
+                executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (!done.get()) {
+                        long start = System.nanoTime();
+                        jdbcTemplate.update("UPDATE customer SET modified_at = now() WHERE id = ?",
+                                traffic.get(random.nextInt(traffic.size())));
+                        trafficLatency.record(System.nanoTime() - start);
+                    }
+                    return null;
+                });
+            }
+            executor.submit(() -> {
+                while (!done.get()) {
+                    maxLockWaits.accumulate(jdbcTemplate.queryForObject("SELECT count(*) FROM pg_locks WHERE NOT granted", Long.class));
+                    Thread.sleep(50);
+                }
+                return null;
+            });
+
+            long start = System.nanoTime();
+            List<Callable<Void>> deleters = new ArrayList<>();
+            for (int i = 0; i < DELETE_THREADS; i++) {
+                List<UUID> slice = ids.subList(ids.size() * i / DELETE_THREADS, ids.size() * (i + 1) / DELETE_THREADS);
+                deleters.add(() -> {
+                    for (UUID id : slice) {
+                        long deleteStart = System.nanoTime();
+                        delete.accept(id);
+                        deleteLatency.record(System.nanoTime() - deleteStart);
+                    }
+                    return null;
+                });
+            }
+            for (Future<Void> future : executor.invokeAll(deleters)) {
+                future.get();
+            }
+            after.run();
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            done.set(true);
+
+            log.info("{}: {} customers in {} ms, delete p50/p99/max {}/{}/{} us", phase, ids.size(), elapsedMillis,
+                    deleteLatency.percentileMicros(50), deleteLatency.percentileMicros(99), deleteLatency.maxMicros());
+            log.info("{}: {} concurrent updates, p50/p99/p99.9/max {}/{}/{}/{} us, at most {} lock waits", phase,
+                    trafficLatency.count(), trafficLatency.percentileMicros(50), trafficLatency.percentileMicros(99),
+                    trafficLatency.percentileMicros(99.9), trafficLatency.maxMicros(), maxLockWaits.get());
+        } finally {
+            done.set(true);
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+}
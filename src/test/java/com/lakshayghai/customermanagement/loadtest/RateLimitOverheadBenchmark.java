@@ -0,0 +1,102 @@
+package com.lakshayghai.customermanagement.loadtest;
+
+import com.lakshayghai.customermanagement.filter.RateLimitFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Measures what {@link RateLimitFilter} adds to a request: bucket lookup, token and concurrency
+ * accounting and the database timer, against an empty filter chain. Limits are set high enough
+ * that nothing is rejected, so every request takes the full path. The overhead should stay in
+ * the low microseconds at p99, also with many threads contending for the shared limiter.
+ * <p>
+ * {@code ./mvnw -Ploadtest test-compile exec:java -Dloadtest.main=com.lakshayghai.customermanagement.loadtest.RateLimitOverheadBenchmark -Dexec.args="8 2000000 1000"}
+ */
+@Slf4j
+public class RateLimitOverheadBenchmark {
+
+    private static final FilterChain EMPTY_CHAIN = (request, response) -> {
+    };
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+        int clients = Math.max(threads, args.length > 2 ? Integer.parseInt(args[2]) : 1_000);
+
+        RateLimitFilter filter = new RateLimitFilter(new SimpleMeterRegistry(), 1e9, 1_000_000_000L, 20, clients * 2,
+                threads * 2, threads * 2, threads * 2, Duration.ofSeconds(1), Duration.ofSeconds(1));
+        FilterChain filtered = (request, response) -> filter.doFilter(request, response, EMPTY_CHAIN);
+
+        for (int t : new int[]{1, threads}) {
+            // Warm up both paths before measuring
+            run(EMPTY_CHAIN, t, requests / 4, clients, new LatencyHistogram());
+            run(filtered, t, requests / 4, clients, new LatencyHistogram());
+
+            LatencyHistogram baseline = new LatencyHistogram();
+            LatencyHistogram limited = new LatencyHistogram();
+            double baselineNanos = run(EMPTY_CHAIN, t, requests, clients, baseline);
+            double limitedNanos = run(filtered, t, requests, clients, limited);
+            log.info("{} thread(s): {} ns/request overhead; p50/p99/max {}/{}/{} us filtered, {}/{}/{} us bare", t,
+                    String.format("%.0f", limitedNanos - baselineNanos),
+                    limited.percentileMicros(50), limited.percentileMicros(99), limited.maxMicros(),
+                    baseline.percentileMicros(50), baseline.percentileMicros(99), baseline.maxMicros());
+        }
+    }
+
+    /**
+     * Sends {@code requests} requests from {@code threads} threads, spread over {@code clients}
+     * remote addresses, through {@code chain}.
+     *
+     * @return mean nanoseconds per request and thread
+     */
+    private static double run(FilterChain chain, int threads, int requests, int clients, LatencyHistogram latency)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Long>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                workers.add(() -> {
+                    List<MockHttpServletRequest> byClient = new ArrayList<>();
+                    for (int c = thread; c < clients; c += threads) {
+                        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/customers/1");
+                        request.setServletPath("/customers/1");
+                        request.setRemoteAddr("10.0." + (c >> 8) + '.' + (c & 0xff));
+                        byClient.add(request);
+                    }
+                    MockHttpServletResponse response = new MockHttpServletResponse();
+                    long total = 0;
+                    for (int i = 0; i < requests / threads; i++) {
+                        long start = System.nanoTime();
+                        chain.doFilter(byClient.get(i % byClient.size()), response);
+                        long elapsed = System.nanoTime() - start;
+                        latency.record(elapsed);
+                        total += elapsed;
+                    }
+                    if (response.getStatus() != 200) {
+                        throw new IllegalStateException("Benchmark requests must not be rejected, got " + response.getStatus());
+                    }
+                    return total;
+                });
+            }
+            long total = 0;
+            for (Future<Long> future : executor.invokeAll(workers)) {
+                total += future.get();
+            }
+            return (double) total / (requests / threads * threads);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.lakshayghai.customermanagement.loadtest;
+
+import com.lakshayghai.customermanagement.CustomerManagementApplication;
+import com.lakshayghai.customermanagement.model.CustomerDTO;
+import com.lakshayghai.customermanagement.model.PhoneNumberDTO;
+import com.lakshayghai.customermanagement.service.CustomerService;
+import com.lakshayghai.customermanagement.sharding.ShardRouter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures write scaling with sharding: the same create-only workload against one, two, ... up to
+ * {@code maxShards} Postgres shards, reporting throughput, latency and the speedup over one shard.
+ * <p>
+ * Each shard is a Testcontainers Postgres limited to {@code cpusPerShard} CPUs, so a shard's
+ * capacity stays fixed while shards are added. Scaling is near-linear only while the host has CPUs
+ * to spare for the application and every container; beyond that the shards compete for them.
+ * <p>
+ * {@code ./mvnw -Ploadtest test-compile exec:java -Dloadtest.main=com.lakshayghai.customermanagement.loadtest.ShardScalingBenchmark -Dexec.args="4 20000 64 2"}
+ */
+@Slf4j
+public class ShardScalingBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int maxShards = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int creates = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        double cpusPerShard = args.length > 3 ? Double.parseDouble(args[3]) : 2;
+
+        List<PostgreSQLContainer<?>> shards = new ArrayList<>();
+        for (int i = 0; i < maxShards; i++) {
+            shards.add(new PostgreSQLContainer<>(DockerImageName.parse("postgres:17.2"))
+                    .withCreateContainerCmdModifier(cmd -> cmd.getHostConfig()
+                            .withNanoCPUs((long) (cpusPerShard * 1_000_000_000L))));
+        }
+        shards.parallelStream().forEach(PostgreSQLContainer::start);
+        try {
+            double baseline = 0;
+            for (int shardCount = 1; shardCount <= maxShards; shardCount++) {
+                double throughput = run(shards.subList(0, shardCount), creates, threads);
+                if (shardCount == 1) {
+                    baseline = throughput;
+                }
+                log.info("{} shard(s): {} creates/s, speedup {}x, efficiency {}%", shardCount, (long) throughput,
+                        String.format("%.2f", throughput / baseline),
+                        Math.round(100 * throughput / (baseline * shardCount)));
+            }
+        } finally {
+            shards.parallelStream().forEach(PostgreSQLContainer::stop);
+        }
+    }
+
+    /**
+     * Creates {@code creates} customers from {@code threads} threads against an application
+     * sharded over {@code shards} and returns the throughput in creates per second.
+     */
+    private static double run(List<PostgreSQLContainer<?>> shards, int creates, int threads) throws Exception {
+        List<String> properties = new ArrayList<>(List.of("--server.port=0", "--customer.sharding.enabled=true",
+                "--customer.rate-limit.enabled=false", "--customer.purge.enabled=false"));
+        for (int i = 0; i < shards.size(); i++) {
+            PostgreSQLContainer<?> shard = shards.get(i);
+            properties.add("--customer.sharding.shards[" + i + "].url=" + shard.getJdbcUrl());
+            properties.add("--customer.sharding.shards[" + i + "].username=" + shard.getUsername());
+            properties.add("--customer.sharding.shards[" + i + "].password=" + shard.getPassword());
+            properties.add("--customer.sharding.shards[" + i + "].maximum-pool-size=" + threads);
+        }
+
+        try (ConfigurableApplicationContext context = SpringApplication.from(CustomerManagementApplication::main)
+                .run(properties.toArray(String[]::new))
+                .getApplicationContext()) {
+            CustomerService customerService = context.getBean(CustomerService.class);
+            ShardRouter shardRouter = context.getBean(ShardRouter.class);
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            shardRouter.scatter(shard -> jdbcTemplate.update("TRUNCATE customer, customer_email CASCADE"));
+
+            // Warm up connections and code paths before measuring
+            createAll(customerService, "warmup" + shards.size(), Math.min(creates / 10, 2_000), threads, new LatencyHistogram());
+
+            LatencyHistogram latency = new LatencyHistogram();
+            long start = System.nanoTime();
+            createAll(customerService, "run" + shards.size(), creates, threads, latency);
+            long elapsedNanos = System.nanoTime() - start;
+
+            List<Long> perShard = shardRouter.scatter(shard -> jdbcTemplate.queryForObject("SELECT count(*) FROM customer", Long.class));
+            log.info("{} shard(s): {} creates in {} ms, p50/p99/max {}/{}/{} us, customers per shard {}", shards.size(),
+                    creates, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), latency.percentileMicros(50),
+                    latency.percentileMicros(99), latency.maxMicros(), perShard);
+            return creates * 1e9 / elapsedNanos;
+        }
+    }
+
+    private static void createAll(CustomerService customerService, String prefix, int creates, int threads,
+                                  LatencyHistogram latency) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Void>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int from = creates * t / threads;
+                int to = creates * (t + 1) / threads;
+                workers.add(() -> {
+                    for (int i = from; i < to; i++) {
+                        CustomerDTO customerDTO = customerDTO(prefix + '.' + i + "@example.com");
+                        long start = System.nanoTime();
+                        ResponseEntity<?> response = customerService.createCustomerWithPhoneNumbers(customerDTO);
+                        latency.record(System.nanoTime() - start);
+                        if (response.getStatusCode() != HttpStatus.CREATED) {
+                            throw new IllegalStateException("Create returned " + response.getStatusCode() + ": " + response.getBody());
+                        }
+                    }
+                    return null;
+                });
+            }
+            for (Future<Void> future : executor.invokeAll(workers)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static CustomerDTO customerDTO(String emailAddress) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        PhoneNumberDTO phone = new PhoneNumberDTO();
+        phone.setPhoneNumber(SyntheticDataGenerator.randomPhoneNumber("US", random));
+        phone.setPhoneType("MOBILE");
+        phone.setCountryCode("US");
+
+        CustomerDTO customerDTO = new CustomerDTO();
+        customerDTO.setFirstName("Bench");
+        customerDTO.setLastName("Mark");
+        customerDTO.setEmailAddress(emailAddress);
+        customerDTO.setPhoneNumbers(List.of(phone));
+        return customerDTO;
+    }
+}
@@ -0,0 +1,218 @@
+package com.lakshayghai.customermanagement.loadtest;
+
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.Phonenumber;
+import com.lakshayghai.customermanagement.duplicate.DuplicateKeys;
+import com.lakshayghai.customermanagement.util.ValidationUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+
+import javax.sql.DataSource;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Seeds the customer tables with synthetic rows through {@code COPY ... FROM STDIN}, bypassing the
+ * API so millions of customers can be loaded in minutes. Every generated phone number passes
+ * {@link ValidationUtil#isValidPhoneNumber} and rows carry their duplicate detection keys, so seeded
+ * rows behave like real ones.
+ * <p>
+ * With a {@code duplicateRate}, that share of customers are near-duplicates of the customer before
+ * them: the same name with either an upper-cased, plus-addressed copy of its email or one of its
+ * phone numbers.
+ */
+@Slf4j
+public class SyntheticDataGenerator {
+
+    private static final String[] REGIONS = {"US", "GB", "DE", "FR", "IN", "CA", "AU", "NL"};
+    private static final String[] PHONE_TYPES = {"MOBILE", "HOME", "WORK"};
+    private static final String[] FIRST_NAMES = {"James", "Mary", "John", "Patricia", "Robert", "Jennifer", "Michael",
+            "Linda", "David", "Elizabeth", "Wei", "Priya", "Lukas", "Chloe", "Noah", "Amara"};
+    private static final String[] LAST_NAMES = {"Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller",
+            "Davis", "Muller", "Schmidt", "Patel", "Sharma", "Martin", "Bernard", "Nguyen", "Okafor"};
+    private static final int BATCH_SIZE = 10_000;
+
+    private static final PhoneNumberUtil phoneNumberUtil = PhoneNumberUtil.getInstance();
+
+    private final DataSource dataSource;
+    private final double duplicateRate;
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong duplicates = new AtomicLong();
+
+    public SyntheticDataGenerator(DataSource dataSource) {
+        this(dataSource, 0);
+    }
+
+    public SyntheticDataGenerator(DataSource dataSource, double duplicateRate) {
+        this.dataSource = dataSource;
+        this.duplicateRate = duplicateRate;
+    }
+
+    /**
+     * Near-duplicate customers seeded so far.
+     */
+    public long duplicates() {
+        return duplicates.get();
+    }
+
+    /**
+     * Inserts {@code customers} customers with 1-{@code maxPhonesPerCustomer} phone numbers each.
+     *
+     * @return a sample of the generated customer ids, at most {@code sampleSize} long
+     */
+    public List<UUID> seed(long customers, int maxPhonesPerCustomer, int threads, int sampleSize) throws Exception {
+        long start = System.nanoTime();
+        AtomicLong inserted = new AtomicLong();
+        long batches = (customers + BATCH_SIZE - 1) / BATCH_SIZE;
+        List<UUID> sample = new ArrayList<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<UUID>>> futures = new ArrayList<>();
+            for (long batch = 0; batch < batches; batch++) {
+                long first = batch * BATCH_SIZE;
+                int size = (int) Math.min(BATCH_SIZE, customers - first);
+                int batchSample = (int) Math.min(size, Math.max(1, (long) sampleSize * size / customers));
+                futures.add(executor.submit(() -> {
+                    List<UUID> ids = copyBatch(first, size, maxPhonesPerCustomer, batchSample);
+                    long done = inserted.addAndGet(size);
+                    if (done % (BATCH_SIZE * 50L) == 0 || done == customers) {
+                        log.info("Seeded {}/{} customers", done, customers);
+                    }
+                    return ids;
+                }));
+            }
+            for (Future<List<UUID>> future : futures) {
+                sample.addAll(future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        log.info("Seeded {} customers in {} ms", customers, (System.nanoTime() - start) / 1_000_000);
+        return sample.size() > sampleSize ? sample.subList(0, sampleSize) : sample;
+    }
+
+    private List<UUID> copyBatch(long first, int size, int maxPhonesPerCustomer, int sampleSize) throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder customerRows = new StringBuilder(size * 128);
+        StringBuilder phoneRows = new StringBuilder(size * 96 * maxPhonesPerCustomer);
+        List<UUID> sample = new ArrayList<>(sampleSize);
+        String now = LocalDateTime.now().toString();
+        String previousFirstName = null;
+        String previousLastName = null;
+        String previousLocalPart = null;
+        String[] previousPhone = null;
+
+        for (int i = 0; i < size; i++) {
+            UUID id = UUID.randomUUID();
+            if (sample.size() < sampleSize) {
+                sample.add(id);
+            }
+            boolean duplicate = previousFirstName != null && random.nextDouble() < duplicateRate;
+            boolean sharesPhone = duplicate && random.nextBoolean();
+            String firstName = duplicate ? previousFirstName : pick(FIRST_NAMES, random);
+            String lastName = duplicate ? previousLastName : pick(LAST_NAMES, random);
+            String localPart = firstName.toLowerCase() + '.' + lastName.toLowerCase() + '.' + runId + '.' + (first + i);
+            String email = duplicate && !sharesPhone
+                    ? previousLocalPart.toUpperCase() + '+' + (first + i) + "@example.com"
+                    : localPart + "@example.com";
+            customerRows.append(id).append(',')
+                    .append(firstName).append(',')
+                    .append(random.nextInt(4) == 0 ? pick(FIRST_NAMES, random) : "").append(',')
+                    .append(lastName).append(',')
+                    .append(email).append(',')
+                    .append(DuplicateKeys.emailLocalKey(email)).append(',')
+                    .append(DuplicateKeys.nameKey(firstName, lastName)).append(',')
+                    .append(now).append(',').append(now).append('\n');
+
+            int phones = 1 + random.nextInt(maxPhonesPerCustomer);
+            String[] firstPhone = null;
+            for (int p = 0; p < phones; p++) {
+                String region = pick(REGIONS, random);
+                String number = randomPhoneNumber(region, random);
+                String type = pick(PHONE_TYPES, random);
+                if (p == 0 && sharesPhone) {
+                    region = previousPhone[0];
+                    number = previousPhone[1];
+                    type = PHONE_TYPES[(Arrays.asList(PHONE_TYPES).indexOf(previousPhone[2]) + 1) % PHONE_TYPES.length];
+                }
+                if (p == 0) {
+                    firstPhone = new String[]{region, number, type};
+                }
+                phoneRows.append(UUID.randomUUID()).append(',')
+                        .append(id).append(',')
+                        .append(number).append(',')
+                        .append(number).append(',')
+                        .append(type).append(',')
+                        .append(random.nextBoolean()).append(',')
+                        .append(region).append(',')
+                        .append(now).append(',').append(now).append('\n');
+            }
+
+            if (duplicate) {
+                duplicates.incrementAndGet();
+            } else {
+                previousFirstName = firstName;
+                previousLastName = lastName;
+                previousLocalPart = localPart;
+                previousPhone = firstPhone;
+            }
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            PGConnection pgConnection = connection.unwrap(PGConnection.class);
+            pgConnection.getCopyAPI().copyIn(
+                    "COPY customer (id, first_name, middle_name, last_name, email_address, email_local_key, name_key, created_at, modified_at) "
+                            + "FROM STDIN WITH (FORMAT csv)", new StringReader(customerRows.toString()));
+            pgConnection.getCopyAPI().copyIn(
+                    "COPY phone_number (id, customer_id, phone_number, e164, phone_type, is_verified, country_code, created_at, modified_at) "
+                            + "FROM STDIN WITH (FORMAT csv)", new StringReader(phoneRows.toString()));
+            connection.commit();
+        }
+        return sample;
+    }
+
+    /**
+     * Builds a valid E.164 number for {@code region} by randomising every digit of libphonenumber's
+     * example number after the first, area code included, until it validates and fits the 15
+     * character column. Millions of customers then rarely share a number by chance, which would
+     * otherwise cluster them as duplicates.
+     */
+    public static String randomPhoneNumber(String region, ThreadLocalRandom random) {
+        Phonenumber.PhoneNumber example = phoneNumberUtil.getExampleNumberForType(region,
+                random.nextBoolean() ? PhoneNumberUtil.PhoneNumberType.MOBILE : PhoneNumberUtil.PhoneNumberType.FIXED_LINE);
+        String prefix = "+" + example.getCountryCode();
+        String national = Long.toString(example.getNationalNumber());
+        // The leading digit selects mobile or fixed-line ranges; everything after it is drawn
+        String fixed = national.substring(0, 1);
+        int randomDigits = national.length() - 1;
+
+        for (int attempt = 0; attempt < 50; attempt++) {
+            StringBuilder candidate = new StringBuilder(prefix).append(fixed);
+            for (int d = 0; d < randomDigits; d++) {
+                candidate.append((char) ('0' + random.nextInt(10)));
+            }
+            String number = candidate.toString();
+            if (number.length() <= 15 && ValidationUtil.isValidPhoneNumber(number, region)) {
+                return number;
+            }
+        }
+        return prefix + national;
+    }
+
+    private static String pick(String[] values, ThreadLocalRandom random) {
+        return values[random.nextInt(values.length)];
+    }
+}
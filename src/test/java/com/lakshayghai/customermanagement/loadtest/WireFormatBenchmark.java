@@ -0,0 +1,92 @@
+package com.lakshayghai.customermanagement.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lakshayghai.customermanagement.config.WireFormatConfig;
+import com.lakshayghai.customermanagement.entity.Customer;
+import com.lakshayghai.customermanagement.entity.PhoneNumber;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+/**
+ * Compares the size and the encode and decode time of a customer in JSON, CBOR and Smile, with
+ * the object mappers {@link WireFormatConfig} registers. Each time is the fastest of several rounds
+ * after a warm-up, so JIT compilation and pauses of other work do not count.
+ * <p>
+ * {@code ./mvnw -Ploadtest test-compile exec:java -Dloadtest.main=com.lakshayghai.customermanagement.loadtest.WireFormatBenchmark -Dexec.args="10 200000"}
+ */
+@Slf4j
+public class WireFormatBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        int phones = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+
+        WireFormatConfig config = new WireFormatConfig();
+        Map<String, ObjectMapper> mappers = new LinkedHashMap<>();
+        mappers.put("JSON", new Jackson2ObjectMapperBuilder().build());
+        mappers.put("CBOR", config.cborHttpMessageConverter(new Jackson2ObjectMapperBuilder()).getObjectMapper());
+        mappers.put("Smile", config.smileHttpMessageConverter(new Jackson2ObjectMapperBuilder()).getObjectMapper());
+        Customer customer = customer(phones);
+
+        for (Map.Entry<String, ObjectMapper> format : mappers.entrySet()) {
+            ObjectMapper mapper = format.getValue();
+            byte[] encoded = mapper.writeValueAsBytes(customer);
+            long encodeNanos = bestNanos(() -> mapper.writeValueAsBytes(customer), iterations);
+            long decodeNanos = bestNanos(() -> mapper.readValue(encoded, Customer.class), iterations);
+            log.info("{}: {} bytes, encode {} ns, decode {} ns per customer with {} phone numbers",
+                    format.getKey(), encoded.length, encodeNanos, decodeNanos, phones);
+        }
+    }
+
+    /**
+     * @return mean nanoseconds per call in the fastest measured round
+     */
+    private static long bestNanos(Callable<?> operation, int iterations) throws Exception {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round <= ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                operation.call();
+            }
+            // Round 0 warms up
+            if (round > 0) {
+                best = Math.min(best, (System.nanoTime() - start) / iterations);
+            }
+        }
+        return best;
+    }
+
+    private static Customer customer(int phones) {
+        Customer customer = new Customer();
+        customer.setId(UUID.randomUUID());
+        customer.setFirstName("John");
+        customer.setLastName("Doe");
+        customer.setEmailAddress("john.doe@example.com");
+        customer.setCreatedAt(LocalDateTime.now());
+        customer.setModifiedAt(LocalDateTime.now());
+
+        List<PhoneNumber> phoneNumbers = new ArrayList<>();
+        for (int i = 0; i < phones; i++) {
+            PhoneNumber phoneNumber = new PhoneNumber();
+            phoneNumber.setId(UUID.randomUUID());
+            phoneNumber.setPhoneNumber(String.format("+1212555%04d", i % 10_000));
+            phoneNumber.setPhoneType("MOBILE");
+            phoneNumber.setCountryCode("US");
+            phoneNumber.setCreatedAt(LocalDateTime.now());
+            phoneNumber.setModifiedAt(LocalDateTime.now());
+            phoneNumbers.add(phoneNumber);
+        }
+        customer.setPhoneNumbers(phoneNumbers);
+        return customer;
+    }
+}
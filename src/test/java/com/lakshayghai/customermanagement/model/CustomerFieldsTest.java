@@ -0,0 +1,77 @@
+package com.lakshayghai.customermanagement.model;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lakshayghai.customermanagement.entity.Customer;
+import com.lakshayghai.customermanagement.entity.PhoneNumber;
+import org.hibernate.collection.spi.PersistentBag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CustomerFieldsTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void parse_NothingRequested_SkipsPhoneNumbers() {
+        assertFalse(CustomerFields.parse(null, null).includesPhoneNumbers());
+        assertFalse(CustomerFields.parse("firstName, emailAddress", "").includesPhoneNumbers());
+    }
+
+    @Test
+    void parse_PhoneNumbersRequested_IncludesThem() {
+        assertTrue(CustomerFields.parse(null, "phoneNumbers").includesPhoneNumbers());
+        assertTrue(CustomerFields.parse("emailAddress,phoneNumbers", null).includesPhoneNumbers());
+    }
+
+    @Test
+    void parse_UnknownName_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> CustomerFields.parse("password", null));
+        assertThrows(IllegalArgumentException.class, () -> CustomerFields.parse(null, "addresses"));
+    }
+
+    @Test
+    void select_IncludeWithFields_KeepsIdSelectedFieldsAndPhoneNumbers() {
+        Customer customer = customer();
+        customer.getPhoneNumbers().add(new PhoneNumber());
+
+        JsonNode node = (JsonNode) CustomerFields.parse("lastName", "phoneNumbers").select(objectMapper, customer);
+
+        assertEquals(3, node.size());
+        assertEquals(customer.getId().toString(), node.get("id").asText());
+        assertEquals("Doe", node.get("lastName").asText());
+        assertEquals(1, node.get("phoneNumbers").size());
+    }
+
+    @Test
+    void select_AllFields_ReturnsCustomerUnchanged() {
+        Customer customer = customer();
+
+        assertSame(customer, CustomerFields.CUSTOMER_ONLY.select(objectMapper, customer));
+        assertEquals(List.of(customer), CustomerFields.CUSTOMER_ONLY.select(objectMapper, List.of(customer)));
+    }
+
+    @Test
+    void serialize_PhoneNumbersNotLoaded_LeavesThemOut() {
+        Customer customer = customer();
+        customer.setPhoneNumbers(new PersistentBag<>());
+
+        JsonNode node = objectMapper.valueToTree(customer);
+
+        assertFalse(node.has("phoneNumbers"));
+        assertEquals("John", node.get("firstName").asText());
+    }
+
+    private static Customer customer() {
+        Customer customer = new Customer();
+        customer.setId(UUID.randomUUID());
+        customer.setFirstName("John");
+        customer.setLastName("Doe");
+        customer.setEmailAddress("john.doe@example.com");
+        return customer;
+    }
+}
@@ -0,0 +1,99 @@
+package com.lakshayghai.customermanagement.purge;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CustomerArchiveTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void find_OpenSegment_ReadsPendingCustomer() throws Exception {
+        CustomerArchive archive = new CustomerArchive(directory, DataSize.ofMegabytes(1));
+        List<ArchivedCustomer> customers = customers(3);
+
+        archive.append(customers);
+
+        assertEquals(Optional.of(customers.get(1)), archive.find(customers.get(1).getId()));
+        assertEquals(Optional.empty(), archive.find(UUID.randomUUID()));
+    }
+
+    @Test
+    void find_SealedSegments_SearchesIndexes() throws Exception {
+        CustomerArchive archive = new CustomerArchive(directory, DataSize.ofMegabytes(1));
+        List<ArchivedCustomer> first = customers(50);
+        List<ArchivedCustomer> second = customers(50);
+
+        archive.append(first.subList(0, 25));
+        archive.append(first.subList(25, 50));
+        archive.seal();
+        archive.append(second);
+        archive.seal();
+
+        assertEquals(2, files(".idx"));
+        for (ArchivedCustomer customer : first) {
+            assertEquals(Optional.of(customer), archive.find(customer.getId()));
+        }
+        assertEquals(Optional.of(second.get(49)), archive.find(second.get(49).getId()));
+        assertEquals(Optional.empty(), archive.find(UUID.randomUUID()));
+    }
+
+    @Test
+    void find_ArchivedTwice_ReturnsNewestCopy() throws Exception {
+        CustomerArchive archive = new CustomerArchive(directory, DataSize.ofMegabytes(1));
+        UUID id = UUID.randomUUID();
+
+        archive.append(List.of(new ArchivedCustomer(id, "{\"version\":1}")));
+        archive.seal();
+        archive.append(List.of(new ArchivedCustomer(id, "{\"version\":2}")));
+        archive.seal();
+
+        assertEquals("{\"version\":2}", archive.find(id).orElseThrow().getJson());
+    }
+
+    @Test
+    void append_SegmentFull_SealsIt() throws Exception {
+        CustomerArchive archive = new CustomerArchive(directory, DataSize.ofBytes(1));
+
+        archive.append(customers(2));
+
+        assertEquals(1, files(".idx"));
+        assertEquals(0, files(".pending"));
+    }
+
+    @Test
+    void constructor_SegmentLeftOpen_SealsIt() throws Exception {
+        List<ArchivedCustomer> customers = customers(10);
+        new CustomerArchive(directory, DataSize.ofMegabytes(1)).append(customers);
+        assertEquals(1, files(".pending"));
+
+        CustomerArchive reopened = new CustomerArchive(directory, DataSize.ofMegabytes(1));
+
+        assertEquals(0, files(".pending"));
+        assertEquals(Optional.of(customers.get(7)), reopened.find(customers.get(7).getId()));
+    }
+
+    private long files(String suffix) throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(suffix)).count();
+        }
+    }
+
+    private static List<ArchivedCustomer> customers(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new ArchivedCustomer(UUID.randomUUID(), "{\"customer\":{\"first_name\":\"Customer " + i + "\"}}"))
+                .toList();
+    }
+}
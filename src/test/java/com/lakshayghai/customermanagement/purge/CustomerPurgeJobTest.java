@@ -0,0 +1,76 @@
+package com.lakshayghai.customermanagement.purge;
+
+import com.lakshayghai.customermanagement.sharding.ShardRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CustomerPurgeJobTest {
+
+    @Mock
+    private CustomerPurgeStore customerPurgeStore;
+
+    @Mock
+    private CustomerArchive customerArchive;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void purge_DeletedCustomers_ArchivesBeforeDeletingInBatches() throws Exception {
+        List<UUID> first = List.of(UUID.randomUUID(), UUID.randomUUID());
+        List<UUID> second = List.of(UUID.randomUUID());
+        when(customerPurgeStore.lockDeleted(any(), eq(2))).thenReturn(first, second, List.of());
+        when(customerPurgeStore.delete(any())).thenAnswer(invocation -> invocation.<List<UUID>>getArgument(0).size());
+
+        long purged = job(Duration.ofHours(1)).purge();
+
+        assertEquals(3, purged);
+        var order = inOrder(customerPurgeStore, customerArchive);
+        order.verify(customerArchive).append(any());
+        order.verify(customerPurgeStore).delete(first);
+        order.verify(customerArchive).append(any());
+        order.verify(customerPurgeStore).delete(second);
+        order.verify(customerArchive).seal();
+    }
+
+    @Test
+    void purge_ArchiveFails_DeletesNothing() throws Exception {
+        when(customerPurgeStore.lockDeleted(any(), anyInt())).thenReturn(List.of(UUID.randomUUID()));
+        doThrow(new IOException("disk full")).when(customerArchive).append(any());
+
+        long purged = job(Duration.ofHours(1)).purge();
+
+        assertEquals(0, purged);
+        verify(customerPurgeStore, never()).delete(any());
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    void purge_TimeUp_StopsBeforeFirstBatch() throws Exception {
+        long purged = job(Duration.ZERO).purge();
+
+        assertEquals(0, purged);
+        verifyNoInteractions(customerPurgeStore);
+        verify(customerArchive).seal();
+    }
+
+    private CustomerPurgeJob job(Duration maxDuration) {
+        return new CustomerPurgeJob(customerPurgeStore, customerArchive, new ShardRouter(1, 16), transactionManager,
+                new SimpleMeterRegistry(), true, Duration.ofHours(24), 2, Duration.ZERO, maxDuration);
+    }
+}
@@ -0,0 +1,145 @@
+package com.lakshayghai.customermanagement.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.lakshayghai.customermanagement.entity.Customer;
+import com.lakshayghai.customermanagement.history.CustomerHistoryStore;
+import com.lakshayghai.customermanagement.model.CustomerHistoryEntry;
+import com.lakshayghai.customermanagement.model.CustomerHistoryPage;
+import com.lakshayghai.customermanagement.repository.CustomerRepository;
+import com.lakshayghai.customermanagement.sharding.ShardRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CustomerHistoryServiceTest {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2026, 1, 5, 9, 30);
+
+    @Mock
+    private CustomerHistoryStore customerHistoryStore;
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private CustomerHistoryService customerHistoryService;
+    private UUID testUuid;
+
+    @BeforeEach
+    void setUp() {
+        customerHistoryService = new CustomerHistoryService(customerHistoryStore, customerRepository,
+                new ShardRouter(1, 16), objectMapper, 24);
+        testUuid = UUID.randomUUID();
+    }
+
+    @Test
+    void getCustomerAsOf_LaterRename_ReturnsPreviousName() throws Exception {
+        when(customerRepository.findByIdWithPhoneNumbers(testUuid)).thenReturn(Optional.of(customer("Smyth")));
+        when(customerHistoryStore.findChangedAfter(testUuid, LocalDateTime.of(2026, 2, 1, 0, 0))).thenReturn(List.of(
+                entry("UPDATE", LocalDateTime.of(2026, 3, 1, 0, 0), "{\"lastName\": [\"Smith\", \"Smyth\"]}")));
+
+        ResponseEntity<?> response = customerHistoryService.getCustomerAsOf(testUuid, LocalDateTime.of(2026, 2, 1, 0, 0));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("Smith", ((JsonNode) response.getBody()).get("lastName").asText());
+    }
+
+    @Test
+    void getCustomerAsOf_BeforeCreation_ReturnsNotFound() {
+        when(customerRepository.findByIdWithPhoneNumbers(testUuid)).thenReturn(Optional.of(customer("Smith")));
+
+        ResponseEntity<?> response = customerHistoryService.getCustomerAsOf(testUuid, CREATED_AT.minusDays(1));
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void getCustomerAsOf_BeforeRetentionHorizon_ReturnsGone() {
+        ResponseEntity<?> response = customerHistoryService.getCustomerAsOf(testUuid, LocalDateTime.now().minusMonths(25));
+
+        assertEquals(HttpStatus.GONE, response.getStatusCode());
+        verifyNoInteractions(customerHistoryStore, customerRepository);
+    }
+
+    @Test
+    void getCustomerAsOf_DeletedLater_RestoresDeletedCustomer() throws Exception {
+        when(customerRepository.findByIdWithPhoneNumbers(testUuid)).thenReturn(Optional.empty());
+        when(customerHistoryStore.findChangedAfter(eq(testUuid), any())).thenReturn(List.of(entry("DELETE",
+                LocalDateTime.of(2026, 3, 1, 0, 0), """
+                        {"firstName": ["John", null], "lastName": ["Smith", null], "createdAt": ["2026-01-05T09:30:00", null],
+                         "phoneNumbers": {"added": [], "removed": [{"id": "a", "phoneNumber": "+12125552368"}]}}""")));
+
+        ResponseEntity<?> response = customerHistoryService.getCustomerAsOf(testUuid, LocalDateTime.of(2026, 2, 1, 0, 0));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        JsonNode body = (JsonNode) response.getBody();
+        assertEquals(testUuid.toString(), body.get("id").asText());
+        assertEquals("Smith", body.get("lastName").asText());
+        assertEquals(1, body.get("phoneNumbers").size());
+    }
+
+    @Test
+    void getCustomerAsOf_DeletedBefore_ReturnsNotFound() {
+        when(customerRepository.findByIdWithPhoneNumbers(testUuid)).thenReturn(Optional.empty());
+
+        ResponseEntity<?> response = customerHistoryService.getCustomerAsOf(testUuid, LocalDateTime.of(2026, 4, 1, 0, 0));
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void getHistory_MorePages_ReturnsCursorOfLastEntry() throws Exception {
+        CustomerHistoryEntry newest = entry("UPDATE", LocalDateTime.of(2026, 3, 2, 0, 0), "{}");
+        CustomerHistoryEntry older = entry("UPDATE", LocalDateTime.of(2026, 3, 1, 0, 0), "{}");
+        when(customerHistoryStore.findPage(testUuid, null, 0, 0, 2)).thenReturn(List.of(newest, older));
+
+        ResponseEntity<?> response = customerHistoryService.getHistory(testUuid, 1, null);
+
+        CustomerHistoryPage page = (CustomerHistoryPage) response.getBody();
+        assertEquals(List.of(newest), page.getContent());
+        assertEquals("2026-03-02T00:00_1_7", page.getNextCursor());
+
+        customerHistoryService.getHistory(testUuid, 1, page.getNextCursor());
+        verify(customerHistoryStore).findPage(testUuid, LocalDateTime.of(2026, 3, 2, 0, 0), 1, 7, 2);
+    }
+
+    @Test
+    void getHistory_InvalidCursor_ReturnsBadRequest() {
+        ResponseEntity<?> response = customerHistoryService.getHistory(testUuid, 10, "yesterday");
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(customerHistoryStore);
+    }
+
+    private Customer customer(String lastName) {
+        Customer customer = new Customer();
+        customer.setId(testUuid);
+        customer.setFirstName("John");
+        customer.setLastName(lastName);
+        customer.setEmailAddress("john@example.com");
+        customer.setCreatedAt(CREATED_AT);
+        customer.setModifiedAt(CREATED_AT);
+        return customer;
+    }
+
+    private CustomerHistoryEntry entry(String operation, LocalDateTime changedAt, String changes) throws Exception {
+        return new CustomerHistoryEntry(1, 7, operation, changedAt, objectMapper.readTree(changes));
+    }
+}
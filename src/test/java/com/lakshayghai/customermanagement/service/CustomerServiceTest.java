@@ -1,21 +1,40 @@
 package com.lakshayghai.customermanagement.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lakshayghai.customermanagement.duplicate.DuplicateDetector;
 import com.lakshayghai.customermanagement.entity.Customer;
 import com.lakshayghai.customermanagement.entity.PhoneNumber;
+import com.lakshayghai.customermanagement.history.CustomerHistoryRecorder;
 import com.lakshayghai.customermanagement.model.CustomerDTO;
+import com.lakshayghai.customermanagement.model.CustomerFields;
+import com.lakshayghai.customermanagement.model.CustomerPage;
 import com.lakshayghai.customermanagement.model.PhoneNumberDTO;
+import com.lakshayghai.customermanagement.model.PhoneNumberPage;
+import com.lakshayghai.customermanagement.purge.ArchivedCustomer;
+import com.lakshayghai.customermanagement.purge.CustomerArchive;
+import com.lakshayghai.customermanagement.purge.CustomerPurgeStore;
 import com.lakshayghai.customermanagement.repository.CustomerRepository;
 import com.lakshayghai.customermanagement.repository.PhoneNumberRepository;
+import com.lakshayghai.customermanagement.sharding.ShardRouter;
+import com.lakshayghai.customermanagement.stats.CustomerCounters;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -34,7 +53,30 @@ public class CustomerServiceTest {
     @Mock
     private PhoneNumberRepository phoneNumberRepository;
 
-    @InjectMocks
+    @Mock
+    private EmailBloomFilter emailBloomFilter;
+
+    @Mock
+    private DuplicateDetector duplicateDetector;
+
+    @Mock
+    private CustomerHistoryRecorder customerHistoryRecorder;
+
+    @Mock
+    private CustomerPurgeStore customerPurgeStore;
+
+    @Mock
+    private CustomerArchive customerArchive;
+
+    @Mock
+    private CustomerCounters customerCounters;
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     private CustomerService customerService;
 
     private CustomerDTO validCustomerDTO;
@@ -43,6 +85,12 @@ public class CustomerServiceTest {
 
     @BeforeEach
     void setUp() {
+        ShardRouter shardRouter = new ShardRouter(1, 128);
+        customerService = new CustomerService(customerRepository, phoneNumberRepository, validator, objectMapper,
+                shardRouter, new EmailDirectory(customerRepository, shardRouter, null, emailBloomFilter),
+                new PhoneNumberValidator(64, 1), duplicateDetector, customerHistoryRecorder,
+                customerPurgeStore, customerArchive, customerCounters);
+        lenient().when(emailBloomFilter.mightContain(any())).thenReturn(true);
         testUuid = UUID.randomUUID();
 
         // Setup valid phone number DTO
@@ -89,6 +137,7 @@ public class CustomerServiceTest {
         assertNotNull(response.getBody());
         verify(customerRepository, times(1)).save(any(Customer.class));
         verify(phoneNumberRepository, times(1)).saveAll(any());
+        verify(customerCounters, times(1)).customerAdded(validCustomer);
     }
 
     @Test
@@ -109,7 +158,7 @@ public class CustomerServiceTest {
         ResponseEntity<?> response = customerService.createCustomerWithPhoneNumbers(validCustomerDTO);
 
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
-        assertTrue(((Map<?, ?>)response.getBody()).containsKey("phoneNumber"));
+        assertTrue(((Map<?, ?>)response.getBody()).containsKey("phoneNumbers[0].phoneNumber"));
         verify(customerRepository, never()).save(any(Customer.class));
     }
 
@@ -117,37 +166,143 @@ public class CustomerServiceTest {
     void getCustomerById_ExistingCustomer_ReturnsCustomer() {
         when(customerRepository.findByIdWithPhoneNumbers(testUuid)).thenReturn(Optional.of(validCustomer));
 
-        ResponseEntity<?> response = customerService.getCustomerById(testUuid);
+        ResponseEntity<?> response = customerService.getCustomerById(testUuid, CustomerFields.WITH_PHONE_NUMBERS);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
         assertEquals(validCustomer, response.getBody());
     }
 
+    @Test
+    void getCustomerById_PhoneNumbersNotRequested_SkipsJoin() {
+        when(customerRepository.findById(testUuid)).thenReturn(Optional.of(validCustomer));
+
+        ResponseEntity<?> response = customerService.getCustomerById(testUuid, CustomerFields.CUSTOMER_ONLY);
+
+        assertEquals(validCustomer, response.getBody());
+        verify(customerRepository, never()).findByIdWithPhoneNumbers(any());
+    }
+
+    @Test
+    void getCustomerById_SelectedFields_ReturnsOnlyThose() {
+        when(customerRepository.findById(testUuid)).thenReturn(Optional.of(validCustomer));
+
+        ResponseEntity<?> response = customerService.getCustomerById(testUuid, CustomerFields.parse("firstName,emailAddress", null));
+
+        JsonNode body = (JsonNode) response.getBody();
+        List<String> names = new ArrayList<>();
+        body.fieldNames().forEachRemaining(names::add);
+        assertEquals(List.of("id", "firstName", "emailAddress"), names);
+        assertEquals("John", body.get("firstName").asText());
+    }
+
     @Test
     void getCustomerById_NonExistingCustomer_ReturnsNotFound() {
-        when(customerRepository.findByIdWithPhoneNumbers(testUuid)).thenReturn(Optional.empty());
+        when(customerRepository.findById(testUuid)).thenReturn(Optional.empty());
 
-        ResponseEntity<?> response = customerService.getCustomerById(testUuid);
+        ResponseEntity<?> response = customerService.getCustomerById(testUuid, CustomerFields.CUSTOMER_ONLY);
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         assertTrue(((Map<?, ?>)response.getBody()).containsKey("error"));
     }
 
+    @Test
+    void createCustomer_EmailNotInFilter_SkipsExistsQuery() {
+        when(emailBloomFilter.mightContain("john.doe@example.com")).thenReturn(false);
+        when(customerRepository.save(any(Customer.class))).thenReturn(validCustomer);
+
+        ResponseEntity<?> response = customerService.createCustomerWithPhoneNumbers(validCustomerDTO);
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        verify(customerRepository, never()).existsByEmailAddress(any());
+        verify(emailBloomFilter).add("john.doe@example.com");
+    }
+
+    @Test
+    void createCustomer_ExistingEmail_ReturnsBadRequest() {
+        when(customerRepository.existsByEmailAddress("john.doe@example.com")).thenReturn(true);
+
+        ResponseEntity<?> response = customerService.createCustomerWithPhoneNumbers(validCustomerDTO);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(customerRepository, never()).save(any());
+    }
+
     @Test
     void getAllCustomers_ReturnsAllCustomers() {
         List<Customer> customers = List.of(validCustomer);
         when(customerRepository.findAll()).thenReturn(customers);
 
-        List<Customer> response = customerService.getAllCustomers();
+        ResponseEntity<?> response = customerService.getAllCustomers(CustomerFields.CUSTOMER_ONLY);
 
-        assertEquals(customers.size(), response.size());
-        assertEquals(customers.get(0), response.get(0));
+        assertEquals(customers, response.getBody());
+        verify(customerRepository, never()).findAllWithPhoneNumbers();
+    }
+
+    @Test
+    void getPhoneNumbers_MorePhoneNumbers_ReturnsPageAndCursor() {
+        PhoneNumber first = new PhoneNumber();
+        first.setId(UUID.randomUUID());
+        PhoneNumber second = new PhoneNumber();
+        second.setId(UUID.randomUUID());
+        when(customerRepository.existsById(testUuid)).thenReturn(true);
+        when(phoneNumberRepository.findByCustomerIdOrderById(testUuid, Limit.of(2)))
+                .thenReturn(List.of(first, second));
+
+        ResponseEntity<?> response = customerService.getPhoneNumbers(testUuid, 1, null);
+
+        PhoneNumberPage page = (PhoneNumberPage) response.getBody();
+        assertEquals(List.of(first), page.getContent());
+        assertEquals(first.getId(), page.getNextCursor());
+    }
+
+    @Test
+    void getPhoneNumbers_NonExistingCustomer_ReturnsNotFound() {
+        ResponseEntity<?> response = customerService.getPhoneNumbers(testUuid, 10, UUID.randomUUID());
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        verifyNoInteractions(phoneNumberRepository);
+    }
+
+    @Test
+    void getCustomerPage_MoreCustomers_ReturnsPageAndCursor() {
+        Customer second = new Customer();
+        second.setId(UUID.randomUUID());
+        when(customerRepository.findIds(Limit.of(3))).thenReturn(List.of(testUuid, second.getId(), UUID.randomUUID()));
+        when(customerRepository.findAllByIdWithPhoneNumbers(List.of(testUuid, second.getId())))
+                .thenReturn(List.of(second, validCustomer));
+
+        ResponseEntity<?> response = customerService.getCustomerPage(2, null, CustomerFields.WITH_PHONE_NUMBERS);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        CustomerPage page = (CustomerPage) response.getBody();
+        assertEquals(List.of(validCustomer, second), page.getContent());
+        assertEquals(second.getId(), page.getNextCursor());
+    }
+
+    @Test
+    void getCustomerPage_LastPage_ReturnsNoCursor() {
+        when(customerRepository.findIdsAfter(testUuid, Limit.of(3))).thenReturn(List.of());
+
+        ResponseEntity<?> response = customerService.getCustomerPage(2, testUuid, CustomerFields.CUSTOMER_ONLY);
+
+        CustomerPage page = (CustomerPage) response.getBody();
+        assertTrue(page.getContent().isEmpty());
+        assertNull(page.getNextCursor());
+        verify(customerRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void getCustomerPage_InvalidSize_ReturnsBadRequest() {
+        ResponseEntity<?> response = customerService.getCustomerPage(0, null, CustomerFields.CUSTOMER_ONLY);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verifyNoInteractions(customerRepository);
     }
 
     @Test
     void updateCustomer_ValidData_Success() {
-        when(customerRepository.findById(testUuid)).thenReturn(Optional.of(validCustomer));
+        when(customerRepository.findByIdForUpdate(testUuid)).thenReturn(Optional.of(validCustomer));
         when(customerRepository.save(any(Customer.class))).thenReturn(validCustomer);
         when(phoneNumberRepository.saveAll(any())).thenReturn(new ArrayList<>());
 
@@ -160,7 +315,7 @@ public class CustomerServiceTest {
 
     @Test
     void updateCustomer_NonExistingCustomer_ReturnsNotFound() {
-        when(customerRepository.findById(testUuid)).thenReturn(Optional.empty());
+        when(customerRepository.findByIdForUpdate(testUuid)).thenReturn(Optional.empty());
 
         ResponseEntity<?> response = customerService.updateCustomer(testUuid, validCustomerDTO);
 
@@ -170,7 +325,7 @@ public class CustomerServiceTest {
 
     @Test
     void updateCustomer_InvalidEmail_ReturnsBadRequest() {
-        when(customerRepository.findById(testUuid)).thenReturn(Optional.of(validCustomer));
+        when(customerRepository.findByIdForUpdate(testUuid)).thenReturn(Optional.of(validCustomer));
         validCustomerDTO.setEmailAddress("invalid-email");
 
         ResponseEntity<?> response = customerService.updateCustomer(testUuid, validCustomerDTO);
@@ -182,27 +337,126 @@ public class CustomerServiceTest {
 
     @Test
     void deleteCustomer_ExistingCustomer_Success() {
-        when(customerRepository.existsById(testUuid)).thenReturn(true);
+        when(customerRepository.findByIdForUpdate(testUuid)).thenReturn(Optional.of(validCustomer));
+        when(customerRepository.findByIdWithPhoneNumbers(testUuid)).thenReturn(Optional.of(validCustomer));
 
         ResponseEntity<?> response = customerService.deleteCustomer(testUuid);
 
         assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
-        verify(customerRepository, times(1)).deleteById(testUuid);
+        verify(customerHistoryRecorder, times(1)).recordDelete(validCustomer);
+        verify(duplicateDetector, times(1)).forget(testUuid);
+        verify(customerCounters, times(1)).customerRemoved(validCustomer);
+        assertNotNull(validCustomer.getDeletedAt());
+        verify(customerRepository, times(1)).save(validCustomer);
+        verify(customerRepository, never()).delete(any());
     }
 
     @Test
     void deleteCustomer_NonExistingCustomer_ReturnsNotFound() {
-        when(customerRepository.existsById(testUuid)).thenReturn(false);
+        when(customerRepository.findByIdForUpdate(testUuid)).thenReturn(Optional.empty());
 
         ResponseEntity<?> response = customerService.deleteCustomer(testUuid);
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
-        verify(customerRepository, never()).deleteById(any());
+        verify(customerRepository, never()).save(any());
+        verifyNoInteractions(customerHistoryRecorder);
+    }
+
+    @Test
+    void restoreCustomer_DeletedCustomer_Undeletes() {
+        when(customerPurgeStore.findDeletedEmail(testUuid)).thenReturn(validCustomer.getEmailAddress());
+        when(customerPurgeStore.undelete(testUuid)).thenReturn(true);
+        when(customerRepository.findByIdWithPhoneNumbers(testUuid)).thenReturn(Optional.of(validCustomer));
+
+        ResponseEntity<?> response = customerService.restoreCustomer(testUuid);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(validCustomer, response.getBody());
+        verify(customerHistoryRecorder, times(1)).recordRestore(validCustomer);
+        verifyNoInteractions(customerArchive);
+    }
+
+    @Test
+    void restoreCustomer_PurgedCustomer_InsertsFromArchive() throws Exception {
+        ArchivedCustomer archived = new ArchivedCustomer(testUuid, "{}");
+        when(customerArchive.find(testUuid)).thenReturn(Optional.of(archived));
+        when(customerPurgeStore.emailOf(archived)).thenReturn(validCustomer.getEmailAddress());
+        when(customerRepository.findByIdWithPhoneNumbers(testUuid)).thenReturn(Optional.of(validCustomer));
+
+        ResponseEntity<?> response = customerService.restoreCustomer(testUuid);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(customerPurgeStore, times(1)).insert(archived);
+        verify(customerPurgeStore, never()).undelete(any());
+    }
+
+    @Test
+    void restoreCustomer_PurgedDuringRestore_InsertsFromArchive() throws Exception {
+        ArchivedCustomer archived = new ArchivedCustomer(testUuid, "{}");
+        when(customerPurgeStore.findDeletedEmail(testUuid)).thenReturn(validCustomer.getEmailAddress());
+        when(customerPurgeStore.undelete(testUuid)).thenReturn(false);
+        when(customerArchive.find(testUuid)).thenReturn(Optional.of(archived));
+        when(customerRepository.findByIdWithPhoneNumbers(testUuid)).thenReturn(Optional.of(validCustomer));
+
+        ResponseEntity<?> response = customerService.restoreCustomer(testUuid);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(customerPurgeStore, times(1)).insert(archived);
+    }
+
+    @Test
+    void restoreCustomer_PurgedAndArchivedElsewhere_ReturnsConflict() throws Exception {
+        when(customerPurgeStore.findDeletedEmail(testUuid)).thenReturn(validCustomer.getEmailAddress());
+        when(customerPurgeStore.undelete(testUuid)).thenReturn(false);
+        when(customerArchive.find(testUuid)).thenReturn(Optional.empty());
+        TransactionStatus status = mock(TransactionStatus.class);
+
+        ResponseEntity<?> response;
+        try (MockedStatic<TransactionAspectSupport> transaction = mockStatic(TransactionAspectSupport.class)) {
+            transaction.when(TransactionAspectSupport::currentTransactionStatus).thenReturn(status);
+            response = customerService.restoreCustomer(testUuid);
+        }
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        verify(status, times(1)).setRollbackOnly();
+        verify(customerRepository, never()).findByIdWithPhoneNumbers(any());
+    }
+
+    @Test
+    void restoreCustomer_EmailTakenSince_ReturnsBadRequest() {
+        when(customerPurgeStore.findDeletedEmail(testUuid)).thenReturn(validCustomer.getEmailAddress());
+        when(customerRepository.existsByEmailAddress(validCustomer.getEmailAddress())).thenReturn(true);
+
+        ResponseEntity<?> response = customerService.restoreCustomer(testUuid);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertTrue(((Map<?, ?>) response.getBody()).containsKey("emailAddress"));
+        verify(customerPurgeStore, never()).undelete(any());
+    }
+
+    @Test
+    void restoreCustomer_LiveCustomer_ReturnsConflict() {
+        when(customerRepository.existsById(testUuid)).thenReturn(true);
+
+        ResponseEntity<?> response = customerService.restoreCustomer(testUuid);
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+        verifyNoInteractions(customerArchive);
+    }
+
+    @Test
+    void restoreCustomer_UnknownCustomer_ReturnsNotFound() throws Exception {
+        when(customerArchive.find(testUuid)).thenReturn(Optional.empty());
+
+        ResponseEntity<?> response = customerService.restoreCustomer(testUuid);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        verify(customerPurgeStore, never()).insert(any());
     }
 
     @Test
     void updateCustomer_PhoneNumberChanges_HandlesCorrectly() {
-        when(customerRepository.findById(testUuid)).thenReturn(Optional.of(validCustomer));
+        when(customerRepository.findByIdForUpdate(testUuid)).thenReturn(Optional.of(validCustomer));
         when(customerRepository.save(any(Customer.class))).thenReturn(validCustomer);
 
         // Add a new phone number to the DTO
@@ -221,5 +475,79 @@ public class CustomerServiceTest {
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         verify(phoneNumberRepository, times(1)).saveAll(any());
+        verify(customerCounters, times(1)).phoneNumbersChanged(
+                argThat(added -> added.size() == 1 && added.iterator().next().getPhoneType().equals("HOME")),
+                argThat(Collection::isEmpty));
+    }
+
+    @Test
+    void patchCustomer_MiddleNameOnly_SkipsPhoneValidation() throws Exception {
+        when(customerRepository.findByIdForUpdate(testUuid)).thenReturn(Optional.of(validCustomer));
+
+        ResponseEntity<?> response = customerService.patchCustomer(testUuid,
+                objectMapper.readTree("{\"middleName\": \"Robert\"}"));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("Robert", validCustomer.getMiddleName());
+        assertEquals("John", validCustomer.getFirstName());
+        verify(customerRepository, times(1)).saveAndFlush(validCustomer);
+        verify(customerRepository, never()).existsByEmailAddress(any());
+        verifyNoInteractions(phoneNumberRepository);
+    }
+
+    @Test
+    void patchCustomer_BlankRequiredField_ReturnsBadRequest() throws Exception {
+        when(customerRepository.findByIdForUpdate(testUuid)).thenReturn(Optional.of(validCustomer));
+
+        ResponseEntity<?> response = customerService.patchCustomer(testUuid,
+                objectMapper.readTree("{\"firstName\": null, \"id\": \"x\"}"));
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertTrue(((Map<?, ?>) response.getBody()).containsKey("firstName"));
+        assertTrue(((Map<?, ?>) response.getBody()).containsKey("id"));
+        verify(customerRepository, never()).saveAndFlush(any(Customer.class));
+    }
+
+    @Test
+    void patchCustomer_AddAndRemovePhoneNumbers_UsesTargetedStatements() throws Exception {
+        UUID phoneId = UUID.randomUUID();
+        when(customerRepository.findByIdForUpdate(testUuid)).thenReturn(Optional.of(validCustomer));
+        when(phoneNumberRepository.findByCustomerIdAndIdIn(testUuid, List.of(phoneId))).thenReturn(List.of(new PhoneNumber()));
+        when(phoneNumberRepository.countByCustomerId(testUuid)).thenReturn(1L);
+
+        ResponseEntity<?> response = customerService.patchCustomer(testUuid, objectMapper.readTree("""
+                {"phoneNumbers": {
+                    "add": [{"phoneNumber": "+12125552369", "phoneType": "HOME", "countryCode": "US", "verified": true}],
+                    "remove": ["%s"]
+                }}""".formatted(phoneId)));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(phoneNumberRepository, times(1)).deleteByCustomerIdAndIdIn(testUuid, List.of(phoneId));
+        verify(phoneNumberRepository, times(1)).saveAll(any());
+        verify(customerHistoryRecorder, times(1)).recordUpdate(any(), eq(validCustomer), argThat(added -> added.size() == 1),
+                argThat(removed -> removed.size() == 1));
+    }
+
+    @Test
+    void patchCustomer_RemoveLastPhoneNumber_ReturnsBadRequest() throws Exception {
+        UUID phoneId = UUID.randomUUID();
+        when(customerRepository.findByIdForUpdate(testUuid)).thenReturn(Optional.of(validCustomer));
+        when(phoneNumberRepository.findByCustomerIdAndIdIn(testUuid, List.of(phoneId))).thenReturn(List.of(new PhoneNumber()));
+        when(phoneNumberRepository.countByCustomerId(testUuid)).thenReturn(1L);
+
+        ResponseEntity<?> response = customerService.patchCustomer(testUuid,
+                objectMapper.readTree("{\"phoneNumbers\": {\"remove\": [\"" + phoneId + "\"]}}"));
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        verify(phoneNumberRepository, never()).deleteByCustomerIdAndIdIn(any(), any());
+    }
+
+    @Test
+    void patchCustomer_NonExistingCustomer_ReturnsNotFound() throws Exception {
+        when(customerRepository.findByIdForUpdate(testUuid)).thenReturn(Optional.empty());
+
+        ResponseEntity<?> response = customerService.patchCustomer(testUuid, objectMapper.readTree("{}"));
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
 }
\ No newline at end of file
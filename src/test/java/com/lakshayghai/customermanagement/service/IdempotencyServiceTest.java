@@ -0,0 +1,148 @@
+package com.lakshayghai.customermanagement.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.lakshayghai.customermanagement.repository.IdempotencyKeyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IdempotencyServiceTest {
+
+    private IdempotencyService idempotencyService;
+    private AtomicInteger executions;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyService(
+                new StaticListableBeanFactory().getBeanProvider(IdempotencyKeyRepository.class), new ObjectMapper(),
+                Duration.ofHours(1), Duration.ofSeconds(5), 100);
+        executions = new AtomicInteger();
+    }
+
+    private ResponseEntity<?> create() {
+        executions.incrementAndGet();
+        return ResponseEntity.status(HttpStatus.CREATED).body(Map.of("id", "1"));
+    }
+
+    @Test
+    void execute_WithoutKey_AlwaysRunsAction() {
+        idempotencyService.execute(null, "POST /customers", "body", this::create);
+        idempotencyService.execute(null, "POST /customers", "body", this::create);
+
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void execute_RetryWithSameKey_ReplaysFirstResponse() {
+        ResponseEntity<?> first = idempotencyService.execute("key-1", "POST /customers", "body", this::create);
+        ResponseEntity<?> retry = idempotencyService.execute("key-1", "POST /customers", "body", this::create);
+
+        assertEquals(1, executions.get());
+        assertEquals(HttpStatus.CREATED, retry.getStatusCode());
+        assertEquals(first.getBody(), retry.getBody());
+        assertEquals("true", retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+    }
+
+    @Test
+    void execute_SameKeyDifferentRequest_ReturnsUnprocessableEntity() {
+        idempotencyService.execute("key-1", "POST /customers", "body", this::create);
+        ResponseEntity<?> response = idempotencyService.execute("key-1", "POST /customers", "other", this::create);
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void execute_SameContentInOtherOrder_ReplaysFirstResponse() {
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("firstName", "Ada");
+        request.put("lastName", "Lovelace");
+        Map<String, Object> reordered = new LinkedHashMap<>();
+        reordered.put("lastName", "Lovelace");
+        reordered.put("firstName", "Ada");
+
+        idempotencyService.execute("key-1", "POST /customers", request, this::create);
+        ResponseEntity<?> retry = idempotencyService.execute("key-1", "POST /customers", reordered, this::create);
+
+        assertEquals(HttpStatus.CREATED, retry.getStatusCode());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void execute_HashCodeCollision_ReturnsUnprocessableEntity() {
+        // "Aa" and "BB" share a String hashCode
+        idempotencyService.execute("key-1", "POST /customers", Map.of("firstName", "Aa"), this::create);
+        ResponseEntity<?> response = idempotencyService.execute("key-1", "POST /customers", Map.of("firstName", "BB"), this::create);
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void execute_FailedRequest_IsNotRecorded() {
+        assertThrows(IllegalStateException.class, () -> idempotencyService.execute("key-1", "POST /customers", "body", () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        ResponseEntity<?> retry = idempotencyService.execute("key-1", "POST /customers", "body", this::create);
+
+        assertEquals(HttpStatus.CREATED, retry.getStatusCode());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void execute_BeyondMaxEntries_EvictsOldestRecordedKey() {
+        for (int i = 0; i <= 100; i++) {
+            idempotencyService.execute("key-" + i, "POST /customers", "body", this::create);
+        }
+
+        idempotencyService.execute("key-100", "POST /customers", "body", this::create);
+        assertEquals(101, executions.get());
+        idempotencyService.execute("key-0", "POST /customers", "body", this::create);
+        assertEquals(102, executions.get());
+    }
+
+    @Test
+    void execute_ConcurrentDuplicates_WaitForInFlightRequest() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<ResponseEntity<?>> first = executor.submit(() -> idempotencyService.execute("key-1", "POST /customers", "body", () -> {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return create();
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            Future<ResponseEntity<?>> second = executor.submit(() -> idempotencyService.execute("key-1", "POST /customers", "body", this::create));
+            Future<ResponseEntity<?>> third = executor.submit(() -> idempotencyService.execute("key-1", "POST /customers", "body", this::create));
+            release.countDown();
+
+            assertEquals(HttpStatus.CREATED, first.get(5, TimeUnit.SECONDS).getStatusCode());
+            assertEquals(HttpStatus.CREATED, second.get(5, TimeUnit.SECONDS).getStatusCode());
+            assertEquals(HttpStatus.CREATED, third.get(5, TimeUnit.SECONDS).getStatusCode());
+            assertEquals(1, executions.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
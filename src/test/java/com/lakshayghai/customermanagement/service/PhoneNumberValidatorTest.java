@@ -0,0 +1,88 @@
+package com.lakshayghai.customermanagement.service;
+
+import com.lakshayghai.customermanagement.entity.PhoneNumber;
+import com.lakshayghai.customermanagement.model.PhoneNumberDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PhoneNumberValidatorTest {
+
+    private static final int PHONES = 500;
+
+    private final PhoneNumberValidator serial = new PhoneNumberValidator(Integer.MAX_VALUE, 1);
+    private final PhoneNumberValidator parallel = new PhoneNumberValidator(1, 4);
+
+    @AfterEach
+    void tearDown() {
+        serial.destroy();
+        parallel.destroy();
+    }
+
+    @Test
+    void validate_LargeList_PreservesInputOrder() {
+        List<PhoneNumberDTO> phones = IntStream.range(0, PHONES).mapToObj(PhoneNumberValidatorTest::validPhone).toList();
+
+        PhoneNumberValidator.Result result = parallel.validate(phones);
+
+        assertTrue(result.getErrors().isEmpty());
+        assertEquals(PHONES, result.getPhoneNumbers().size());
+        for (int i = 0; i < PHONES; i++) {
+            assertEquals(phones.get(i).getPhoneNumber(), result.getPhoneNumbers().get(i).getPhoneNumber());
+        }
+    }
+
+    @Test
+    void validate_SeveralInvalidNumbers_ReportsEachByIndex() {
+        List<PhoneNumberDTO> phones = IntStream.range(0, PHONES)
+                .mapToObj(i -> i % 100 == 7 ? invalidPhone() : validPhone(i))
+                .toList();
+
+        PhoneNumberValidator.Result result = parallel.validate(phones);
+
+        assertEquals(5, result.getErrors().size());
+        assertEquals(List.of("phoneNumbers[7].phoneNumber", "phoneNumbers[107].phoneNumber",
+                "phoneNumbers[207].phoneNumber", "phoneNumbers[307].phoneNumber", "phoneNumbers[407].phoneNumber"),
+                List.copyOf(result.getErrors().keySet()));
+        assertEquals(PHONES - 5, result.getPhoneNumbers().size());
+    }
+
+    @Test
+    void validate_SerialAndParallel_ReturnSameResult() {
+        List<PhoneNumberDTO> phones = IntStream.range(0, PHONES)
+                .mapToObj(i -> i % 50 == 0 ? invalidPhone() : validPhone(i))
+                .toList();
+
+        PhoneNumberValidator.Result expected = serial.validate(phones);
+        PhoneNumberValidator.Result actual = parallel.validate(phones);
+
+        assertEquals(expected.getErrors(), actual.getErrors());
+        assertEquals(expected.getPhoneNumbers().stream().map(PhoneNumber::getPhoneNumber).toList(),
+                actual.getPhoneNumbers().stream().map(PhoneNumber::getPhoneNumber).toList());
+    }
+
+    @Test
+    void toEntity_InvalidNumber_ThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> serial.toEntity(invalidPhone()));
+    }
+
+    private static PhoneNumberDTO validPhone(int i) {
+        PhoneNumberDTO phone = new PhoneNumberDTO();
+        phone.setPhoneNumber(String.format("+1212555%04d", i));
+        phone.setPhoneType("MOBILE");
+        phone.setCountryCode("US");
+        return phone;
+    }
+
+    private static PhoneNumberDTO invalidPhone() {
+        PhoneNumberDTO phone = new PhoneNumberDTO();
+        phone.setPhoneNumber("+1000");
+        phone.setPhoneType("HOME");
+        phone.setCountryCode("US");
+        return phone;
+    }
+}
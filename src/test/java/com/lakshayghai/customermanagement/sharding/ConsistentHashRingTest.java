@@ -0,0 +1,58 @@
+package com.lakshayghai.customermanagement.sharding;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConsistentHashRingTest {
+
+    private static final int KEYS = 100_000;
+
+    @Test
+    void shardFor_SameKey_SameShard() {
+        ConsistentHashRing ring = new ConsistentHashRing(4, 128);
+        UUID id = UUID.randomUUID();
+
+        assertEquals(ring.shardFor(id), new ConsistentHashRing(4, 128).shardFor(id));
+        assertEquals(ring.shardFor("john.doe@example.com"), ring.shardFor("john.doe@example.com"));
+    }
+
+    @Test
+    void shardFor_RandomIds_SpreadEvenly() {
+        ConsistentHashRing ring = new ConsistentHashRing(4, 128);
+        int[] counts = new int[4];
+        Random random = new Random(42);
+        for (int i = 0; i < KEYS; i++) {
+            counts[ring.shardFor(new UUID(random.nextLong(), random.nextLong()))]++;
+        }
+
+        for (int count : counts) {
+            assertEquals(KEYS / 4.0, count, KEYS / 4.0 * 0.2);
+        }
+    }
+
+    @Test
+    void shardFor_ShardAdded_OnlyMovesKeysToNewShard() {
+        ConsistentHashRing before = new ConsistentHashRing(2, 128);
+        ConsistentHashRing after = new ConsistentHashRing(3, 128);
+        int moved = 0;
+        Random random = new Random(42);
+        for (int i = 0; i < KEYS; i++) {
+            UUID id = new UUID(random.nextLong(), random.nextLong());
+            if (before.shardFor(id) != after.shardFor(id)) {
+                assertEquals(2, after.shardFor(id));
+                moved++;
+            }
+        }
+
+        assertEquals(KEYS / 3.0, moved, KEYS / 3.0 * 0.2);
+    }
+
+    @Test
+    void constructor_NoShards_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(0, 128));
+    }
+}
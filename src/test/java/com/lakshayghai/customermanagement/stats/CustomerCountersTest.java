@@ -0,0 +1,154 @@
+package com.lakshayghai.customermanagement.stats;
+
+import com.lakshayghai.customermanagement.entity.Customer;
+import com.lakshayghai.customermanagement.entity.PhoneNumber;
+import com.lakshayghai.customermanagement.model.CustomerStats;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CustomerCountersTest {
+
+    private static final String US_MOBILE = CustomerCounters.phoneNumberKey("US", true, "MOBILE");
+    private static final String GB_HOME = CustomerCounters.phoneNumberKey("GB", false, "HOME");
+
+    @Mock
+    private CustomerStatsStore customerStatsStore;
+
+    private CustomerCounters counters;
+
+    @BeforeEach
+    void setUp() {
+        counters = new CustomerCounters(customerStatsStore, new SimpleMeterRegistry(), true);
+    }
+
+    @Test
+    void stats_UnflushedChanges_AreCounted() {
+        counters.customerAdded(customer(phone("US", true, "MOBILE"), phone("GB", false, "HOME")));
+        counters.customerAdded(customer(phone("US", true, "MOBILE")));
+        counters.phoneNumbersChanged(List.of(phone("US", false, "WORK")), List.of(phone("GB", false, "HOME")));
+
+        CustomerStats stats = counters.stats();
+
+        assertEquals(2, stats.getCustomers());
+        assertEquals(3, stats.getPhoneNumbers());
+        assertEquals(Map.of("US", 3L), stats.getPhoneNumbersByCountryCode());
+        assertEquals(Map.of("MOBILE", 2L, "WORK", 1L), stats.getPhoneNumbersByType());
+        assertEquals(Map.of("verified", 2L, "unverified", 1L), stats.getPhoneNumbersByVerification());
+    }
+
+    @Test
+    void flush_UnflushedChanges_AddsThemInOneBatch() {
+        counters.customerAdded(customer(phone("US", true, "MOBILE")));
+        counters.customerRemoved(customer(phone("GB", false, "HOME")));
+        counters.customerAdded(customer(phone("US", true, "MOBILE")));
+        List<Map<String, Long>> added = flushes(Long.MIN_VALUE, Map.of(CustomerCounters.CUSTOMERS, 11L, US_MOBILE, 7L));
+
+        counters.flush();
+
+        assertEquals(List.of(Map.of(CustomerCounters.CUSTOMERS, 1L, US_MOBILE, 2L, GB_HOME, -1L)), added);
+        assertEquals(11, counters.stats().getCustomers());
+        assertEquals(7, counters.stats().getPhoneNumbers());
+
+        counters.flush();
+
+        assertEquals(Map.of(), added.get(1));
+    }
+
+    @Test
+    void flush_StoreFails_KeepsChangesForNextFlush() {
+        counters.customerAdded(customer(phone("US", true, "MOBILE")));
+        when(customerStatsStore.flush(any())).thenThrow(new IllegalStateException("down"));
+
+        counters.flush();
+
+        assertEquals(1, counters.stats().getCustomers());
+        List<Map<String, Long>> added = flushes(Long.MIN_VALUE, Map.of(CustomerCounters.CUSTOMERS, 1L, US_MOBILE, 1L));
+        counters.flush();
+        assertEquals(List.of(Map.of(CustomerCounters.CUSTOMERS, 1L, US_MOBILE, 1L)), added);
+    }
+
+    @Test
+    void flush_ChangesBeforeReconciliation_AreDropped() {
+        counters.customerAdded(customer(phone("US", true, "MOBILE")));
+        List<Map<String, Long>> added = flushes(System.currentTimeMillis() + 1_000, Map.of(CustomerCounters.CUSTOMERS, 4L));
+
+        counters.flush();
+
+        assertEquals(List.of(Map.of()), added);
+        assertEquals(4, counters.stats().getCustomers());
+        assertEquals(0, counters.stats().getPhoneNumbers());
+    }
+
+    @Test
+    void reconcile_Drift_ReplacesStoredCounts() {
+        when(customerStatsStore.load()).thenReturn(Map.of(CustomerCounters.CUSTOMERS, 5L));
+        counters.loadOnStartup();
+        Map<String, Long> recounted = Map.of(CustomerCounters.CUSTOMERS, 4L, US_MOBILE, 6L);
+        when(customerStatsStore.reconcile()).thenReturn(new CustomerStatsStore.Reconciliation(
+                Map.of(CustomerCounters.CUSTOMERS, 5L), recounted));
+        flushes(Long.MIN_VALUE, recounted);
+
+        counters.reconcile();
+
+        CustomerStats stats = counters.stats();
+        assertEquals(4, stats.getCustomers());
+        assertEquals(6, stats.getPhoneNumbers());
+        assertNotNull(stats.getReconciledAt());
+        verify(customerStatsStore, times(2)).flush(any());
+    }
+
+    @Test
+    void loadOnStartup_EmptyTable_Reconciles() {
+        when(customerStatsStore.load()).thenReturn(Map.of());
+        when(customerStatsStore.reconcile()).thenReturn(new CustomerStatsStore.Reconciliation(
+                Map.of(), new HashMap<>(Map.of(CustomerCounters.CUSTOMERS, 3L))));
+        flushes(Long.MIN_VALUE, Map.of(CustomerCounters.CUSTOMERS, 3L));
+
+        counters.loadOnStartup();
+
+        assertEquals(3, counters.stats().getCustomers());
+    }
+
+    /**
+     * Makes flushes see a reconciliation at {@code reconciledAt} and return {@code counts}.
+     *
+     * @return the deltas each flush adds
+     */
+    private List<Map<String, Long>> flushes(long reconciledAt, Map<String, Long> counts) {
+        List<Map<String, Long>> added = new ArrayList<>();
+        doAnswer(invocation -> {
+            added.add(invocation.<LongFunction<Map<String, Long>>>getArgument(0).apply(reconciledAt));
+            return counts;
+        }).when(customerStatsStore).flush(any());
+        return added;
+    }
+
+    private static Customer customer(PhoneNumber... phoneNumbers) {
+        Customer customer = new Customer();
+        customer.setPhoneNumbers(new ArrayList<>(List.of(phoneNumbers)));
+        return customer;
+    }
+
+    private static PhoneNumber phone(String countryCode, boolean verified, String phoneType) {
+        PhoneNumber phoneNumber = new PhoneNumber();
+        phoneNumber.setCountryCode(countryCode);
+        phoneNumber.setVerified(verified);
+        phoneNumber.setPhoneType(phoneType);
+        return phoneNumber;
+    }
+}
@@ -0,0 +1,63 @@
+package com.lakshayghai.customermanagement.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BloomFilterTest {
+
+    private static final int EMAILS = 100_000;
+
+    @Test
+    void mightContain_AddedEmails_AlwaysTrue() {
+        BloomFilter filter = new BloomFilter(EMAILS, 0.01);
+        IntStream.range(0, EMAILS).forEach(i -> filter.put("customer" + i + "@example.com"));
+
+        IntStream.range(0, EMAILS).forEach(i -> assertTrue(filter.mightContain("customer" + i + "@example.com")));
+        assertEquals(EMAILS, filter.insertions());
+    }
+
+    @Test
+    void mightContain_AbsentEmails_FalsePositiveRateNearConfigured() {
+        BloomFilter filter = new BloomFilter(EMAILS, 0.01);
+        IntStream.range(0, EMAILS).forEach(i -> filter.put("customer" + i + "@example.com"));
+
+        long falsePositives = IntStream.range(0, EMAILS)
+                .filter(i -> filter.mightContain("absent" + i + "@example.com"))
+                .count();
+
+        assertEquals(0.01, (double) falsePositives / EMAILS, 0.005);
+        assertEquals(0.01, filter.expectedFalsePositiveRate(), 0.005);
+    }
+
+    @Test
+    void put_ConcurrentWriters_LosesNoEmails() throws Exception {
+        BloomFilter filter = new BloomFilter(EMAILS, 0.01);
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            Future<?>[] futures = new Future<?>[4];
+            for (int t = 0; t < futures.length; t++) {
+                int offset = t;
+                futures[t] = executor.submit(() -> {
+                    for (int i = offset; i < EMAILS; i += 4) {
+                        filter.put("customer" + i + "@example.com");
+                    }
+                });
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        IntStream.range(0, EMAILS).forEach(i -> assertTrue(filter.mightContain("customer" + i + "@example.com")));
+    }
+
+    @Test
+    void constructor_InvalidRate_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(EMAILS, 1.5));
+    }
+}